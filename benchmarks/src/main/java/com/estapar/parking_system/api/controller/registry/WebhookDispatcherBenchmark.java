@@ -0,0 +1,52 @@
+package com.estapar.parking_system.api.controller.registry;
+
+import com.estapar.parking_system.api.controller.contract.WebhookHandler;
+import com.estapar.parking_system.api.dto.WebhookDtos.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handler lookup of the registry, with no-op handlers so only the dispatch itself is measured.
+ * Lives in the dispatcher's package because its constructor is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WebhookDispatcherBenchmark {
+
+    private WebhookDispatcher dispatcher;
+    private WebhookEvent[] events;
+    private int next;
+
+    private record NoOp<T extends WebhookEvent>(Class<T> supports, Blackhole sink) implements WebhookHandler<T> {
+        public void handle(T event) {
+            sink.consume(event);
+        }
+    }
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        dispatcher = new WebhookDispatcher(List.of(
+                new NoOp<>(EntryEvent.class, bh),
+                new NoOp<>(ParkedEvent.class, bh),
+                new NoOp<>(ExitEvent.class, bh)), Optional.empty());
+        events = new WebhookEvent[]{
+                new EntryEvent("ZUL0001", "2025-01-01T12:00:00Z", EventType.ENTRY),
+                new ParkedEvent("ZUL0001", new BigDecimal("-23.561684"), new BigDecimal("-46.655981"), EventType.PARKED),
+                new ExitEvent("ZUL0001", "2025-01-01T12:40:00Z", EventType.EXIT),
+                new EntryEvent("ZUL0002", "2025-01-01T12:00:00Z", EventType.ENTRY)
+        };
+    }
+
+    @Benchmark
+    public void dispatch() {
+        dispatcher.dispatch(events[next++ & 3]);
+    }
+}
@@ -0,0 +1,228 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.application.allocation.LowestIdStrategy;
+import com.estapar.parking_system.application.helpers.EntryAllocator;
+import com.estapar.parking_system.application.index.FreeSpotIndex;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
+import com.estapar.parking_system.domain.service.OccupancyService;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Several app instances claiming spots in the same sector of one database. Each JMH thread is a
+ * node with its own {@link EntryAllocator} and {@link FreeSpotIndex}; the spot table is shared
+ * and takes row locks the way InnoDB does, held until the ENTRY commits. Every ENTRY is followed
+ * by the car leaving, so the fill level stays put. Compare throughput across {@code -t 1/2/4/8}:
+ * <pre>
+ * for t in 1 2 4 8; do ./mvnw -f benchmarks/pom.xml verify -Djmh.filter=AllocationContention -Djmh.args="-t $t"; done
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AllocationContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"index", "skip-locked"})
+        public String claim;
+
+        /** CPU spent between the claim and the commit (the session insert) while the row stays locked */
+        @Param({"500"})
+        public long holdTokens;
+
+        static final int SPOTS = 200;
+
+        final SectorEntity sector = new SectorEntity(1L, "A", new BigDecimal("10.00"), SPOTS, "00:00", "23:59", 1440);
+        final SpotEntity[] entities = new SpotEntity[SPOTS + 1];
+        final AtomicLongArray occupant = new AtomicLongArray(SPOTS + 1);
+        final AtomicReferenceArray<Thread> lockedBy = new AtomicReferenceArray<>(SPOTS + 1);
+        final ThreadLocal<List<Integer>> held = ThreadLocal.withInitial(ArrayList::new);
+
+        SpotRepository spotRepo;
+        SectorRepository sectorRepo;
+
+        @Setup
+        public void setUp() {
+            for (int id = 1; id <= SPOTS; id++) {
+                var spot = new SpotEntity();
+                spot.setId((long) id);
+                spot.setSector(sector);
+                entities[id] = spot;
+            }
+            spotRepo = proxy(SpotRepository.class, (name, args) -> switch (name) {
+                case "tryOccupy" -> update((Long) args[0], 0L, (Long) args[1]);
+                case "trySwapOccupant" -> update((Long) args[0], (Long) args[1], (Long) args[2]);
+                case "lockFirstFreeInSector" -> lockFirstFree();
+                case "countOccupiedInSector" -> (long) (SPOTS - freeIds().size());
+                case "findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc" -> firstFree().map(id -> entities[id]);
+                case "findFreeIdsInSector" -> freeIds();
+                case "findAllSlots" -> slots();
+                case "countBySector" -> List.of();
+                case "getReferenceById" -> entities[((Long) args[0]).intValue()];
+                default -> throw new UnsupportedOperationException(name);
+            });
+            sectorRepo = proxy(SectorRepository.class, (name, args) -> switch (name) {
+                case "findAll" -> List.of(sector);
+                default -> throw new UnsupportedOperationException(name);
+            });
+        }
+
+        /** conditional UPDATE: waits for the row lock, keeps it on a match, lets it go otherwise */
+        private int update(Long spotId, long expected, long value) {
+            int id = spotId.intValue();
+            lock(id);
+            if (occupant.get(id) == expected) {
+                occupant.set(id, value);
+                return 1;
+            }
+            unlock(id);
+            return 0;
+        }
+
+        private Optional<Long> lockFirstFree() {
+            for (int id = 1; id <= SPOTS; id++) {
+                if (occupant.get(id) != 0 || !tryLock(id)) continue;
+                if (occupant.get(id) == 0) return Optional.of((long) id);
+                unlock(id);
+            }
+            return Optional.empty();
+        }
+
+        /** plain read: sees what is committed, ignores locks */
+        private Optional<Integer> firstFree() {
+            for (int id = 1; id <= SPOTS; id++) {
+                if (occupant.get(id) == 0) return Optional.of(id);
+            }
+            return Optional.empty();
+        }
+
+        private List<Long> freeIds() {
+            List<Long> ids = new ArrayList<>();
+            for (int id = 1; id <= SPOTS; id++) {
+                if (occupant.get(id) == 0) ids.add((long) id);
+            }
+            return ids;
+        }
+
+        private List<SpotSlot> slots() {
+            List<SpotSlot> slots = new ArrayList<>();
+            for (int id = 1; id <= SPOTS; id++) {
+                long spotId = id, taken = occupant.get(id);
+                slots.add(new SpotSlot() {
+                    public Long getId() { return spotId; }
+                    public Long getSectorId() { return sector.getId(); }
+                    public Long getOccupiedBySessionId() { return taken == 0 ? null : taken; }
+                });
+            }
+            return slots;
+        }
+
+        private boolean tryLock(int id) {
+            Thread me = Thread.currentThread();
+            if (lockedBy.get(id) == me) return true;
+            if (!lockedBy.compareAndSet(id, null, me)) return false;
+            held.get().add(id);
+            return true;
+        }
+
+        private void lock(int id) {
+            while (!tryLock(id)) Thread.onSpinWait();
+        }
+
+        private void unlock(int id) {
+            held.get().remove((Integer) id);
+            lockedBy.set(id, null);
+        }
+
+        void commit() {
+            List<Integer> locks = held.get();
+            for (Integer id : locks) lockedBy.set(id, null);
+            locks.clear();
+        }
+
+        /** the EXIT of the car that just came in, as its own short transaction */
+        void leave(long spotId) {
+            update(spotId, occupant.get((int) spotId), 0L);
+            commit();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Node {
+        EntryAllocator allocator;
+        SpotOccupancyEvents occupancyEvents;
+        long nextSession;
+
+        @Setup
+        public void setUp(Database db, ThreadParams thread) {
+            var registry = new SectorRegistry(db.sectorRepo);
+            var freeSpots = new FreeSpotIndex(db.spotRepo);
+            freeSpots.reload();
+            occupancyEvents = new SpotOccupancyEvents(List.of(freeSpots));
+            // the fill level never changes here; keep count(*) out of the numbers
+            var occupancy = new OccupancyService(db.spotRepo, registry) {
+                @Override
+                public boolean isSectorFull(Long sectorId) {
+                    return false;
+                }
+            };
+            allocator = new EntryAllocator(registry, new LowestIdStrategy(registry, db.spotRepo), db.spotRepo,
+                    occupancy, freeSpots, occupancyEvents, db.claim);
+            nextSession = (thread.getThreadIndex() + 1) * 1_000_000_000L;
+        }
+    }
+
+    @Benchmark
+    public Long entry(Database db, Node node) {
+        var allocation = node.allocator.claim();
+        if (allocation == null) {
+            db.commit();
+            return null;
+        }
+        Blackhole.consumeCPU(db.holdTokens);
+        node.allocator.assign(allocation, ++node.nextSession);
+        db.commit();
+
+        Long spotId = allocation.spot().getId();
+        db.leave(spotId);
+        node.occupancyEvents.released(allocation.sector().id(), spotId, node.nextSession);
+        return spotId;
+    }
+
+    private interface Calls {
+        Object call(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Calls calls) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName() + "(shared)";
+                };
+            }
+            return calls.call(method.getName(), args == null ? new Object[0] : args);
+        });
+    }
+}
@@ -0,0 +1,181 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.api.dto.WebhookDtos.EntryEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.EventType;
+import com.estapar.parking_system.application.allocation.LowestIdStrategy;
+import com.estapar.parking_system.application.cache.OpenSessionCache;
+import com.estapar.parking_system.application.helpers.EntryAllocator;
+import com.estapar.parking_system.application.helpers.ParkingPreemption;
+import com.estapar.parking_system.application.helpers.TimeParser;
+import com.estapar.parking_system.application.index.FreeSpotIndex;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.application.index.SpotSpatialIndex;
+import com.estapar.parking_system.application.service.SessionAppService;
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository;
+import com.estapar.parking_system.domain.service.CountingOccupancyService;
+import com.estapar.parking_system.domain.service.DynamicFactorService;
+import com.estapar.parking_system.domain.service.PricingService;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ENTRY over in-memory repositories, admitted and turned away by a full garage, next to the
+ * flow it replaced (insert the session, allocate, then update or delete it). Besides the time,
+ * {@link RoundTrips} reports the repository calls that reach the database: statements / entries
+ * is the per-ENTRY figure. A JPA merge costs extra selects this does not see; the SQL-level
+ * numbers are in QueryBudgetTest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntryBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long statements;
+        public long entries;
+    }
+
+    @Param({"false", "true"})
+    public boolean full;
+
+    private InMemoryGarage garage;
+    private SessionAppService sessions;
+    private SectorRegistry registry;
+    private CountingOccupancyService occupancy;
+    private FreeSpotIndex freeSpots;
+    private SpotOccupancyEvents occupancyEvents;
+    private OpenSessionCache openSessions;
+    private DynamicFactorService factors;
+    private EntryEvent event;
+
+    @Setup
+    public void setUp() {
+        garage = new InMemoryGarage();
+        SectorEntity a = garage.sector(1, "A", "40.50");
+        // capacidade 100: com full=true as 100 vagas já estão ocupadas
+        for (long id = 1; id <= 100; id++) {
+            SpotEntity spot = garage.spot(id, a);
+            if (full) spot.setOccupiedBySessionId(10_000 + id);
+        }
+
+        registry = new SectorRegistry(garage.sectorRepo);
+        occupancy = new CountingOccupancyService(garage.spotRepo, registry);
+        occupancy.reseed();
+        freeSpots = new FreeSpotIndex(garage.spotRepo);
+        freeSpots.reload();
+        var strategy = new LowestIdStrategy(registry, garage.spotRepo);
+        strategy.reload();
+        occupancyEvents = new SpotOccupancyEvents(List.of(freeSpots, occupancy, strategy));
+        openSessions = new OpenSessionCache(1_000, new SimpleMeterRegistry());
+        factors = new DynamicFactorService();
+
+        var allocator = new EntryAllocator(registry, strategy, garage.spotRepo, occupancy, freeSpots, occupancyEvents, "index");
+        var preemption = new ParkingPreemption(garage.spotRepo, registry, garage.sessionRepo, occupancyEvents);
+        sessions = new SessionAppService(garage.sessionRepo, occupancy, factors, garage.spotRepo,
+                garage.sectorRepo, registry, new PricingService(), allocator, preemption, occupancyEvents,
+                new SpotSpatialIndex(garage.spotRepo), unused(RevenueDailyRepository.class), e -> {}, openSessions);
+        event = new EntryEvent("ENT0001", "2025-01-01T12:00:00Z", EventType.ENTRY);
+    }
+
+    @Benchmark
+    public void entry(RoundTrips trips) {
+        long before = garage.roundTrips;
+        try {
+            sessions.handleEntry(event);
+        } catch (GarageFullException rejected) {
+            // full=true: a rejection is the measured outcome
+        }
+        trips.statements += garage.roundTrips - before;
+        trips.entries++;
+        reset();
+    }
+
+    @Benchmark
+    public void legacyEntry(RoundTrips trips) {
+        long before = garage.roundTrips;
+        try {
+            legacyHandleEntry(event);
+        } catch (GarageFullException rejected) {
+            // idem
+        }
+        trips.statements += garage.roundTrips - before;
+        trips.entries++;
+        reset();
+    }
+
+    /** The ENTRY flow before the spot was claimed up front */
+    private void legacyHandleEntry(EntryEvent ev) {
+        if (openSessions.openSessionId(ev.licensePlate()) != 0
+                || garage.sessionRepo.countOpenByPlate(ev.licensePlate()) > 0) return;
+
+        BigDecimal ratio = occupancy.globalRatioBySpots();
+        Instant entryTime = TimeParser.parseInstantSafe(ev.entryTime());
+        VehicleSessionEntity session = garage.sessionRepo.save(VehicleSessionEntity.builder()
+                .licensePlate(ev.licensePlate())
+                .entryTime(entryTime)
+                .priceFactor(factors.compute(null, ratio, entryTime))
+                .build());
+
+        SectorInfo sector = null;
+        SpotEntity spot = null;
+        for (SectorInfo candidate : registry.all()) {
+            if (occupancy.isSectorFull(candidate.id())) continue;
+            Long id;
+            while (spot == null && (id = freeSpots.poll(candidate.id())) != null) {
+                if (garage.spotRepo.tryOccupy(id, session.getId()) == 1) {
+                    occupancyEvents.occupied(candidate.id(), id, session.getId());
+                    spot = garage.spotRepo.getReferenceById(id);
+                    sector = candidate;
+                }
+            }
+            if (spot != null) break;
+        }
+        if (spot == null) {
+            garage.sessionRepo.deleteById(session.getId());
+            throw new GarageFullException("Garage is full");
+        }
+
+        session.setSector(garage.sectorRepo.getReferenceById(sector.id()));
+        session.setBasePrice(sector.basePrice());
+        session.setPriceFactor(factors.compute(sector.code(), ratio, entryTime));
+        session.setSpot(spot);
+        garage.sessionRepo.save(session);
+        openSessions.opened(ev.licensePlate(), session.getId());
+    }
+
+    /** Undo the admitted ENTRY, so every invocation sees the same garage */
+    private void reset() {
+        for (VehicleSessionEntity session : List.copyOf(garage.sessions.values())) {
+            SpotEntity spot = session.getSpot();
+            if (spot != null) {
+                spot.setOccupiedBySessionId(null);
+                occupancyEvents.released(spot.getSector().getId(), spot.getId(), session.getId());
+            }
+            openSessions.closed(session.getLicensePlate(), session.getId());
+        }
+        garage.sessions.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T unused(Class<T> type) {
+        return (T) java.lang.reflect.Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
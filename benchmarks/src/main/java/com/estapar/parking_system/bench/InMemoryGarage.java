@@ -0,0 +1,167 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SectorOccupancy;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
+import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Map-backed stand-ins for the JPA repositories, built with dynamic proxies. Only the calls
+ * ParkingPreemption and ENTRY make are implemented; anything else throws, so a new query on
+ * those paths shows up here instead of silently measuring nothing. {@link #roundTrips} counts
+ * the calls that would reach the database (everything but {@code getReferenceById}).
+ */
+final class InMemoryGarage {
+
+    final List<SectorEntity> sectors = new ArrayList<>();
+    final TreeMap<Long, SpotEntity> spots = new TreeMap<>();
+    final Map<Long, VehicleSessionEntity> sessions = new HashMap<>();
+
+    long roundTrips;
+    private long nextSessionId = 1_000_000;
+
+    final SpotRepository spotRepo = proxy(SpotRepository.class, (name, args) -> switch (name) {
+        case "tryOccupy" -> {
+            SpotEntity s = spots.get((Long) args[0]);
+            if (s == null || s.getOccupiedBySessionId() != null) yield 0;
+            s.setOccupiedBySessionId((Long) args[1]);
+            yield 1;
+        }
+        case "trySwapOccupant" -> {
+            SpotEntity s = spots.get((Long) args[0]);
+            if (s == null || !Objects.equals(s.getOccupiedBySessionId(), args[1])) yield 0;
+            s.setOccupiedBySessionId((Long) args[2]);
+            yield 1;
+        }
+        case "releaseIfHeldBy" -> {
+            SpotEntity s = spots.get((Long) args[0]);
+            if (s == null || !Objects.equals(s.getOccupiedBySessionId(), args[1])) yield 0;
+            s.setOccupiedBySessionId(null);
+            yield 1;
+        }
+        case "lockHeldBy" -> spots.values().stream()
+                .filter(s -> Objects.equals(s.getOccupiedBySessionId(), args[0]))
+                .map(InMemoryGarage::slot)
+                .toList();
+        case "findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc" -> spots.values().stream()
+                .filter(s -> s.getSector().getId().equals(args[0]) && s.getOccupiedBySessionId() == null)
+                .findFirst();
+        case "findFreeIdsInSector" -> spots.values().stream()
+                .filter(s -> s.getSector().getId().equals(args[0]) && s.getOccupiedBySessionId() == null)
+                .map(SpotEntity::getId)
+                .toList();
+        case "findAllSlots" -> spots.values().stream().map(InMemoryGarage::slot).toList();
+        case "countBySector" -> sectors.stream().map(this::occupancy).toList();
+        case "getReferenceById" -> spots.get((Long) args[0]);
+        case "save" -> args[0];
+        default -> throw new UnsupportedOperationException(name);
+    });
+
+    final SectorRepository sectorRepo = proxy(SectorRepository.class, (name, args) -> switch (name) {
+        case "findAll" -> sectors;
+        case "getReferenceById" -> sectors.stream().filter(s -> s.getId().equals(args[0])).findFirst().orElseThrow();
+        default -> throw new UnsupportedOperationException(name);
+    });
+
+    final VehicleSessionRepository sessionRepo = proxy(VehicleSessionRepository.class, (name, args) -> switch (name) {
+        case "findById" -> Optional.ofNullable(sessions.get((Long) args[0]));
+        case "countOpenByPlate" -> sessions.values().stream()
+                .filter(s -> s.getExitTime() == null && s.getLicensePlate().equals(args[0]))
+                .count();
+        case "save" -> {
+            var session = (VehicleSessionEntity) args[0];
+            if (session.getId() == null) session.setId(nextSessionId++);
+            sessions.put(session.getId(), session);
+            yield session;
+        }
+        case "moveDisplaced" -> {
+            VehicleSessionEntity s = sessions.get((Long) args[0]);
+            if (s == null) yield 0;
+            SpotEntity spot = spots.get((Long) args[1]);
+            if (s.getSector() == null || !s.getSector().getId().equals(args[2]) || s.getBasePrice() == null) {
+                s.setBasePrice((BigDecimal) args[3]);
+            }
+            s.setSector(spot.getSector());
+            s.setSpot(spot);
+            yield 1;
+        }
+        case "deleteById" -> {
+            sessions.remove((Long) args[0]);
+            yield null;
+        }
+        default -> throw new UnsupportedOperationException(name);
+    });
+
+    SectorEntity sector(long id, String code, String basePrice) {
+        var s = new SectorEntity(id, code, new BigDecimal(basePrice), 100, "00:00", "23:59", 1440);
+        sectors.add(s);
+        return s;
+    }
+
+    SpotEntity spot(long id, SectorEntity sector) {
+        var s = new SpotEntity();
+        s.setId(id);
+        s.setSector(sector);
+        spots.put(id, s);
+        return s;
+    }
+
+    VehicleSessionEntity session(long id, String plate) {
+        var s = new VehicleSessionEntity();
+        s.setId(id);
+        s.setLicensePlate(plate);
+        s.setPriceFactor(BigDecimal.ONE);
+        sessions.put(id, s);
+        return s;
+    }
+
+    private static SpotSlot slot(SpotEntity spot) {
+        return new SpotSlot() {
+            public Long getId() { return spot.getId(); }
+            public Long getSectorId() { return spot.getSector().getId(); }
+            public Long getOccupiedBySessionId() { return spot.getOccupiedBySessionId(); }
+        };
+    }
+
+    private SectorOccupancy occupancy(SectorEntity sector) {
+        long total = 0, taken = 0;
+        for (SpotEntity spot : spots.values()) {
+            if (!spot.getSector().getId().equals(sector.getId())) continue;
+            total++;
+            if (spot.getOccupiedBySessionId() != null) taken++;
+        }
+        long t = total, k = taken;
+        return new SectorOccupancy() {
+            public Long getSectorId() { return sector.getId(); }
+            public long getTotal() { return t; }
+            public long getTaken() { return k; }
+        };
+    }
+
+    private interface Calls {
+        Object call(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, Calls calls) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName() + "(in-memory)";
+                };
+            }
+            if (!method.getName().equals("getReferenceById")) roundTrips++;
+            return calls.call(method.getName(), args == null ? new Object[0] : args);
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.application.helpers.ParkingPreemption;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PARKED decision logic over in-memory repositories: the free-spot placement and the
+ * relocate-then-swap preemption. Each call restores the few fields it touched, so every
+ * invocation sees the same garage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParkingPreemptionBenchmark {
+
+    private ParkingPreemption preemption;
+
+    private VehicleSessionEntity requester;
+    private VehicleSessionEntity displaced;
+    private SpotEntity reserved;
+    private SpotEntity wanted;
+    private SpotEntity free;
+
+    @Setup
+    public void setUp() {
+        var garage = new InMemoryGarage();
+        var a = garage.sector(1, "A", "40.50");
+        var b = garage.sector(2, "B", "4.10");
+        // setor A lotado, exceto a vaga 100 (a alternativa do deslocado)
+        for (long id = 1; id < 100; id++) garage.spot(id, a).setOccupiedBySessionId(10_000 + id);
+        free = garage.spot(100, a);
+        reserved = garage.spot(200, b);
+        wanted = garage.spot(50, a);
+
+        requester = garage.session(1, "REQ0001");
+        displaced = garage.session(2, "DSP0001");
+
+        preemption = new ParkingPreemption(garage.spotRepo, new SectorRegistry(garage.sectorRepo), garage.sessionRepo,
+                new SpotOccupancyEvents(List.of()));
+        reset();
+    }
+
+    private void reset() {
+        reserved.setOccupiedBySessionId(requester.getId());
+        requester.setSpot(reserved);
+        requester.setSector(reserved.getSector());
+        requester.setBasePrice(reserved.getSector().getBasePrice());
+        wanted.setOccupiedBySessionId(displaced.getId());
+        displaced.setSpot(wanted);
+        displaced.setSector(wanted.getSector());
+        free.setOccupiedBySessionId(null);
+    }
+
+    @Benchmark
+    public ParkingPreemption.Result placeOnFreeSpot() {
+        var result = preemption.placeOrPreempt(requester, free);
+        reset();
+        return result;
+    }
+
+    @Benchmark
+    public ParkingPreemption.Result preemptWithRelocation() {
+        var result = preemption.placeOrPreempt(requester, wanted);
+        reset();
+        return result;
+    }
+
+    @Benchmark
+    public ParkingPreemption.Result idempotentNoop() {
+        return preemption.placeOrPreempt(requester, reserved);
+    }
+}
@@ -0,0 +1,55 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.domain.service.DynamicFactorService;
+import com.estapar.parking_system.domain.service.PricingEngine;
+import com.estapar.parking_system.domain.service.PricingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/** EXIT charge and ENTRY factor, the BigDecimal arithmetic on every event */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PricingBenchmark {
+
+    private final PricingService pricing = new PricingService();
+    private final DynamicFactorService factors = new DynamicFactorService();
+
+    private final BigDecimal basePrice = new BigDecimal("40.50");
+    private final BigDecimal factor = new BigDecimal("1.10");
+    private final Instant entry = Instant.parse("2025-01-01T12:00:00Z");
+    private final Instant exitInGrace = Instant.parse("2025-01-01T12:20:00Z");
+    private final Instant exitAfter3h = Instant.parse("2025-01-01T14:41:00Z");
+
+    private final BigDecimal[] ratios = {
+            new BigDecimal("0.10"), new BigDecimal("0.40"), new BigDecimal("0.70"), new BigDecimal("0.95")
+    };
+    private int next;
+
+    @Benchmark
+    public BigDecimal hourlyCharge_grace() {
+        return pricing.hourlyCharge(basePrice, factor, entry, exitInGrace);
+    }
+
+    @Benchmark
+    public BigDecimal hourlyCharge_threeHours() {
+        return pricing.hourlyCharge(basePrice, factor, entry, exitAfter3h);
+    }
+
+    /** the integer core alone, without the BigDecimal conversions */
+    @Benchmark
+    public long hourlyChargeCents_threeHours() {
+        return PricingEngine.hourlyChargeCents(4_050, 11_000, 161);
+    }
+
+    /** cycles through all four tiers, as ENTRY calls it (sector and entry time) */
+    @Benchmark
+    public BigDecimal dynamicFactor() {
+        return factors.compute("A", ratios[next++ & 3], entry);
+    }
+}
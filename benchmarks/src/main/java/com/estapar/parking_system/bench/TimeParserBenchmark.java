@@ -0,0 +1,30 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.application.helpers.TimeParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/** The timestamp shapes the simulator and replays send */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TimeParserBenchmark {
+
+    @Param({
+            "2025-01-01T12:00:00Z",
+            "2025-01-01T12:00:00.123Z",
+            "2025-01-01T12:00:00",
+            "2025-01-01T12:00:00-03:00",
+            "2025-01-01T12:00"
+    })
+    public String timestamp;
+
+    @Benchmark
+    public Instant parseInstantSafe() {
+        return TimeParser.parseInstantSafe(timestamp);
+    }
+}
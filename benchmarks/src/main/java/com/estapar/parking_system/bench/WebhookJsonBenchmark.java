@@ -0,0 +1,43 @@
+package com.estapar.parking_system.bench;
+
+import com.estapar.parking_system.api.dto.WebhookDtos.WebhookEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Polymorphic deserialization of the sealed WebhookEvent hierarchy (event_type discriminator) */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WebhookJsonBenchmark {
+
+    @Param({"ENTRY", "PARKED", "EXIT"})
+    public String eventType;
+
+    private byte[] payload;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() {
+        reader = new ObjectMapper().readerFor(WebhookEvent.class);
+        String json = switch (eventType) {
+            case "ENTRY" -> """
+                    {"license_plate":"ZUL0001","entry_time":"2025-01-01T12:00:00.000Z","event_type":"ENTRY"}""";
+            case "PARKED" -> """
+                    {"license_plate":"ZUL0001","lat":-23.561684,"lng":-46.655981,"event_type":"PARKED"}""";
+            default -> """
+                    {"license_plate":"ZUL0001","exit_time":"2025-01-01T12:40:00.000Z","event_type":"EXIT"}""";
+        };
+        payload = json.getBytes();
+    }
+
+    @Benchmark
+    public WebhookEvent deserialize() throws IOException {
+        return reader.readValue(payload);
+    }
+}
@@ -0,0 +1,33 @@
+package com.estapar.parking_system.api;
+
+import com.estapar.parking_system.api.controller.RevenueController;
+import com.estapar.parking_system.domain.exceptions.InvalidRevenueRangeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/** Revenue answers 400 on bad input; ahead of the webhook advice, which always acks with 200 */
+@RestControllerAdvice(assignableTypes = RevenueController.class)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class RevenueExceptionHandler {
+    private static final Logger log = LoggerFactory.getLogger(RevenueExceptionHandler.class);
+
+    @ExceptionHandler(InvalidRevenueRangeException.class)
+    ProblemDetail onInvalidRange(InvalidRevenueRangeException ex) {
+        log.warn("Revenue range rejected: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler({ MethodArgumentNotValidException.class, HttpMessageNotReadableException.class })
+    ProblemDetail onBadRequest(Exception ex) {
+        log.warn("Revenue request invalid: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "invalid revenue request");
+    }
+}
@@ -1,9 +1,12 @@
 package com.estapar.parking_system.api;
 
 import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.infrastructure.ingest.IngestQueueFullException;
 import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -22,6 +25,14 @@ class WebhookExceptionHandler {
         return ResponseEntity.ok().build();
     }
 
+    @ExceptionHandler(IngestQueueFullException.class)
+    ResponseEntity<Void> onIngestFull(IngestQueueFullException ex) {
+        log.warn("Webhook rejected, async pipeline saturated: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     ResponseEntity<Void> onBadPayload(IllegalArgumentException ex) {
         log.warn("Webhook payload invalid: {}", ex.getMessage());
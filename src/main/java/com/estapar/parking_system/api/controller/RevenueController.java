@@ -1,14 +1,26 @@
 package com.estapar.parking_system.api.controller;
 
 import com.estapar.parking_system.api.controller.contract.RevenueApiInterface;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRangeRequest;
 import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRequest;
 import com.estapar.parking_system.api.dto.RevenueDtos.RevenueResponse;
 
 import com.estapar.parking_system.application.service.RevenueService;
+import com.estapar.parking_system.application.service.RevenueService.RevenueRange;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/revenue")
@@ -16,11 +28,17 @@ import org.springframework.web.bind.annotation.*;
 public class RevenueController implements RevenueApiInterface {
 
     private final RevenueService revenueService;
+    private final ObjectMapper mapper;
 
+    /** ETag over the amount: a matching If-None-Match gets a 304 without a body */
     @Override
     @GetMapping
     public ResponseEntity<RevenueResponse> getRevenue(@RequestBody RevenueRequest request) {
-        return ResponseEntity.ok(revenueService.revenueForDate(request.date(), request.sector()));
+        RevenueResponse response = revenueService.revenueForDate(request.date(), request.sector());
+        return ResponseEntity.ok()
+                .eTag(etagOf(request, response))
+                .cacheControl(CacheControl.noCache())
+                .body(response);
     }
 
     /* a clone using post to get info on swagger doc*/
@@ -28,4 +46,48 @@ public class RevenueController implements RevenueApiInterface {
     public ResponseEntity<RevenueResponse> postRevenue(@Valid @RequestBody RevenueRequest request) {
         return ResponseEntity.ok(revenueService.revenueForDate(request.date(), request.sector()));
     }
+
+    @Override
+    @GetMapping("/range")
+    public ResponseEntity<StreamingResponseBody> getRevenueRange(@Valid @RequestBody RevenueRangeRequest request) {
+        return streamRange(request);
+    }
+
+    /* POST mirror of the range query, for swagger */
+    @Override
+    @PostMapping("/range")
+    public ResponseEntity<StreamingResponseBody> postRevenueRange(@Valid @RequestBody RevenueRangeRequest request) {
+        return streamRange(request);
+    }
+
+    /** Validation runs before the response starts, so a bad range still gets a proper 400 */
+    private ResponseEntity<StreamingResponseBody> streamRange(RevenueRangeRequest request) {
+        RevenueRange range = revenueService.parseRange(request);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = mapper.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeStringField("from", range.from().toString());
+                json.writeStringField("to", range.to().toString());
+                json.writeStringField("granularity", range.granularity().name());
+                json.writeStringField("currency", "BRL");
+                json.writeArrayFieldStart("rows");
+                revenueService.streamRange(range, row -> {
+                    try {
+                        json.writeObject(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static String etagOf(RevenueRequest request, RevenueResponse response) {
+        String sector = request.sector() == null || request.sector().isBlank() ? "" : request.sector();
+        String content = request.date() + '|' + sector + '|' + response.amount().toPlainString();
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
 }
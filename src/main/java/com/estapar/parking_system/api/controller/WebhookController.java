@@ -1,6 +1,8 @@
 package com.estapar.parking_system.api.controller;
 
+import com.estapar.parking_system.api.controller.registry.WebhookBatchProcessor;
 import com.estapar.parking_system.api.controller.registry.WebhookDispatcher;
+import com.estapar.parking_system.api.dto.WebhookDtos.BatchResponse;
 import com.estapar.parking_system.api.dto.WebhookDtos.WebhookEvent;
 
 
@@ -14,6 +16,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 
 @RestController
 @RequestMapping("/webhook")
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class WebhookController {
     private final WebhookDispatcher dispatcher;
+    private final WebhookBatchProcessor batchProcessor;
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Void> receive(@Valid @RequestBody WebhookEvent event) {
@@ -28,5 +34,10 @@ public class WebhookController {
         dispatcher.dispatch(event);
         return ResponseEntity.ok().build();
     }
-}
 
+    /** One event per line (NDJSON); streamed, applied in micro-batch transactions */
+    @PostMapping(path = "/batch", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<BatchResponse> receiveBatch(InputStream body) throws IOException {
+        return ResponseEntity.ok(batchProcessor.process(body));
+    }
+}
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public interface RevenueApiInterface {
     @Operation(
@@ -40,4 +41,28 @@ public interface RevenueApiInterface {
             description = "Mesmo payload do GET",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = RevenueDtos.RevenueRequest.class)))
     ResponseEntity<RevenueDtos.RevenueResponse> postRevenue(RevenueDtos.RevenueRequest request);
+
+    @Operation(
+            summary = "Faturamento por período (GET com body)",
+            description = "Quebra por setor e por bucket (HOUR, DAY ou MONTH) entre from e to, inclusivos. Linhas enviadas em streaming.")
+    @RequestBody(required = true, description = "", content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = RevenueDtos.RevenueRangeRequest.class),
+                    examples = @ExampleObject(value = """
+            { "from": "2025-01-01", "to": "2025-01-31", "sectors": ["A", "B"], "granularity": "DAY" }
+            """)))
+    ResponseEntity<StreamingResponseBody> getRevenueRange(RevenueDtos.RevenueRangeRequest request);
+
+    @Operation(
+            summary = "Faturamento por período (POST – compatível com Swagger UI)",
+            description = "Espelho do GET /revenue/range.")
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+            { "from": "2025-01-01", "to": "2025-01-31", "granularity": "DAY", "currency": "BRL",
+              "rows": [ { "bucket": "2025-01-01", "sector": "A", "amount": 123.45, "sessions": 7 } ] }
+            """)))
+    @RequestBody(
+            required = true,
+            description = "Mesmo payload do GET",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = RevenueDtos.RevenueRangeRequest.class)))
+    ResponseEntity<StreamingResponseBody> postRevenueRange(RevenueDtos.RevenueRangeRequest request);
 }
@@ -0,0 +1,135 @@
+package com.estapar.parking_system.api.controller.registry;
+
+import com.estapar.parking_system.api.dto.WebhookDtos.BatchLineResult;
+import com.estapar.parking_system.api.dto.WebhookDtos.BatchLineStatus;
+import com.estapar.parking_system.api.dto.WebhookDtos.BatchResponse;
+import com.estapar.parking_system.api.dto.WebhookDtos.EntryEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.WebhookEvent;
+import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Replays an NDJSON stream of webhook events through the {@link WebhookDispatcher} handlers.
+ * The body is read line by line; consecutive PARKED and EXIT events are applied in one
+ * transaction per micro-batch, in file order, so per-plate order holds. A batch that fails is
+ * rolled back and replayed one event per transaction, so only the offending lines are reported.
+ * <p>
+ * Every ENTRY commits on its own, after the batch before it: the occupancy counters, the
+ * free-spot index and the strategies only move after commit, so an ENTRY inside a batch would
+ * price and admit against the occupancy from before the batch.
+ */
+@Component
+@Slf4j
+public class WebhookBatchProcessor {
+
+    private final WebhookDispatcher dispatcher;
+    private final TransactionTemplate tx;
+    private final Validator validator;
+    private final ObjectReader reader;
+    private final int batchSize;
+
+    WebhookBatchProcessor(WebhookDispatcher dispatcher,
+                          TransactionTemplate tx,
+                          Validator validator,
+                          ObjectMapper mapper,
+                          @Value("${app.webhook.batch.size:200}") int batchSize) {
+        this.dispatcher = dispatcher;
+        this.tx = tx;
+        this.validator = validator;
+        this.reader = mapper.readerFor(WebhookEvent.class);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    private record Pending(long line, WebhookEvent event) {}
+
+    public BatchResponse process(InputStream body) throws IOException {
+        List<BatchLineResult> results = new ArrayList<>();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        long lineNo = 0;
+
+        var in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            lineNo++;
+            if (line.isBlank()) continue;
+
+            WebhookEvent event;
+            try {
+                event = reader.readValue(line);
+            } catch (JsonProcessingException ex) {
+                results.add(new BatchLineResult(lineNo, BatchLineStatus.INVALID, ex.getOriginalMessage()));
+                continue;
+            }
+            Set<ConstraintViolation<WebhookEvent>> violations = validator.validate(event);
+            if (!violations.isEmpty()) {
+                results.add(new BatchLineResult(lineNo, BatchLineStatus.INVALID, describe(violations)));
+                continue;
+            }
+
+            if (event instanceof EntryEvent) {
+                flush(batch, results);
+                results.add(applyAlone(new Pending(lineNo, event)));
+                continue;
+            }
+            batch.add(new Pending(lineNo, event));
+            if (batch.size() == batchSize) flush(batch, results);
+        }
+        flush(batch, results);
+        results.sort(Comparator.comparingLong(BatchLineResult::line));
+
+        long applied = results.stream()
+                .filter(r -> r.status() == BatchLineStatus.OK || r.status() == BatchLineStatus.IGNORED)
+                .count();
+        log.info("Webhook batch done: lines={}, applied={}, rejected={}", lineNo, applied, results.size() - applied);
+        return new BatchResponse(lineNo, applied, results.size() - applied, results);
+    }
+
+    private void flush(List<Pending> batch, List<BatchLineResult> results) {
+        if (batch.isEmpty()) return;
+        try {
+            tx.executeWithoutResult(status -> batch.forEach(p -> dispatcher.process(p.event())));
+            batch.forEach(p -> results.add(new BatchLineResult(p.line(), BatchLineStatus.OK, null)));
+        } catch (RuntimeException batchFailure) {
+            log.debug("Webhook micro-batch of {} rolled back, replaying one by one: {}", batch.size(), batchFailure.toString());
+            batch.forEach(p -> results.add(applyAlone(p)));
+        }
+        batch.clear();
+    }
+
+    private BatchLineResult applyAlone(Pending p) {
+        try {
+            tx.executeWithoutResult(status -> dispatcher.process(p.event()));
+            return new BatchLineResult(p.line(), BatchLineStatus.OK, null);
+        } catch (GarageFullException ex) {
+            return new BatchLineResult(p.line(), BatchLineStatus.IGNORED, ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.warn("Webhook batch line {} failed: {}", p.line(), ex.toString());
+            return new BatchLineResult(p.line(), BatchLineStatus.FAILED, ex.getMessage());
+        }
+    }
+
+    private static String describe(Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
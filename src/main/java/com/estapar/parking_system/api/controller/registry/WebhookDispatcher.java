@@ -2,24 +2,45 @@ package com.estapar.parking_system.api.controller.registry;
 
 import com.estapar.parking_system.api.controller.contract.WebhookHandler;
 import com.estapar.parking_system.api.dto.WebhookDtos.WebhookEvent;
+import com.estapar.parking_system.infrastructure.ingest.PlateShardedExecutor;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 
-/**Registry pattern to deal with the type of request**/
+/**Registry pattern to deal with the type of request.
+ * With app.webhook.async.enabled the event is queued per plate and handled off the request thread.**/
 @Component
 public class WebhookDispatcher {
     private final Map<Class<?>, WebhookHandler<?>> byType;
-    WebhookDispatcher(List<WebhookHandler<?>> handlers) {
+    private final PlateShardedExecutor async;
+
+    WebhookDispatcher(List<WebhookHandler<?>> handlers, Optional<PlateShardedExecutor> async) {
         this.byType = handlers.stream().collect(
                 java.util.stream.Collectors.toMap(WebhookHandler::supports, h -> h));
+        this.async = async.orElse(null);
     }
-    @SuppressWarnings("unchecked")
+
     public <T extends WebhookEvent> void dispatch(T ev) {
+        var h = handlerFor(ev);
+        if (async == null) {
+            h.handle(ev);
+        } else {
+            async.submit(ev.licensePlate(), () -> h.handle(ev));
+        }
+    }
+
+    /** Handles the event on the calling thread, whatever the mode */
+    public <T extends WebhookEvent> void process(T ev) {
+        handlerFor(ev).handle(ev);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends WebhookEvent> WebhookHandler<T> handlerFor(T ev) {
         var h = (WebhookHandler<T>) byType.get(ev.getClass());
         if (h == null) throw new IllegalArgumentException("No handler for " + ev.getClass());
-        h.handle(ev);
+        return h;
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,11 @@
 package com.estapar.parking_system.api.dto;
 
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
 import java.math.BigDecimal;
+import java.util.List;
 
 public class RevenueDtos {
 
@@ -15,5 +19,22 @@ public class RevenueDtos {
             String currency,
             String timestamp
     ) {}
-}
 
+    public enum Granularity { HOUR, DAY, MONTH }
+
+    /** from/to are inclusive dates (yyyy-MM-dd, UTC); no sectors = every sector */
+    public record RevenueRangeRequest(
+            @NotBlank String from,
+            @NotBlank String to,
+            List<String> sectors,
+            @NotNull Granularity granularity
+    ) {}
+
+    /** bucket: yyyy-MM-ddTHH:00Z, yyyy-MM-dd or yyyy-MM; sector null = sessions without a sector */
+    public record RevenueRow(
+            String bucket,
+            String sector,
+            BigDecimal amount,
+            long sessions
+    ) {}
+}
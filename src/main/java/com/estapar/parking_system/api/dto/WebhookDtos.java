@@ -3,6 +3,7 @@ package com.estapar.parking_system.api.dto;
 import com.fasterxml.jackson.annotation.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
+import java.util.List;
 
 public final class WebhookDtos {
 
@@ -72,4 +73,21 @@ public final class WebhookDtos {
             @JsonProperty("event_type")
             EventType eventType
     ) implements WebhookEvent {}
+
+    /** OK = applied, IGNORED = accepted but no-op (e.g. garage full), INVALID = bad line, FAILED = handler error */
+    public enum BatchLineStatus { OK, IGNORED, INVALID, FAILED }
+
+    public record BatchLineResult(
+            long line,
+            BatchLineStatus status,
+            @JsonInclude(JsonInclude.Include.NON_NULL)
+            String error
+    ) {}
+
+    public record BatchResponse(
+            long lines,
+            long applied,
+            long rejected,
+            List<BatchLineResult> results
+    ) {}
 }
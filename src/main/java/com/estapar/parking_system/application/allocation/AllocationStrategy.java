@@ -0,0 +1,22 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.events.SpotOccupancyListener;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+
+import java.util.Iterator;
+
+/**
+ * Which sector an ENTRY tries first. One implementation per deployment, picked by
+ * {@code app.allocation.strategy}. Implementations follow occupy/release, so choosing a sector
+ * does not walk all of them. Their counts are per node and can lag, so they only order the
+ * sectors: {@link com.estapar.parking_system.application.helpers.EntryAllocator} tries the
+ * ones left out afterwards, and the capacity check and the claim on the spot row decide.
+ */
+public interface AllocationStrategy extends SpotOccupancyListener {
+
+    /** Sectors believed to have room, best first; lazy, taking the first one is O(log n). Not exhaustive */
+    Iterator<SectorInfo> candidates();
+
+    /** Rebuild from the sector registry and the spot table */
+    void reload();
+}
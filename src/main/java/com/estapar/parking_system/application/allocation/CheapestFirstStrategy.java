@@ -0,0 +1,20 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+/** The sector with the lowest base price; sectors without one go last */
+@Component
+@ConditionalOnProperty(prefix = "app.allocation", name = "strategy", havingValue = "cheapest")
+public class CheapestFirstStrategy extends OrderedSectorStrategy {
+
+    public CheapestFirstStrategy(SectorRegistry sectors, SpotRepository spotRepo) {
+        super(sectors, spotRepo, Comparator.comparing(load -> load.sector().basePrice(),
+                Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder())));
+    }
+}
@@ -0,0 +1,18 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The sector with the lowest taken / capacity ratio */
+@Component
+@ConditionalOnProperty(prefix = "app.allocation", name = "strategy", havingValue = "least-loaded")
+public class LeastLoadedStrategy extends OrderedSectorStrategy {
+
+    public LeastLoadedStrategy(SectorRegistry sectors, SpotRepository spotRepo) {
+        // a/b < c/d without dividing; only sectors with room (capacity > 0) are compared
+        super(sectors, spotRepo, (x, y) -> Long.compare(
+                x.taken() * y.sector().maxCapacity(), y.taken() * x.sector().maxCapacity()));
+    }
+}
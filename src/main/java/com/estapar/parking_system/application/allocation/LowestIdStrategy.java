@@ -0,0 +1,18 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/** Default: the first sector (by id) that still has room, as ENTRY always did */
+@Component
+@ConditionalOnProperty(prefix = "app.allocation", name = "strategy", havingValue = "lowest-id", matchIfMissing = true)
+public class LowestIdStrategy extends OrderedSectorStrategy {
+
+    public LowestIdStrategy(SectorRegistry sectors, SpotRepository spotRepo) {
+        super(sectors, spotRepo, Comparator.comparing(load -> load.sector().id()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SectorOccupancy;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sectors with room kept in a skip list under the strategy's order. Each sector has one
+ * immutable {@link Load} entry; occupy/release replaces it (remove + insert, O(log n)) and a
+ * sector that fills up simply leaves the set. Seeded from count(*) per sector; the counts only
+ * follow this node's events, so {@link #reload} is called again on a timer.
+ */
+@Slf4j
+public abstract class OrderedSectorStrategy implements AllocationStrategy {
+
+    /** A sector and how many of its spots are taken */
+    protected record Load(SectorInfo sector, long taken) {
+        boolean hasRoom() {
+            return taken < sector.maxCapacity();
+        }
+    }
+
+    private record Book(ConcurrentHashMap<Long, Load> bySector, ConcurrentSkipListSet<Load> withRoom) {}
+
+    private final SectorRegistry sectors;
+    private final SpotRepository spotRepo;
+    private final Comparator<Load> order;
+
+    private volatile Book book;
+
+    protected OrderedSectorStrategy(SectorRegistry sectors, SpotRepository spotRepo, Comparator<Load> order) {
+        this.sectors = sectors;
+        this.spotRepo = spotRepo;
+        // ties broken by id: the set holds one entry per sector and never sees two as equal
+        this.order = order.thenComparing(load -> load.sector().id());
+    }
+
+    @Override
+    public Iterator<SectorInfo> candidates() {
+        return sectorsOf(withRoom().iterator());
+    }
+
+    @Override
+    public void occupied(Long sectorId, Long spotId) {
+        adjust(sectorId, 1);
+    }
+
+    @Override
+    public void released(Long sectorId, Long spotId) {
+        adjust(sectorId, -1);
+    }
+
+    @Override
+    public synchronized void reload() {
+        Map<Long, Long> taken = new HashMap<>();
+        for (SectorOccupancy row : spotRepo.countBySector()) taken.put(row.getSectorId(), row.getTaken());
+
+        Book fresh = new Book(new ConcurrentHashMap<>(), new ConcurrentSkipListSet<>(order));
+        for (SectorInfo sector : sectors.all()) {
+            Load load = new Load(sector, taken.getOrDefault(sector.id(), 0L));
+            fresh.bySector.put(sector.id(), load);
+            if (load.hasRoom()) fresh.withRoom.add(load);
+        }
+        book = fresh;
+        log.info("allocation strategy {} loaded: sectors={}, with room={}",
+                getClass().getSimpleName(), fresh.bySector.size(), fresh.withRoom.size());
+    }
+
+    /** Sectors with room, in strategy order */
+    protected NavigableSet<Load> withRoom() {
+        return loaded().withRoom;
+    }
+
+    protected static Iterator<SectorInfo> sectorsOf(Iterator<Load> loads) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return loads.hasNext();
+            }
+
+            @Override
+            public SectorInfo next() {
+                return loads.next().sector();
+            }
+        };
+    }
+
+    private void adjust(Long sectorId, long delta) {
+        Book current = loaded();
+        current.bySector.computeIfPresent(sectorId, (id, old) -> {
+            Load next = new Load(old.sector(), Math.max(0, old.taken() + delta));
+            current.withRoom.remove(old);
+            if (next.hasRoom()) current.withRoom.add(next);
+            return next;
+        });
+    }
+
+    private Book loaded() {
+        Book current = book;
+        if (current != null) return current;
+        synchronized (this) {
+            if (book == null) reload();
+            return book;
+        }
+    }
+}
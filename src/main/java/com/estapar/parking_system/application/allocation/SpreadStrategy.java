@@ -0,0 +1,54 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round robin over the sectors with room: each ENTRY starts one sector after the previous one
+ * (a ceiling lookup in the skip list), wrapping around, so consecutive cars land in different sectors.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.allocation", name = "strategy", havingValue = "spread")
+public class SpreadStrategy extends OrderedSectorStrategy {
+
+    private final AtomicLong lastSectorId = new AtomicLong(Long.MIN_VALUE);
+
+    public SpreadStrategy(SectorRegistry sectors, SpotRepository spotRepo) {
+        super(sectors, spotRepo, Comparator.comparing(load -> load.sector().id()));
+    }
+
+    @Override
+    public Iterator<SectorInfo> candidates() {
+        NavigableSet<Load> withRoom = withRoom();
+        Load first = withRoom.higher(probe(lastSectorId.get()));
+        if (first == null && !withRoom.isEmpty()) first = withRoom.first();
+        if (first == null) return sectorsOf(withRoom.iterator());
+
+        lastSectorId.set(first.sector().id());
+        Iterator<Load> from = withRoom.tailSet(first, true).iterator();
+        Iterator<Load> wrapped = withRoom.headSet(first, false).iterator();
+        return sectorsOf(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return from.hasNext() || wrapped.hasNext();
+            }
+
+            @Override
+            public Load next() {
+                return from.hasNext() ? from.next() : wrapped.next();
+            }
+        });
+    }
+
+    private static Load probe(long sectorId) {
+        return new Load(new SectorInfo(sectorId, null, null, 0, null, null, null), 0);
+    }
+}
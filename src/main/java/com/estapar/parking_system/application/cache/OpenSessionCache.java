@@ -0,0 +1,81 @@
+package com.estapar.parking_system.application.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Plate to open session id, keyed by the {@link PlateCodec} long. Written when an ENTRY
+ * commits and evicted when the EXIT commits, so a rollback never leaves a phantom session
+ * behind. A hit only means "maybe open": the EXIT may have committed on another node, or a
+ * late {@link #opened} may land after the EXIT's {@link #closed}; callers confirm it against
+ * the database and {@link #evict} a stale id. ENTRY does not read it, a confirmed hit would
+ * cost the same plate-index query as a miss. Bounded: an evicted plate, or one that cannot be
+ * encoded, is just a miss and the caller asks the database.
+ * Metrics: cache.gets{cache=open-sessions,result=hit|miss}.
+ */
+@Component
+public class OpenSessionCache {
+
+    private final Cache<Long, Long> cache;
+
+    public OpenSessionCache(@Value("${app.session.cache.max-size:100000}") long maxSize,
+                            MeterRegistry meters) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meters, cache, "open-sessions");
+    }
+
+    /** Open session id of the plate, or 0 when it is not cached (ids start at 1) */
+    public long openSessionId(String plate) {
+        long code = PlateCodec.encode(plate);
+        if (code == PlateCodec.NOT_ENCODABLE) return 0;
+        Long id = cache.getIfPresent(code);
+        return id == null ? 0 : id;
+    }
+
+    public void opened(String plate, Long sessionId) {
+        long code = PlateCodec.encode(plate);
+        if (code == PlateCodec.NOT_ENCODABLE || sessionId == null) return;
+        afterCommit(() -> cache.put(code, sessionId));
+    }
+
+    /** Only drops the mapping if it still points at this session */
+    public void closed(String plate, Long sessionId) {
+        long code = PlateCodec.encode(plate);
+        if (code == PlateCodec.NOT_ENCODABLE || sessionId == null) return;
+        afterCommit(() -> cache.asMap().remove(code, sessionId));
+    }
+
+    /** Drops a mapping the database just proved closed, right away (not tied to the transaction) */
+    public void evict(String plate, Long sessionId) {
+        long code = PlateCodec.encode(plate);
+        if (code == PlateCodec.NOT_ENCODABLE || sessionId == null) return;
+        cache.asMap().remove(code, sessionId);
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.estapar.parking_system.application.cache;
+
+/**
+ * License plates packed into one long, base 37 (0 never appears in a digit, so "0A" and "A"
+ * stay apart). Old-format (ABC1234) and Mercosul (ABC1D23) plates fit with room to spare: any
+ * plate of 1 to 12 letters/digits is encodable. Letters are folded to upper case, as the
+ * license_plate column collation (utf8mb4_0900_ai_ci) compares them.
+ */
+public final class PlateCodec {
+    private PlateCodec() {}
+
+    /** Anything else (separators, accents, more than 12 characters) is not cached */
+    public static final long NOT_ENCODABLE = -1L;
+
+    static final int MAX_LENGTH = 12;
+    private static final int RADIX = 37;
+
+    public static long encode(String plate) {
+        if (plate == null || plate.isEmpty() || plate.length() > MAX_LENGTH) return NOT_ENCODABLE;
+        long code = 0;
+        for (int i = 0; i < plate.length(); i++) {
+            int digit = digit(plate.charAt(i));
+            if (digit == 0) return NOT_ENCODABLE;
+            code = code * RADIX + digit;
+        }
+        return code;
+    }
+
+    /** Upper-case plate back from {@link #encode} */
+    public static String decode(long code) {
+        if (code <= 0) throw new IllegalArgumentException("not a plate code: " + code);
+        char[] chars = new char[MAX_LENGTH];
+        int pos = MAX_LENGTH;
+        while (code > 0) {
+            int digit = (int) (code % RADIX);
+            chars[--pos] = digit <= 10 ? (char) ('0' + digit - 1) : (char) ('A' + digit - 11);
+            code /= RADIX;
+        }
+        return new String(chars, pos, MAX_LENGTH - pos);
+    }
+
+    /** 1..10 for '0'..'9', 11..36 for 'A'..'Z' in either case, 0 for anything else */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0' + 1;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 11;
+        if (c >= 'a' && c <= 'z') return c - 'a' + 11;
+        return 0;
+    }
+}
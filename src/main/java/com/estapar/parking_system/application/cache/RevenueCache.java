@@ -0,0 +1,59 @@
+package com.estapar.parking_system.application.cache;
+
+import com.estapar.parking_system.domain.events.SessionClosedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Revenue amounts per (day, sector), a null sector being the whole garage. The sector is the
+ * code as stored, the one {@link SessionClosedEvent} carries; a closed day only
+ * changes when a late EXIT lands in it, so entries live until that exit commits; the TTL is
+ * just a safety net. Metrics: cache.gets{cache=revenue,result=hit|miss}, cache.evictions.
+ */
+@Component
+public class RevenueCache {
+
+    private record Key(LocalDate day, String sectorCode) {}
+
+    private final Cache<Key, BigDecimal> cache;
+
+    public RevenueCache(@Value("${app.revenue.cache.max-size:10000}") long maxSize,
+                        @Value("${app.revenue.cache.ttl:PT6H}") Duration ttl,
+                        MeterRegistry meters) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meters, cache, "revenue");
+    }
+
+    /** Cached amount, loaded once per key even under concurrent misses */
+    public BigDecimal amount(LocalDate day, String sectorCode, Supplier<BigDecimal> loader) {
+        return cache.get(new Key(day, sectorCode), k -> loader.get());
+    }
+
+    /** After commit only: evicting earlier would let a concurrent read cache the old total again */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionClosed(SessionClosedEvent event) {
+        cache.invalidate(new Key(event.exitDay(), null));
+        if (event.sectorCode() != null) {
+            cache.invalidate(new Key(event.exitDay(), event.sectorCode()));
+        }
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+}
@@ -1,37 +1,170 @@
 package com.estapar.parking_system.application.helpers;
 
-import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.application.allocation.AllocationStrategy;
+import com.estapar.parking_system.application.index.FreeSpotIndex;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
 import com.estapar.parking_system.domain.entity.SpotEntity;
-import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.service.CountingOccupancyService;
 import com.estapar.parking_system.domain.service.OccupancyService;
-import lombok.RequiredArgsConstructor;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Spot reservation for ENTRY, done before the session row exists: {@link #claim} marks a free
+ * spot as {@link #CLAIMED} with one conditional update, the caller inserts the session and
+ * {@link #assign} hands the spot over to it. Both run in the ENTRY transaction, so the marker
+ * is never visible to anyone else and a rollback frees the spot again.
+ * <p>
+ * Candidates come from this node's {@link FreeSpotIndex} ({@link Claim#INDEX}, the default) or,
+ * when several instances share the database, from {@code FOR UPDATE SKIP LOCKED}
+ * ({@link Claim#SKIP_LOCKED}): each transaction gets a row nobody else holds, so nodes do not
+ * all race for the lowest free id. The order in which sectors are tried is the deployment's
+ * {@link AllocationStrategy}; sectors it leaves out are still tried after its candidates.
+ */
 @Component
-@RequiredArgsConstructor
+@Slf4j
 public class EntryAllocator {
 
-    private final SectorRepository sectorRepo;
+    public enum Claim {
+        INDEX, SKIP_LOCKED;
+
+        /** "index" | "skip-locked" */
+        public static Claim of(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    /** occupied_by_session_id of a spot claimed for a session that is not inserted yet */
+    public static final long CLAIMED = -1L;
+
+    private final SectorRegistry sectors;
+    private final AllocationStrategy strategy;
     private final SpotRepository spotRepo;
     private final OccupancyService occupancy;
+    private final FreeSpotIndex freeSpots;
+    private final SpotOccupancyEvents occupancyEvents;
+    private final Claim claim;
 
-    public record Allocation(SectorEntity sector, SpotEntity spot) {}
+    public EntryAllocator(SectorRegistry sectors, AllocationStrategy strategy, SpotRepository spotRepo,
+                          OccupancyService occupancy, FreeSpotIndex freeSpots, SpotOccupancyEvents occupancyEvents,
+                          @Value("${app.allocation.claim:index}") String claim) {
+        this.sectors = sectors;
+        this.strategy = strategy;
+        this.spotRepo = spotRepo;
+        this.occupancy = occupancy;
+        this.freeSpots = freeSpots;
+        this.occupancyEvents = occupancyEvents;
+        this.claim = Claim.of(claim);
+        if (this.claim == Claim.SKIP_LOCKED && occupancy instanceof CountingOccupancyService) {
+            // the counters are per node: they would turn cars away while other nodes free spots
+            throw new IllegalStateException(
+                    "app.allocation.claim=skip-locked needs app.occupancy.mode=queries, the counters are per node");
+        }
+    }
+
+    public record Allocation(SectorInfo sector, SpotEntity spot) {}
+
+    /**
+     * Whether any sector has room, from the occupancy counters: a full garage costs no write.
+     * SKIP_LOCKED always says yes: {@link #claim} checks the committed count per sector anyway.
+     */
+    public boolean hasRoom() {
+        if (claim == Claim.SKIP_LOCKED) return true;
+        for (SectorInfo sector : sectors.all()) {
+            if (!occupancy.isSectorFull(sector.id())) return true;
+        }
+        return false;
+    }
+
+    /** Claim (atomically) a spot in any available sector, or null when there is none */
+    public Allocation claim() {
+        Set<Long> tried = new HashSet<>();
+        for (Iterator<SectorInfo> it = strategy.candidates(); it.hasNext(); ) {
+            SectorInfo sector = it.next();
+            tried.add(sector.id());
+            Allocation allocation = claimIn(sector);
+            if (allocation != null) return allocation;
+        }
+        // the strategy's counts are this node's view and can be stale: it orders sectors, it rules none out
+        for (SectorInfo sector : sectors.all()) {
+            if (tried.contains(sector.id())) continue;
+            Allocation allocation = claimIn(sector);
+            if (allocation != null) return allocation;
+        }
+        return null;
+    }
 
-    /** Try to reserve (atomically) a spot in any available sector */
-    public Allocation allocateForSession(Long sessionId) {
-        for (SectorEntity sector : sectorRepo.findAll()) {
-            if (occupancy.isSectorFull(sector.getId())) continue;
-            while (true) {
-                var free = spotRepo.findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(sector.getId());
-                if (free.isEmpty()) break;
+    private Allocation claimIn(SectorInfo sector) {
+        if (isFull(sector)) return null;
+        Allocation allocation = claimFromCandidates(sector);
+        if (allocation != null || claim == Claim.SKIP_LOCKED || !resyncIfDrifted(sector.id())) return allocation;
+        // once per claim: the read is this transaction's snapshot and may keep showing a spot
+        // that another ENTRY took after it started, while tryOccupy sees the committed row
+        return claimFromCandidates(sector);
+    }
 
-                var candidate = free.get();
-                if (spotRepo.tryOccupy(candidate.getId(), sessionId) == 1) {
-                    return new Allocation(sector, candidate);
-                }
+    private Allocation claimFromCandidates(SectorInfo sector) {
+        Long candidate;
+        while ((candidate = nextCandidate(sector.id())) != null) {
+            if (spotRepo.tryOccupy(candidate, CLAIMED) == 1) {
+                if (claim == Claim.INDEX) returnToIndexOnRollback(sector.id(), candidate);
+                return new Allocation(sector, spotRepo.getReferenceById(candidate));
             }
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * INDEX: this node's occupancy counters. SKIP_LOCKED: the committed count in the same
+     * transaction, since per-node counters are wrong with several instances and a free row
+     * alone does not mean the sector is under max_capacity (it may have more spots than that)
+     */
+    private boolean isFull(SectorInfo sector) {
+        if (claim == Claim.INDEX) return occupancy.isSectorFull(sector.id());
+        return spotRepo.countOccupiedInSector(sector.id()) >= sector.maxCapacity();
+    }
+
+    /** The claimed spot now belongs to the inserted session */
+    public void assign(Allocation allocation, Long sessionId) {
+        Long spotId = allocation.spot().getId();
+        if (spotRepo.trySwapOccupant(spotId, CLAIMED, sessionId) != 1) {
+            throw new IllegalStateException("spot " + spotId + " is no longer claimed");
+        }
+        occupancyEvents.occupied(allocation.sector().id(), spotId, sessionId);
+    }
+
+    /** SKIP_LOCKED: a row locked for this transaction; INDEX: the in-memory index */
+    private Long nextCandidate(Long sectorId) {
+        if (claim == Claim.SKIP_LOCKED) return spotRepo.lockFirstFreeInSector(sectorId).orElse(null);
+        return freeSpots.poll(sectorId);
+    }
+
+    /** The index ran dry: reload it from the database if that still has a free spot in the sector */
+    private boolean resyncIfDrifted(Long sectorId) {
+        if (spotRepo.findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(sectorId).isEmpty()) return false;
+        log.warn("free-spot index drifted for sector={}, resyncing", sectorId);
+        freeSpots.resync(sectorId);
+        return true;
+    }
+
+    /** the candidate already left the free list; a rolled back ENTRY puts it back */
+    private void returnToIndexOnRollback(Long sectorId, Long spotId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) freeSpots.released(sectorId, spotId);
+            }
+        });
+    }
+}
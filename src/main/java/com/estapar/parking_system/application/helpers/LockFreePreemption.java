@@ -0,0 +1,248 @@
+package com.estapar.parking_system.application.helpers;
+
+import com.estapar.parking_system.application.helpers.ParkingPreemption.Result;
+import com.estapar.parking_system.application.index.OccupancyBoard;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.estapar.parking_system.application.index.OccupancyBoard.FREE;
+import static com.estapar.parking_system.application.index.OccupancyBoard.TAKEN;
+import static com.estapar.parking_system.application.index.OccupancyBoard.UNKNOWN;
+
+/**
+ * PARKED decided on the {@link OccupancyBoard}: place, direct swap or relocate-and-swap are
+ * claimed with compare-and-set, with no lock and no query, and the resulting spot moves go to
+ * the database as one JDBC batch of conditional updates. If any of them finds the row changed
+ * (another node, or a board that fell behind) the batch is put back and the PARKED goes
+ * through {@link ParkingPreemption}, which asks the database; the board then re-reads the rows
+ * involved. Enabled with {@code app.parking.preemption=in-memory}.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(prefix = "app.parking", name = "preemption", havingValue = "in-memory")
+@RequiredArgsConstructor
+@Slf4j
+public class LockFreePreemption implements PreemptionEngine {
+
+    static final String MOVE_SQL =
+            "update spot set occupied_by_session_id = ? where id = ? and occupied_by_session_id <=> ?";
+
+    // MySQL assigns left to right: base_price is decided before sector_id changes
+    static final String DISPLACED_SQL = """
+            update vehicle_session
+            set spot_id = ?,
+                base_price = case when sector_id <=> ? and base_price is not null then base_price else ? end,
+                sector_id = ?
+            where id = ?
+            """;
+
+    /** One spot changing hands, expected -> value ({@link OccupancyBoard#FREE} is null in the table) */
+    record Move(long spotId, long expected, long value) {
+        Move reversed() {
+            return new Move(spotId, value, expected);
+        }
+    }
+
+    /** Moves already applied to the board, and where the displaced session ends up (if any) */
+    record Plan(Result result, List<Move> moves, Long displacedId, Long displacedTo) {}
+
+    private final OccupancyBoard board;
+    private final ParkingPreemption fallback;
+    private final JdbcTemplate jdbc;
+    private final SectorRegistry sectors;
+    private final SpotRepository spotRepo;
+    private final SpotOccupancyEvents occupancyEvents;
+
+    @Override
+    @Transactional
+    public Result placeOrPreempt(VehicleSessionEntity session, SpotEntity destination) {
+        if (Objects.equals(session.getId(), destination.getOccupiedBySessionId())) return Result.NOOP;
+
+        Plan plan = decide(session, destination);
+        if (plan == null) return fallBack(session, destination);
+        if (plan.moves().isEmpty()) return plan.result();
+
+        boolean persisted;
+        try {
+            persisted = persist(plan.moves());
+        } catch (RuntimeException ex) {
+            // deadlock, lock wait timeout...: the moves never reached the database
+            undo(plan.moves());
+            throw ex;
+        }
+        if (!persisted) {
+            undo(plan.moves());
+            return fallBack(session, destination);
+        }
+        undoOnRollback(plan.moves());
+        publish(plan.moves());
+        if (plan.displacedId() != null) moveDisplaced(plan.displacedId(), plan.displacedTo());
+        ParkingPreemption.attachSessionToSpot(session, destination);
+        return plan.result();
+    }
+
+    /** The same decisions as {@link ParkingPreemption}, on the board; null = let the database decide */
+    Plan decide(VehicleSessionEntity session, SpotEntity destination) {
+        long sessionId = session.getId();
+        Long destId = destination.getId();
+        long holder = board.occupant(destId);
+        if (holder == sessionId) return new Plan(Result.NOOP, List.of(), null, null);
+        if (holder == TAKEN || holder == UNKNOWN) return null;
+
+        SpotEntity prev = session.getSpot();
+        Long prevId = prev == null ? null : prev.getId();
+        // the session was read on prevId but the board has it elsewhere: another PARKED moved the
+        // car, and only the database knows which spot it holds now
+        if (prevId != null && board.occupant(prevId) != sessionId) return null;
+        boolean ownsPrev = prevId != null;
+        List<Move> moves = new ArrayList<>(3);
+
+        if (holder == FREE) {
+            if (!take(moves, destId, FREE, sessionId)) return null;
+            if (ownsPrev && !take(moves, prevId, sessionId, FREE)) return abandon(moves);
+            return new Plan(Result.PLACED_FREE, moves, null, null);
+        }
+
+        long displaced = holder;
+        Long alternative = alternativeFor(destination.getSector().getId(), prevId);
+        if (alternative == null) return new Plan(Result.DENIED, List.of(), null, null);
+
+        if (alternative.equals(prevId)) {
+            // direct swap: the displaced car takes the requester's spot
+            if (!take(moves, prevId, sessionId, displaced)) return abandon(moves);
+            if (!take(moves, destId, displaced, sessionId)) return abandon(moves);
+            return new Plan(Result.PREEMPTED, moves, displaced, prevId);
+        }
+        if (!take(moves, alternative, FREE, displaced)) return abandon(moves);
+        if (!take(moves, destId, displaced, sessionId)) return abandon(moves);
+        if (ownsPrev && !take(moves, prevId, sessionId, FREE)) return abandon(moves);
+        return new Plan(Result.PREEMPTED, moves, displaced, alternative);
+    }
+
+    /** free spot in the destination's sector, else the requester's own spot, else any other sector */
+    private Long alternativeFor(Long destSectorId, Long prevId) {
+        Long sameSector = board.firstFree(destSectorId);
+        if (sameSector != null) return sameSector;
+        if (prevId != null) return prevId;
+
+        for (SectorInfo sector : sectors.all()) {
+            if (Objects.equals(sector.id(), destSectorId)) continue;
+            Long other = board.firstFree(sector.id());
+            if (other != null) return other;
+        }
+        return null;
+    }
+
+    private boolean take(List<Move> moves, Long spotId, long expected, long value) {
+        if (!board.compareAndSet(spotId, expected, value)) return false;
+        moves.add(new Move(spotId, expected, value));
+        return true;
+    }
+
+    private Plan abandon(List<Move> moves) {
+        undo(moves);
+        return null;
+    }
+
+    private void undo(List<Move> moves) {
+        for (int i = moves.size() - 1; i >= 0; i--) {
+            Move back = moves.get(i).reversed();
+            board.compareAndSet(back.spotId(), back.expected(), back.value());
+        }
+    }
+
+    /** One batch of conditional updates; on a mismatch the rows that did change are put back */
+    private boolean persist(List<Move> moves) {
+        int[] updated = jdbc.batchUpdate(MOVE_SQL, args(moves));
+        List<Move> applied = new ArrayList<>(moves.size());
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) applied.add(moves.get(i));
+        }
+        if (applied.size() == moves.size()) return true;
+
+        log.debug("PARKED moves conflicted with the database, falling back: {}", moves);
+        List<Move> back = new ArrayList<>(applied.size());
+        for (int i = applied.size() - 1; i >= 0; i--) back.add(applied.get(i).reversed());
+        if (!back.isEmpty()) jdbc.batchUpdate(MOVE_SQL, args(back));
+        return false;
+    }
+
+    private static List<Object[]> args(List<Move> moves) {
+        List<Object[]> args = new ArrayList<>(moves.size());
+        for (Move m : moves) args.add(new Object[]{column(m.value()), m.spotId(), column(m.expected())});
+        return args;
+    }
+
+    private static Long column(long occupant) {
+        return occupant == FREE ? null : occupant;
+    }
+
+    private void publish(List<Move> moves) {
+        for (Move m : moves) {
+            Long sectorId = board.sectorOf(m.spotId());
+            if (m.expected() == FREE) occupancyEvents.occupied(sectorId, m.spotId(), m.value());
+            if (m.value() == FREE) occupancyEvents.released(sectorId, m.spotId(), m.expected());
+        }
+    }
+
+    private void moveDisplaced(Long displacedId, Long spotId) {
+        Long sectorId = board.sectorOf(spotId);
+        var basePrice = sectors.byId(sectorId).map(SectorInfo::basePrice).orElse(null);
+        jdbc.update(DISPLACED_SQL, spotId, sectorId, basePrice, sectorId, displacedId);
+    }
+
+    private Result fallBack(VehicleSessionEntity session, SpotEntity destination) {
+        Result result = fallback.placeOrPreempt(session, destination);
+
+        List<Long> spotIds = new ArrayList<>(2);
+        spotIds.add(destination.getId());
+        if (session.getSpot() != null) spotIds.add(session.getSpot().getId());
+        List<Long> sessionIds = new ArrayList<>(2);
+        sessionIds.add(session.getId());
+        if (destination.getOccupiedBySessionId() != null) sessionIds.add(destination.getOccupiedBySessionId());
+
+        var rows = spotRepo.findSlots(spotIds, sessionIds);
+        afterCommit(() -> board.observe(rows));
+        return result;
+    }
+
+    private void undoOnRollback(List<Move> moves) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) undo(moves);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
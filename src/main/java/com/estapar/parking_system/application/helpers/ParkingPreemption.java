@@ -1,11 +1,14 @@
 package com.estapar.parking_system.application.helpers;
 
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
 import com.estapar.parking_system.domain.entity.SectorEntity;
 import com.estapar.parking_system.domain.entity.SpotEntity;
 import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
-import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
 import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,14 +18,16 @@ import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
-public class ParkingPreemption {
+public class ParkingPreemption implements PreemptionEngine {
 
     private final SpotRepository spotRepo;
-    private final SectorRepository sectorRepo;
+    private final SectorRegistry sectors;
     private final VehicleSessionRepository sessionRepo;
+    private final SpotOccupancyEvents occupancyEvents;
 
     public enum Result { NOOP, PLACED_FREE, PREEMPTED, DENIED }
 
+    @Override
     @Transactional
     public Result placeOrPreempt(VehicleSessionEntity session, SpotEntity destination) {
         // idempotent
@@ -54,8 +59,9 @@ public class ParkingPreemption {
     private Result tryPlaceOnFreeSpot(VehicleSessionEntity session, SpotEntity destination) {
         int updated = spotRepo.tryOccupy(destination.getId(), session.getId());
         if (updated == 0) return Result.NOOP;
+        occupancyEvents.occupied(destination.getSector().getId(), destination.getId(), session.getId());
 
-        releasePreviousIfOwned(session);
+        releaseHeldExcept(session.getId(), destination.getId());
         attachSessionToSpot(session, destination);
         return Result.PLACED_FREE;
     }
@@ -89,18 +95,16 @@ public class ParkingPreemption {
 
         int moved = spotRepo.tryOccupy(alternativeSpot.getId(), displacedId);
         if (moved == 0) return Result.DENIED;
+        occupancyEvents.occupied(alternativeSpot.getSector().getId(), alternativeSpot.getId(), displacedId);
 
         int swapped = spotRepo.trySwapOccupant(destination.getId(), displacedId, session.getId());
         if (swapped == 0) {
-            alternativeSpot.setOccupiedBySessionId(null);
-            spotRepo.save(alternativeSpot);
+            spotRepo.releaseIfHeldBy(alternativeSpot.getId(), displacedId);
+            occupancyEvents.released(alternativeSpot.getSector().getId(), alternativeSpot.getId(), displacedId);
             return Result.DENIED;
         }
 
-        if (previousSpot != null && Objects.equals(session.getId(), previousSpot.getOccupiedBySessionId())) {
-            previousSpot.setOccupiedBySessionId(null);
-            spotRepo.save(previousSpot);
-        }
+        releaseHeldExcept(session.getId(), destination.getId());
 
         attachSessionToSpot(session, destination);
         updateDisplacedSessionTo(alternativeSpot, displacedId);
@@ -113,20 +117,25 @@ public class ParkingPreemption {
         if (sameSector.isPresent()) return sameSector;
         if (previousOfRequester != null) return Optional.of(previousOfRequester);
 
-        for (SectorEntity sector : sectorRepo.findAll()) {
-            if (Objects.equals(sector.getId(), destSectorId)) continue;
+        for (SectorInfo sector : sectors.all()) {
+            if (Objects.equals(sector.id(), destSectorId)) continue;
             Optional<SpotEntity> other = spotRepo
-                    .findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(sector.getId());
+                    .findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(sector.id());
             if (other.isPresent()) return other;
         }
         return Optional.empty();
     }
 
-    private void releasePreviousIfOwned(VehicleSessionEntity session) {
-        SpotEntity prev = session.getSpot();
-        if (prev != null && Objects.equals(session.getId(), prev.getOccupiedBySessionId())) {
-            prev.setOccupiedBySessionId(null);
-            spotRepo.save(prev);
+    /**
+     * Frees whatever else the session holds, as committed: session.getSpot() is this transaction's
+     * snapshot and another PARKED may have moved the car since
+     */
+    private void releaseHeldExcept(Long sessionId, Long keptSpotId) {
+        for (SpotSlot held : spotRepo.lockHeldBy(sessionId)) {
+            if (held.getId().equals(keptSpotId)) continue;
+            if (spotRepo.releaseIfHeldBy(held.getId(), sessionId) == 1) {
+                occupancyEvents.released(held.getSectorId(), held.getId(), sessionId);
+            }
         }
     }
 
@@ -146,16 +155,7 @@ public class ParkingPreemption {
 
     /** update displaced spot  **/
     private void updateDisplacedSessionTo(SpotEntity newSpot, Long displacedSessionId) {
-        sessionRepo.findById(displacedSessionId).ifPresent(displaced -> {
-            displaced.setSpot(newSpot);
-            SectorEntity sector = newSpot.getSector();
-            if (displaced.getSector() == null || !Objects.equals(displaced.getSector().getId(), sector.getId())) {
-                displaced.setSector(sector);
-                displaced.setBasePrice(sector.getBasePrice());
-            } else if (displaced.getBasePrice() == null) {
-                displaced.setBasePrice(sector.getBasePrice());
-            }
-            sessionRepo.save(displaced);
-        });
+        SectorEntity sector = newSpot.getSector();
+        sessionRepo.moveDisplaced(displacedSessionId, newSpot.getId(), sector.getId(), sector.getBasePrice());
     }
 }
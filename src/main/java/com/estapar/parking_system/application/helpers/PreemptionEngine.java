@@ -0,0 +1,15 @@
+package com.estapar.parking_system.application.helpers;
+
+import com.estapar.parking_system.application.helpers.ParkingPreemption.Result;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+
+/**
+ * PARKED on a spot: take it when free, otherwise swap or relocate whoever holds it. On
+ * {@link Result#PLACED_FREE} / {@link Result#PREEMPTED} the session is attached to the
+ * destination and the caller persists it.
+ */
+public interface PreemptionEngine {
+
+    Result placeOrPreempt(VehicleSessionEntity session, SpotEntity destination);
+}
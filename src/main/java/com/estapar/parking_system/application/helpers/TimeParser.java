@@ -2,14 +2,28 @@ package com.estapar.parking_system.application.helpers;
 
 import java.time.*;
 import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
 
 public final class TimeParser {
     private TimeParser() {}
 
+    private static final Pattern TRAILING_OFFSET = Pattern.compile(".*[+-]\\d{2}:?\\d{2}$");
+
+    /**
+     * ISO-8601 instant; no zone means UTC. The shapes we actually receive,
+     * {@code yyyy-MM-ddTHH:mm[:ss[.f{1,9}]][Z|±HH:MM]}, are scanned by hand (no exceptions, no
+     * regex, nothing allocated but the Instant); anything else goes through the legacy chain
+     * of parsers, so results and errors are the same as before.
+     */
     public static Instant parseInstantSafe(String iso) {
         if (iso == null || iso.isBlank()) throw new IllegalArgumentException("Missing timestamp");
+        Instant fast = scan(iso);
+        return fast != null ? fast : parseLegacy(iso);
+    }
+
+    static Instant parseLegacy(String iso) {
         try { return Instant.parse(iso); } catch (DateTimeParseException ignore) { }
-        boolean hasOffset = iso.matches(".*[+-]\\d{2}:?\\d{2}$");
+        boolean hasOffset = TRAILING_OFFSET.matcher(iso).matches();
         if (!iso.endsWith("Z") && !hasOffset) {
             try { return Instant.parse(iso + "Z"); } catch (DateTimeParseException ignore) { }
         }
@@ -20,4 +34,104 @@ public final class TimeParser {
             throw new IllegalArgumentException("Invalid timestamp: " + iso, e);
         }
     }
+
+    /** null = not one of the common shapes (or not a valid date), let the legacy path decide */
+    static Instant scan(String s) {
+        int len = s.length();
+        if (len < 16) return null;
+        if (s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':') return null;
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        if ((year | month | day | hour | minute) < 0) return null;
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return null;
+        if (hour > 23 || minute > 59) return null;
+
+        int pos = 16;
+        int second = 0;
+        int nanos = 0;
+        boolean hasSeconds = pos < len && s.charAt(pos) == ':';
+        if (hasSeconds) {
+            second = digits(s, pos + 1, 2);
+            if (second < 0 || second > 59) return null;
+            pos += 3;
+            if (pos < len && s.charAt(pos) == '.') {
+                int start = ++pos;
+                while (pos < len && pos - start < 9 && isDigit(s.charAt(pos))) {
+                    nanos = nanos * 10 + (s.charAt(pos) - '0');
+                    pos++;
+                }
+                int width = pos - start;
+                if (width == 0) return null;
+                for (int i = width; i < 9; i++) nanos *= 10;
+            }
+        }
+
+        int offsetSeconds = 0;
+        if (pos < len) {
+            // a zone without seconds is only accepted by the legacy path in some shapes
+            if (!hasSeconds) return null;
+            char c = s.charAt(pos);
+            if (c == 'Z' && pos + 1 == len) {
+                // UTC
+            } else if ((c == '+' || c == '-') && pos + 6 == len && s.charAt(pos + 3) == ':') {
+                int oh = digits(s, pos + 1, 2);
+                int om = digits(s, pos + 4, 2);
+                if (oh < 0 || om < 0 || oh > 17 || om > 59) return null;
+                offsetSeconds = (oh * 3600 + om * 60) * (c == '-' ? -1 : 1);
+            } else {
+                return null;
+            }
+        }
+
+        long epochSecond = epochDay(year, month, day) * 86_400L
+                + hour * 3600L + minute * 60L + second
+                - offsetSeconds;
+        return Instant.ofEpochSecond(epochSecond, nanos);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** -1 when a character is not a digit or the string is too short */
+    private static int digits(String s, int from, int count) {
+        if (from + count > s.length()) return -1;
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /** days since 1970-01-01, same arithmetic as LocalDate.toEpochDay without the object */
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!Year.isLeap(year)) total--;
+        }
+        return total - 719_528L;
+    }
 }
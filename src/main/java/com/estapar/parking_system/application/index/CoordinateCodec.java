@@ -0,0 +1,32 @@
+package com.estapar.parking_system.application.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point coordinates in micro-degrees, the precision of the spot lat/lng columns.
+ * {@link #key} packs a pair into one long; {@code spot.coord_key} (V2 migration) computes
+ * the very same value in MySQL, so keep both formulas in sync.
+ */
+public final class CoordinateCodec {
+    private CoordinateCodec() {}
+
+    public static final int SCALE = 6;
+
+    private static final long LAT_OFFSET = 90_000_000L;
+    private static final long LNG_OFFSET = 180_000_000L;
+    private static final long LNG_SPAN = 1_000_000_000L;
+
+    public static long micros(BigDecimal degrees) {
+        return degrees.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /** Non-negative key: {@code (lat + 90°) * 10^9 + (lng + 180°)}, both in micro-degrees */
+    public static long key(long latMicros, long lngMicros) {
+        return (latMicros + LAT_OFFSET) * LNG_SPAN + (lngMicros + LNG_OFFSET);
+    }
+
+    public static long key(BigDecimal lat, BigDecimal lng) {
+        return key(micros(lat), micros(lng));
+    }
+}
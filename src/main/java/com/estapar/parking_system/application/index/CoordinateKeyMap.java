@@ -0,0 +1,52 @@
+package com.estapar.parking_system.application.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable open-addressing map from a packed coordinate key to the spot ids sitting on it
+ * (ascending). Keys are primitive longs: no boxing on the PARKED path.
+ */
+final class CoordinateKeyMap {
+
+    private static final long EMPTY = -1L;
+    private static final long[] NONE = new long[0];
+
+    private final long[] keys;
+    private final long[][] values;
+    private final int mask;
+
+    CoordinateKeyMap(Map<Long, List<Long>> idsByKey) {
+        int capacity = Integer.highestOneBit(Math.max(2, idsByKey.size() * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity][];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        idsByKey.forEach((key, ids) -> {
+            int slot = slotOf(key);
+            keys[slot] = key;
+            values[slot] = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        });
+    }
+
+    /** Spot ids on this exact key, ascending; empty array when none */
+    long[] get(long key) {
+        if (key == EMPTY) return NONE;
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : NONE;
+    }
+
+    private int slotOf(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
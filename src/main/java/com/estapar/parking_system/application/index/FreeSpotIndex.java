@@ -0,0 +1,112 @@
+package com.estapar.parking_system.application.index;
+
+import com.estapar.parking_system.domain.events.GarageSyncedEvent;
+import com.estapar.parking_system.domain.events.SpotOccupancyListener;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory free list per sector. It only hands out candidates: the conditional
+ * {@code tryOccupy} on the database is still the one that decides who wins a spot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FreeSpotIndex implements SpotOccupancyListener {
+
+    private final SpotRepository spotRepo;
+
+    private volatile Map<Long, SectorFreeList> bySector;
+
+    /** Next free candidate of the sector in O(1), or null when the index has none */
+    public Long poll(Long sectorId) {
+        SectorFreeList list = loaded().get(sectorId);
+        return list == null ? null : list.poll();
+    }
+
+    /** Spot was taken outside of {@link #poll} (e.g. PARKED on a free spot) */
+    @Override
+    public void occupied(Long sectorId, Long spotId) {
+        SectorFreeList list = loaded().get(sectorId);
+        if (list != null) list.remove(spotId);
+    }
+
+    @Override
+    public void released(Long sectorId, Long spotId) {
+        SectorFreeList list = loaded().get(sectorId);
+        if (list != null) list.offer(spotId);
+    }
+
+    /** Fallback when the index and the database drifted apart for a sector */
+    public void resync(Long sectorId) {
+        Map<Long, SectorFreeList> current = loaded();
+        SectorFreeList fresh = new SectorFreeList();
+        spotRepo.findFreeIdsInSector(sectorId).forEach(fresh::offer);
+        current.put(sectorId, fresh);
+        log.info("free-spot index resynced sector={} free={}", sectorId, fresh.size());
+    }
+
+    public synchronized void reload() {
+        List<SpotSlot> slots = spotRepo.findAllSlots();
+        Map<Long, SectorFreeList> fresh = new ConcurrentHashMap<>();
+        for (SpotSlot slot : slots) {
+            SectorFreeList list = fresh.computeIfAbsent(slot.getSectorId(), id -> new SectorFreeList());
+            if (slot.getOccupiedBySessionId() == null) list.offer(slot.getId());
+        }
+        bySector = fresh;
+        log.info("free-spot index loaded: sectors={}, spots={}", fresh.size(), slots.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGarageSynced(GarageSyncedEvent event) {
+        reload();
+    }
+
+    private Map<Long, SectorFreeList> loaded() {
+        Map<Long, SectorFreeList> current = bySector;
+        if (current != null) return current;
+        synchronized (this) {
+            if (bySector == null) reload();
+            return bySector;
+        }
+    }
+
+    /**
+     * Lock-free queue plus a membership set: an id removed from the set while still queued
+     * is skipped by {@link #poll}, so removal never has to walk the queue.
+     */
+    static final class SectorFreeList {
+        private final ConcurrentLinkedQueue<Long> queue = new ConcurrentLinkedQueue<>();
+        private final Set<Long> members = ConcurrentHashMap.newKeySet();
+
+        void offer(Long spotId) {
+            if (members.add(spotId)) queue.offer(spotId);
+        }
+
+        Long poll() {
+            Long spotId;
+            while ((spotId = queue.poll()) != null) {
+                if (members.remove(spotId)) return spotId;
+            }
+            return null;
+        }
+
+        void remove(Long spotId) {
+            members.remove(spotId);
+        }
+
+        int size() {
+            return members.size();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.estapar.parking_system.application.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable 2-d tree over (lat, lng) in micro-degrees, answering nearest-neighbour by
+ * Manhattan distance ({@code |lat - q| + |lng - q|}). Ties go to the lowest spot id.
+ * The tree is implicit: the median of every range sits in the middle of the arrays.
+ */
+final class KdTree {
+
+    record Point(long id, long lat, long lng) {}
+
+    private static final Comparator<Point> BY_LAT = Comparator.comparingLong(Point::lat).thenComparingLong(Point::id);
+    private static final Comparator<Point> BY_LNG = Comparator.comparingLong(Point::lng).thenComparingLong(Point::id);
+
+    private final long[] ids;
+    private final long[] lats;
+    private final long[] lngs;
+
+    KdTree(List<Point> points) {
+        int n = points.size();
+        ids = new long[n];
+        lats = new long[n];
+        lngs = new long[n];
+        Point[] work = points.toArray(Point[]::new);
+        build(work, 0, n, 0);
+        for (int i = 0; i < n; i++) {
+            ids[i] = work[i].id();
+            lats[i] = work[i].lat();
+            lngs[i] = work[i].lng();
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /** Id of the nearest spot, or -1 when the tree is empty */
+    long nearest(long lat, long lng) {
+        Search s = new Search(lat, lng);
+        search(s, 0, ids.length, 0);
+        return s.bestId;
+    }
+
+    private static void build(Point[] work, int lo, int hi, int depth) {
+        if (hi - lo <= 1) return;
+        Arrays.sort(work, lo, hi, depth % 2 == 0 ? BY_LAT : BY_LNG);
+        int mid = (lo + hi) >>> 1;
+        build(work, lo, mid, depth + 1);
+        build(work, mid + 1, hi, depth + 1);
+    }
+
+    private void search(Search s, int lo, int hi, int depth) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+
+        long dist = Math.abs(lats[mid] - s.lat) + Math.abs(lngs[mid] - s.lng);
+        if (dist < s.bestDist || (dist == s.bestDist && ids[mid] < s.bestId)) {
+            s.bestDist = dist;
+            s.bestId = ids[mid];
+        }
+
+        long diff = depth % 2 == 0 ? s.lat - lats[mid] : s.lng - lngs[mid];
+        if (diff < 0) {
+            search(s, lo, mid, depth + 1);
+            if (-diff <= s.bestDist) search(s, mid + 1, hi, depth + 1);
+        } else {
+            search(s, mid + 1, hi, depth + 1);
+            if (diff <= s.bestDist) search(s, lo, mid, depth + 1);
+        }
+    }
+
+    private static final class Search {
+        final long lat;
+        final long lng;
+        long bestDist = Long.MAX_VALUE;
+        long bestId = -1;
+
+        Search(long lat, long lng) {
+            this.lat = lat;
+            this.lng = lng;
+        }
+    }
+}
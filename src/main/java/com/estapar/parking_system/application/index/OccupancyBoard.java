@@ -0,0 +1,165 @@
+package com.estapar.parking_system.application.index;
+
+import com.estapar.parking_system.domain.events.GarageSyncedEvent;
+import com.estapar.parking_system.domain.events.SpotOccupancyListener;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Who holds each spot, in one {@link AtomicLongArray} (slot = position of the spot id in a
+ * sorted array): 0 free, a session id, or {@link #TAKEN} when the occupant is not known here.
+ * Changed only by compare-and-set, so concurrent PARKED decisions on this node never both
+ * win a spot. It mirrors the database loosely: whatever is decided here is written with a
+ * conditional update, and a mismatch means "ask the database".
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.parking", name = "preemption", havingValue = "in-memory")
+@Slf4j
+public class OccupancyBoard implements SpotOccupancyListener {
+
+    public static final long FREE = 0L;
+    /** occupied, by a session this node has not seen */
+    public static final long TAKEN = -2L;
+    /** spot id not on the board */
+    public static final long UNKNOWN = -3L;
+
+    private record Layout(long[] ids, long[] sectorOf, Map<Long, int[]> slotsBySector, AtomicLongArray occupant) {}
+
+    private final SpotRepository spotRepo;
+
+    private volatile Layout layout;
+
+    public OccupancyBoard(SpotRepository spotRepo) {
+        this.spotRepo = spotRepo;
+    }
+
+    public long occupant(Long spotId) {
+        Layout l = loaded();
+        int slot = slot(l, spotId);
+        return slot < 0 ? UNKNOWN : l.occupant.get(slot);
+    }
+
+    /** Sector of the spot, or null when it is not on the board */
+    public Long sectorOf(Long spotId) {
+        Layout l = loaded();
+        int slot = slot(l, spotId);
+        return slot < 0 ? null : l.sectorOf[slot];
+    }
+
+    public boolean compareAndSet(Long spotId, long expected, long value) {
+        Layout l = loaded();
+        int slot = slot(l, spotId);
+        return slot >= 0 && l.occupant.compareAndSet(slot, expected, value);
+    }
+
+    /** Lowest free spot id of the sector, or null; a scan of that sector's slots only */
+    public Long firstFree(Long sectorId) {
+        Layout l = loaded();
+        int[] slots = l.slotsBySector.get(sectorId);
+        if (slots == null) return null;
+        for (int slot : slots) {
+            if (l.occupant.get(slot) == FREE) return l.ids[slot];
+        }
+        return null;
+    }
+
+    /** Overwrite with rows just read from the database */
+    public void observe(List<SpotSlot> rows) {
+        Layout l = loaded();
+        for (SpotSlot row : rows) {
+            int slot = slot(l, row.getId());
+            if (slot >= 0) l.occupant.set(slot, valueOf(row.getOccupiedBySessionId()));
+        }
+    }
+
+    @Override
+    public void occupied(Long sectorId, Long spotId) {
+        occupied(sectorId, spotId, null);
+    }
+
+    @Override
+    public void released(Long sectorId, Long spotId) {
+        released(sectorId, spotId, null);
+    }
+
+    @Override
+    public void occupied(Long sectorId, Long spotId, Long sessionId) {
+        Layout l = loaded();
+        int slot = slot(l, spotId);
+        if (slot < 0) return;
+        long value = sessionId == null ? TAKEN : sessionId;
+        // a session already written here by this node's own CAS stays
+        if (!l.occupant.compareAndSet(slot, FREE, value) && value != TAKEN) {
+            l.occupant.compareAndSet(slot, TAKEN, value);
+        }
+    }
+
+    @Override
+    public void released(Long sectorId, Long spotId, Long sessionId) {
+        Layout l = loaded();
+        int slot = slot(l, spotId);
+        if (slot < 0) return;
+        if (sessionId == null) {
+            l.occupant.set(slot, FREE);
+        } else if (!l.occupant.compareAndSet(slot, sessionId, FREE)) {
+            l.occupant.compareAndSet(slot, TAKEN, FREE);
+        }
+    }
+
+    public synchronized void reload() {
+        List<SpotSlot> slots = spotRepo.findAllSlots();
+        long[] ids = new long[slots.size()];
+        long[] sectorOf = new long[slots.size()];
+        AtomicLongArray occupant = new AtomicLongArray(slots.size());
+        Map<Long, List<Integer>> bySector = new HashMap<>();
+        // findAllSlots is ordered by id: binary search on ids, sector slots in id order
+        for (int i = 0; i < ids.length; i++) {
+            SpotSlot row = slots.get(i);
+            ids[i] = row.getId();
+            sectorOf[i] = row.getSectorId();
+            occupant.set(i, valueOf(row.getOccupiedBySessionId()));
+            bySector.computeIfAbsent(row.getSectorId(), id -> new ArrayList<>()).add(i);
+        }
+        Map<Long, int[]> slotsBySector = new HashMap<>(bySector.size() * 2);
+        bySector.forEach((sector, list) -> slotsBySector.put(sector, list.stream().mapToInt(Integer::intValue).toArray()));
+        layout = new Layout(ids, sectorOf, Map.copyOf(slotsBySector), occupant);
+        log.info("occupancy board loaded: spots={}", ids.length);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGarageSynced(GarageSyncedEvent event) {
+        reload();
+    }
+
+    /** null = free; the CLAIMED marker of an ENTRY in flight counts as taken */
+    private static long valueOf(Long occupiedBy) {
+        if (occupiedBy == null) return FREE;
+        return occupiedBy > 0 ? occupiedBy : TAKEN;
+    }
+
+    private static int slot(Layout l, Long spotId) {
+        if (spotId == null) return -1;
+        int slot = Arrays.binarySearch(l.ids, spotId);
+        return slot < 0 ? -1 : slot;
+    }
+
+    private Layout loaded() {
+        Layout current = layout;
+        if (current != null) return current;
+        synchronized (this) {
+            if (layout == null) reload();
+            return layout;
+        }
+    }
+}
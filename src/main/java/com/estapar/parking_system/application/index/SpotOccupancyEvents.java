@@ -0,0 +1,57 @@
+package com.estapar.parking_system.application.index;
+
+import com.estapar.parking_system.domain.events.SpotOccupancyListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Fan-out of spot occupy/release to the in-memory structures. Delivery waits for the
+ * surrounding transaction to commit, so a rollback never leaks into the counters. Listeners
+ * are also told when the commit starts and when the transaction is over, so they can tell a
+ * database reading taken mid-commit from a quiet one.
+ */
+@Component
+@RequiredArgsConstructor
+public class SpotOccupancyEvents {
+
+    private final List<SpotOccupancyListener> listeners;
+
+    public void occupied(Long sectorId, Long spotId, Long sessionId) {
+        afterCommit(sectorId, () -> listeners.forEach(l -> l.occupied(sectorId, spotId, sessionId)));
+    }
+
+    public void released(Long sectorId, Long spotId, Long sessionId) {
+        afterCommit(sectorId, () -> listeners.forEach(l -> l.released(sectorId, spotId, sessionId)));
+    }
+
+    private void afterCommit(Long sectorId, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                listeners.forEach(l -> l.committing(sectorId));
+            }
+
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            // runs after every afterCommit of the transaction, so the event is already out
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) listeners.forEach(l -> l.settled(sectorId));
+            }
+        });
+    }
+}
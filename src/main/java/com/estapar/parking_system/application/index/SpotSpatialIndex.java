@@ -0,0 +1,85 @@
+package com.estapar.parking_system.application.index;
+
+import com.estapar.parking_system.application.index.KdTree.Point;
+import com.estapar.parking_system.domain.events.GarageSyncedEvent;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotPoint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Coordinate lookups for PARKED without touching the spot table: exact matches are a probe
+ * on the packed coordinate key, misses go to the nearest spot by the same Manhattan distance
+ * as the old {@code ORDER BY ABS(lat - :lat) + ABS(lng - :lng)} queries. Spots without
+ * coordinates are left out. A resync builds a new snapshot and swaps it in one write.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpotSpatialIndex {
+
+    private final SpotRepository spotRepo;
+
+    private volatile Snapshot snapshot;
+
+    /** Ids of the spots exactly on (lat, lng), ascending; empty when none */
+    public long[] exactMatches(BigDecimal lat, BigDecimal lng) {
+        return loaded().exact.get(CoordinateCodec.key(lat, lng));
+    }
+
+    public Optional<Long> nearestInSector(Long sectorId, BigDecimal lat, BigDecimal lng) {
+        KdTree tree = loaded().bySector.get(sectorId);
+        return tree == null ? Optional.empty() : nearest(tree, lat, lng);
+    }
+
+    public Optional<Long> nearestGlobal(BigDecimal lat, BigDecimal lng) {
+        return nearest(loaded().global, lat, lng);
+    }
+
+    public void reload() {
+        List<SpotPoint> rows = spotRepo.findAllPoints();
+        List<Point> all = new ArrayList<>(rows.size());
+        Map<Long, List<Point>> bySector = new HashMap<>();
+        Map<Long, List<Long>> idsByKey = new HashMap<>(rows.size() * 2);
+        for (SpotPoint row : rows) {
+            Point p = new Point(row.getId(), CoordinateCodec.micros(row.getLat()), CoordinateCodec.micros(row.getLng()));
+            all.add(p);
+            bySector.computeIfAbsent(row.getSectorId(), id -> new ArrayList<>()).add(p);
+            idsByKey.computeIfAbsent(CoordinateCodec.key(p.lat(), p.lng()), k -> new ArrayList<>(1)).add(p.id());
+        }
+        Map<Long, KdTree> trees = new HashMap<>(bySector.size() * 2);
+        bySector.forEach((sectorId, points) -> trees.put(sectorId, new KdTree(points)));
+        snapshot = new Snapshot(new CoordinateKeyMap(idsByKey), new KdTree(all), Map.copyOf(trees));
+        log.info("spatial index built: sectors={}, spots={}", trees.size(), all.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGarageSynced(GarageSyncedEvent event) {
+        reload();
+    }
+
+    private static Optional<Long> nearest(KdTree tree, BigDecimal lat, BigDecimal lng) {
+        long id = tree.nearest(CoordinateCodec.micros(lat), CoordinateCodec.micros(lng));
+        return id < 0 ? Optional.empty() : Optional.of(id);
+    }
+
+    private Snapshot loaded() {
+        Snapshot current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) reload();
+            return snapshot;
+        }
+    }
+
+    private record Snapshot(CoordinateKeyMap exact, KdTree global, Map<Long, KdTree> bySector) {}
+}
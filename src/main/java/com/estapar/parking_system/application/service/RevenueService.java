@@ -1,14 +1,29 @@
 package com.estapar.parking_system.application.service;
 
+import com.estapar.parking_system.api.dto.RevenueDtos.Granularity;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRangeRequest;
 import com.estapar.parking_system.api.dto.RevenueDtos.RevenueResponse;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRow;
+import com.estapar.parking_system.application.cache.RevenueCache;
+import com.estapar.parking_system.domain.exceptions.InvalidRevenueRangeException;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository.RevenueBucket;
 import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.time.temporal.ChronoUnit.MILLIS;
 
@@ -16,21 +31,37 @@ import static java.time.temporal.ChronoUnit.MILLIS;
 @RequiredArgsConstructor
 @Slf4j
 public class RevenueService {
+    private final RevenueDailyRepository revenueDaily;
+    private final RevenueCache cache;
     private final VehicleSessionRepository sessionRepo;
+    private final SectorRegistry sectorRegistry;
+
+    /** A validated range query; from and to are inclusive UTC dates */
+    public record RevenueRange(LocalDate from, LocalDate to, Granularity granularity, List<String> sectors) {}
 
     public RevenueResponse revenueForDate(String yyyyMMdd, String sectorCode) {
         long t0 = System.nanoTime();
 
+        // the rollup is keyed by UTC exit date, same window as [start of day, next day)
         LocalDate date = LocalDate.parse(yyyyMMdd);
-        Instant start = date.atStartOfDay(ZoneOffset.UTC).toInstant();
-        Instant end   = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
 
-        String sectorOrNull = (sectorCode == null || sectorCode.isBlank()) ? null : sectorCode;
+        String requested = (sectorCode == null || sectorCode.isBlank()) ? null : sectorCode;
+        // the cache is invalidated by the stored code, so "a" has to be cached as "A"
+        Optional<SectorInfo> known = requested == null ? Optional.empty() : sectorRegistry.byCode(requested);
+        String sectorOrNull = known.map(SectorInfo::code).orElse(requested);
 
-        log.info("revenue.calc.start date={} start={} end={} sector={}", yyyyMMdd, start, end, sectorOrNull);
+        log.info("revenue.calc.start date={} sector={}", yyyyMMdd, sectorOrNull);
 
-        BigDecimal sum = sessionRepo.sumChargedBetweenAndSector(start, end, sectorOrNull);
-        sum = (sum == null) ? BigDecimal.ZERO : sum.setScale(2, RoundingMode.HALF_UP);
+        Supplier<BigDecimal> loader = () -> {
+            BigDecimal loaded = sectorOrNull == null
+                    ? revenueDaily.sumForDay(date)
+                    : revenueDaily.amountForDayAndSector(date, sectorOrNull);
+            return (loaded == null) ? BigDecimal.ZERO : loaded.setScale(2, RoundingMode.HALF_UP);
+        };
+        // a code the registry does not know has no stored form to invalidate by
+        BigDecimal sum = (requested == null || known.isPresent())
+                ? cache.amount(date, sectorOrNull, loader)
+                : loader.get();
 
         RevenueResponse response = new RevenueResponse(sum,
                 "BRL",
@@ -46,4 +77,59 @@ public class RevenueService {
 
         return response;
     }
+
+    public RevenueRange parseRange(RevenueRangeRequest request) {
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(request.from());
+            to = LocalDate.parse(request.to());
+        } catch (DateTimeException ex) {
+            throw new InvalidRevenueRangeException("from/to must be yyyy-MM-dd");
+        }
+        if (to.isBefore(from)) {
+            throw new InvalidRevenueRangeException("to must not be before from");
+        }
+        List<String> sectors = request.sectors() == null ? List.of() : request.sectors().stream()
+                .filter(code -> code != null && !code.isBlank())
+                .distinct()
+                .toList();
+        return new RevenueRange(from, to, request.granularity(), sectors);
+    }
+
+    /**
+     * Pushes one row per (bucket, sector) to the sink, in bucket then sector order, while the
+     * grouped query is still being read; nothing is collected in memory. DAY and MONTH come
+     * from the daily rollup, HOUR from the sessions themselves.
+     */
+    @Transactional(readOnly = true)
+    public void streamRange(RevenueRange range, Consumer<RevenueRow> sink) {
+        boolean allSectors = range.sectors().isEmpty();
+        // "in ()" is not valid SQL; the list is ignored when allSectors is true
+        List<String> codes = allSectors ? List.of("") : range.sectors();
+
+        Stream<RevenueBucket> rows = switch (range.granularity()) {
+            case HOUR -> sessionRepo.streamByHour(
+                    range.from().atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    range.to().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    allSectors, codes);
+            case DAY -> revenueDaily.streamByDay(range.from(), range.to(), allSectors, codes);
+            case MONTH -> revenueDaily.streamByMonth(range.from(), range.to(), allSectors, codes);
+        };
+        try (rows) {
+            rows.forEach(b -> sink.accept(new RevenueRow(
+                    bucketLabel(range.granularity(), b.getBucket()),
+                    b.getSectorCode(),
+                    b.getAmount() == null ? BigDecimal.ZERO.setScale(2) : b.getAmount().setScale(2, RoundingMode.HALF_UP),
+                    b.getSessions() == null ? 0 : b.getSessions())));
+        }
+    }
+
+    static String bucketLabel(Granularity granularity, long bucket) {
+        return switch (granularity) {
+            case HOUR -> Instant.ofEpochSecond(bucket * 3600).toString();
+            case DAY -> LocalDate.ofEpochDay(bucket).toString();
+            case MONTH -> YearMonth.of(1970, 1).plusMonths(bucket).toString();
+        };
+    }
 }
@@ -4,20 +4,31 @@ import com.estapar.parking_system.api.dto.WebhookDtos.EntryEvent;
 import com.estapar.parking_system.api.dto.WebhookDtos.ParkedEvent;
 import com.estapar.parking_system.api.dto.WebhookDtos.ExitEvent;
 
+import com.estapar.parking_system.application.cache.OpenSessionCache;
 import com.estapar.parking_system.application.helpers.EntryAllocator;
-import com.estapar.parking_system.application.helpers.ParkingPreemption;
+import com.estapar.parking_system.application.helpers.PreemptionEngine;
 import com.estapar.parking_system.application.helpers.TimeParser;
+import com.estapar.parking_system.application.index.CoordinateCodec;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.application.index.SpotSpatialIndex;
+import com.estapar.parking_system.domain.entity.RevenueDailyEntity;
 import com.estapar.parking_system.domain.entity.SpotEntity;
 import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.events.SessionClosedEvent;
 import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository;
 import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
 import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
 import com.estapar.parking_system.domain.service.DynamicFactorService;
 import com.estapar.parking_system.domain.service.OccupancyService;
 import com.estapar.parking_system.domain.service.PricingService;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +36,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
@@ -37,73 +51,84 @@ public class SessionAppService {
         private final DynamicFactorService dynamicFactorService;
         private final SpotRepository spotRepository;
         private final SectorRepository sectorRepository;
+        private final SectorRegistry sectorRegistry;
         private final PricingService pricingService;
 
         private final EntryAllocator entryAllocator;
-        private final ParkingPreemption preemption;
+        private final PreemptionEngine preemption;
+        private final SpotOccupancyEvents occupancyEvents;
+        private final SpotSpatialIndex spatialIndex;
+        private final RevenueDailyRepository revenueDaily;
+        private final ApplicationEventPublisher events;
+        private final OpenSessionCache openSessions;
 
         @Transactional
         public void handleEntry(EntryEvent event) {
             log.info("ENTRY handled for {}", event.licensePlate());
 
+            // the plate index decides: a cached id is only "maybe open", the EXIT may have
+            // committed on another node, so the cache stays out of the ENTRY path
             if (sessionRepo.countOpenByPlate(event.licensePlate()) > 0) {
                 log.debug("ENTRY ignored: already open for plate={}", event.licensePlate());
                 return;
             }
+            // capacity comes from the occupancy counters: a full garage is turned away before any write
+            if (!entryAllocator.hasRoom()) throw new GarageFullException("Garage is full");
 
-            BigDecimal factor = dynamicFactorService.compute(occupancyService.globalRatioBySpots());
+            BigDecimal ratio = occupancyService.globalRatioBySpots();
+            var allocation = entryAllocator.claim();
+            if (allocation == null) throw new GarageFullException("Garage is full");
+
+            // the spot is held for this transaction, so the session goes in complete with one insert
+            SectorInfo sector = allocation.sector();
+            Instant entryTime = TimeParser.parseInstantSafe(event.entryTime());
             VehicleSessionEntity session = VehicleSessionEntity.builder()
                     .licensePlate(event.licensePlate())
-                    .entryTime(TimeParser.parseInstantSafe(event.entryTime()))
-                    .priceFactor(factor)
+                    .entryTime(entryTime)
+                    .sector(sectorRepository.getReferenceById(sector.id()))
+                    .spot(allocation.spot())
+                    .basePrice(sector.basePrice())
+                    .priceFactor(dynamicFactorService.compute(sector.code(), ratio, entryTime))
                     .build();
 
             try {
                 session = sessionRepo.save(session);
 
             } catch (DataIntegrityViolationException dup) {
+                // the failed insert marks the transaction rollback-only, which also undoes the claim
                 log.info("ENTRY duplicate suppressed by unique index for plate={}", event.licensePlate());
                 return;
             }
 
-            var allocation = entryAllocator.allocateForSession(session.getId());
-            if (allocation == null) {
-                sessionRepo.deleteById(session.getId());
-                throw new GarageFullException("Garage is full");
-            }
+            entryAllocator.assign(allocation, session.getId());
+            openSessions.opened(event.licensePlate(), session.getId());
 
-            session.setSector(allocation.sector());
-            session.setBasePrice(allocation.sector().getBasePrice());
-            session.setSpot(allocation.spot());
-            sessionRepo.save(session);
-
-            log.info("ENTRY reserved spot={} sector={} for plate={}", allocation.spot().getId(), allocation.sector().getCode(), session.getLicensePlate());
+            log.info("ENTRY reserved spot={} sector={} for plate={}", allocation.spot().getId(), sector.code(), event.licensePlate());
         }
 
         @Transactional
         public void handleParked(ParkedEvent ev) {
-            VehicleSessionEntity session =
-                    sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc(ev.licensePlate()).orElse(null);
+            VehicleSessionEntity session = openSession(ev.licensePlate());
             if (session == null) {
                 log.debug("PARKED ignored: no open session for {}", ev.licensePlate());
                 return;
             }
 
-            List<SpotEntity> candidates = spotRepository.findAllByLatAndLngOrderByIdAsc(ev.lat(), ev.lng());
+            long[] exactIds = spatialIndex.exactMatches(ev.lat(), ev.lng());
 
             SpotEntity destination = null;
-            if (!candidates.isEmpty()) {
-                destination = candidates.stream()
-                        .filter(s -> session.getId().equals(s.getOccupiedBySessionId()))
-                        .findFirst()
-                        .orElse(candidates.getFirst());
+            if (exactIds.length > 0) {
+                destination = exactDestination(session, exactIds, ev);
             } else {
                 if (session.getSector() != null) {
-                    destination = spotRepository.findNearestInSector(session.getSector().getId(), ev.lat(), ev.lng())
+                    destination = spatialIndex.nearestInSector(session.getSector().getId(), ev.lat(), ev.lng())
+                            .flatMap(spotRepository::findById)
                             .orElse(null);
                 }
                 if (destination == null) {
-                    destination = spotRepository.findNearestGlobal(ev.lat(), ev.lng()).orElse(null);
+                    destination = spatialIndex.nearestGlobal(ev.lat(), ev.lng())
+                            .flatMap(spotRepository::findById)
+                            .orElse(null);
                 }
             }
 
@@ -131,9 +156,40 @@ public class SessionAppService {
             }
         }
 
+        /** open session of the plate: the cached id when there is one, the plate index otherwise */
+        private VehicleSessionEntity openSession(String plate) {
+            long cached = openSessions.openSessionId(plate);
+            if (cached != 0) {
+                VehicleSessionEntity session = sessionRepo.findById(cached).orElse(null);
+                if (session != null && session.getExitTime() == null) return session;
+                openSessions.evict(plate, cached);
+            }
+            VehicleSessionEntity session =
+                    sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc(plate).orElse(null);
+            if (session != null) openSessions.opened(plate, session.getId());
+            return session;
+        }
+
+        /** the spot this session already holds on these coordinates, otherwise the lowest id */
+        private SpotEntity exactDestination(VehicleSessionEntity session, long[] exactIds, ParkedEvent ev) {
+            SpotEntity current = session.getSpot();
+            if (current != null && session.getId().equals(current.getOccupiedBySessionId())
+                    && Arrays.binarySearch(exactIds, current.getId()) >= 0) {
+                return current;
+            }
+            if (exactIds.length == 1) {
+                return spotRepository.findById(exactIds[0]).orElse(null);
+            }
+            List<SpotEntity> candidates = spotRepository.findAllByCoordKeyOrderByIdAsc(CoordinateCodec.key(ev.lat(), ev.lng()));
+            return candidates.stream()
+                    .filter(s -> session.getId().equals(s.getOccupiedBySessionId()))
+                    .findFirst()
+                    .orElse(candidates.isEmpty() ? null : candidates.getFirst());
+        }
+
         @Transactional
         public void handleExit(ExitEvent ev) {
-            VehicleSessionEntity session = sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc(ev.licensePlate()).orElse(null);
+            VehicleSessionEntity session = openSession(ev.licensePlate());
             if (session == null) return;
 
             Instant exit = TimeParser.parseInstantSafe(ev.exitTime());
@@ -149,7 +205,7 @@ public class SessionAppService {
             }
 
             if (session.getBasePrice() == null) {
-                BigDecimal minBase = sectorRepository.findMinBasePrice();
+                BigDecimal minBase = sectorRegistry.minBasePrice();
                 session.setBasePrice(minBase != null ? minBase : BigDecimal.ZERO);
             }
 
@@ -161,13 +217,22 @@ public class SessionAppService {
             );
             session.setChargedAmount(amount);
             sessionRepo.save(session);
-
-            SpotEntity spot = session.getSpot();
-            if (spot != null && session.getId().equals(spot.getOccupiedBySessionId())) {
-                spot.setOccupiedBySessionId(null);
-                spotRepository.save(spot);
-                session.setSpot(null);
-                sessionRepo.save(session);
+            LocalDate exitDay = LocalDate.ofInstant(exit, ZoneOffset.UTC);
+            revenueDaily.addExit(exitDay,
+                    session.getSector() != null ? session.getSector().getId() : RevenueDailyEntity.NO_SECTOR,
+                    amount);
+            events.publishEvent(new SessionClosedEvent(exitDay,
+                    session.getSector() != null ? session.getSector().getCode() : null));
+            openSessions.closed(session.getLicensePlate(), session.getId());
+
+            // the committed rows, not session.getSpot(): a PARKED of another plate may have moved this car
+            if (session.getSpot() == null) return;
+            for (SpotSlot held : spotRepository.lockHeldBy(session.getId())) {
+                if (spotRepository.releaseIfHeldBy(held.getId(), session.getId()) == 1) {
+                    occupancyEvents.released(held.getSectorId(), held.getId(), session.getId());
+                }
             }
+            session.setSpot(null);
+            sessionRepo.save(session);
         }
     }
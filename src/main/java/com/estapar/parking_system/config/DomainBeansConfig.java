@@ -1,28 +1,51 @@
 package com.estapar.parking_system.config;
 
 import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.service.CountingOccupancyService;
 import com.estapar.parking_system.domain.service.OccupancyService;
 import com.estapar.parking_system.domain.repository.SpotRepository;
 import com.estapar.parking_system.domain.service.DynamicFactorService;
+import com.estapar.parking_system.domain.service.FactorTable;
 import com.estapar.parking_system.domain.service.PricingService;
+import com.estapar.parking_system.domain.service.SectorRegistry;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import org.springdoc.core.models.GroupedOpenApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.ZoneId;
+
 @Configuration
 public class DomainBeansConfig {
 
+    /** Sector rows in memory; GarageSynchronizer swaps in the layout it writes */
+    @Bean
+    public SectorRegistry sectorRegistry(SectorRepository sectorRepo) {
+        return new SectorRegistry(sectorRepo);
+    }
+
+    /** Default: in-memory counters, no count(*) on the ENTRY path */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.occupancy", name = "mode", havingValue = "counters", matchIfMissing = true)
+    public CountingOccupancyService occupancyService(SpotRepository spotRepo,
+                                                     SectorRegistry sectors) {
+        return new CountingOccupancyService(spotRepo, sectors);
+    }
+
     @Bean
-    public OccupancyService occupancyService(SpotRepository spotRepo,
-                                             SectorRepository sectorRepo) {
-        return new OccupancyService(spotRepo, sectorRepo);
+    @ConditionalOnProperty(prefix = "app.occupancy", name = "mode", havingValue = "queries")
+    public OccupancyService queryOccupancyService(SpotRepository spotRepo,
+                                                  SectorRegistry sectors) {
+        return new OccupancyService(spotRepo, sectors);
     }
 
+    /** Starts on the built-in tiers; PricingRulesReloader swaps in the rules file, if any */
     @Bean
-    public DynamicFactorService dynamicFactorService() {
-        return new DynamicFactorService();
+    public DynamicFactorService dynamicFactorService(@Value("${app.pricing.zone:UTC}") ZoneId zone) {
+        return new DynamicFactorService(FactorTable.DEFAULT, zone);
     }
 
     @Bean
@@ -0,0 +1,29 @@
+package com.estapar.parking_system.config;
+
+import com.estapar.parking_system.infrastructure.ingest.PlateShardedExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** Opt-in: acknowledge webhooks right away and process them on per-plate shards */
+@Configuration
+@ConditionalOnProperty(prefix = "app.webhook.async", name = "enabled", havingValue = "true")
+public class WebhookAsyncConfig {
+
+    @Bean
+    public PlateShardedExecutor webhookIngestExecutor(@Value("${app.webhook.async.workers:8}") int workers,
+                                                      @Value("${app.webhook.async.queue-capacity:1000}") int queueCapacity,
+                                                      @Value("${app.webhook.async.offer-timeout:PT0.2S}") Duration offerTimeout,
+                                                      @Value("${app.webhook.async.drain-timeout:PT30S}") Duration drainTimeout,
+                                                      @Value("${app.webhook.async.max-attempts:3}") int maxAttempts,
+                                                      @Value("${app.webhook.async.retry-backoff:PT0.05S}") Duration retryBackoff,
+                                                      @Value("${app.webhook.async.dead-letter-capacity:1000}") int deadLetterCapacity,
+                                                      MeterRegistry meters) {
+        return new PlateShardedExecutor(workers, queueCapacity, offerTimeout, drainTimeout,
+                maxAttempts, retryBackoff, deadLetterCapacity, meters);
+    }
+}
@@ -0,0 +1,45 @@
+package com.estapar.parking_system.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Daily revenue per sector (UTC exit date); sector_id 0 holds sessions that never got a sector */
+@Entity
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "revenue_daily")
+public class RevenueDailyEntity {
+
+    public static final long NO_SECTOR = 0L;
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "sessions", nullable = false)
+    private Long sessions;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @ToString
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "revenue_date", nullable = false)
+        private LocalDate revenueDate;
+
+        @Column(name = "sector_id", nullable = false)
+        private Long sectorId;
+    }
+}
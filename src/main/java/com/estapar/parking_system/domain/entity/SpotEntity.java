@@ -20,12 +20,16 @@ public class SpotEntity {
     @JoinColumn(name = "sector_id")
     private SectorEntity sector;
 
-    @Column(name = "lat", precision = 10, scale = 7)
+    @Column(name = "lat", precision = 10, scale = 6)
     private BigDecimal lat;
 
-    @Column(name = "lng",precision = 10, scale = 7)
+    @Column(name = "lng",precision = 10, scale = 6)
     private BigDecimal lng;
 
+    /** generated by MySQL from lat/lng, see CoordinateCodec.key */
+    @Column(name = "coord_key", insertable = false, updatable = false)
+    private Long coordKey;
+
     @Column(name = "occupied_by_session_id")
     private Long occupiedBySessionId;
 }
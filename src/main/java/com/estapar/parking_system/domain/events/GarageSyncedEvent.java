@@ -0,0 +1,4 @@
+package com.estapar.parking_system.domain.events;
+
+/** Published once the sector/spot layout was (re)written from the simulator. */
+public record GarageSyncedEvent(long sectors, long spots) {}
@@ -0,0 +1,6 @@
+package com.estapar.parking_system.domain.events;
+
+import java.time.LocalDate;
+
+/** A session got its charged amount; sectorCode is null when it never had a sector */
+public record SessionClosedEvent(LocalDate exitDay, String sectorCode) {}
@@ -0,0 +1,25 @@
+package com.estapar.parking_system.domain.events;
+
+/** Notified (after commit) whenever a spot changes between free and taken. */
+public interface SpotOccupancyListener {
+    void occupied(Long sectorId, Long spotId);
+    void released(Long sectorId, Long spotId);
+
+    /** With the session that took the spot; listeners that only count can ignore it */
+    default void occupied(Long sectorId, Long spotId, Long sessionId) {
+        occupied(sectorId, spotId);
+    }
+
+    /** With the session that held the spot */
+    default void released(Long sectorId, Long spotId, Long sessionId) {
+        released(sectorId, spotId);
+    }
+
+    /** A transaction moving a spot of the sector is about to commit; its event is not out yet */
+    default void committing(Long sectorId) {
+    }
+
+    /** That transaction is over, committed or rolled back, and its event was delivered */
+    default void settled(Long sectorId) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.estapar.parking_system.domain.exceptions;
+
+public class InvalidRevenueRangeException extends RuntimeException {
+    public InvalidRevenueRangeException(String message) { super(message); }
+}
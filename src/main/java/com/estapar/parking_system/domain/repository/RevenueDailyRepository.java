@@ -0,0 +1,84 @@
+package com.estapar.parking_system.domain.repository;
+
+import com.estapar.parking_system.domain.entity.RevenueDailyEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+public interface RevenueDailyRepository extends JpaRepository<RevenueDailyEntity, RevenueDailyEntity.Key> {
+
+    /** Folds one closed session into its day/sector row; atomic under concurrent exits */
+    @Modifying
+    @Query(value = """
+       insert into revenue_daily (revenue_date, sector_id, amount, sessions)
+       values (:day, :sectorId, :amount, 1)
+       on duplicate key update amount = amount + :amount, sessions = sessions + 1
+       """, nativeQuery = true)
+    int addExit(@Param("day") LocalDate day,
+                @Param("sectorId") long sectorId,
+                @Param("amount") BigDecimal amount);
+
+    /** Whole garage: a primary-key prefix scan over the day's rows (one per sector) */
+    @Query("""
+       select sum(r.amount) from RevenueDailyEntity r
+       where r.id.revenueDate = :day
+       """)
+    BigDecimal sumForDay(@Param("day") LocalDate day);
+
+    @Query("""
+       select r.amount from RevenueDailyEntity r, SectorEntity s
+       where s.code = :sectorCode and r.id.sectorId = s.id and r.id.revenueDate = :day
+       """)
+    BigDecimal amountForDayAndSector(@Param("day") LocalDate day, @Param("sectorCode") String sectorCode);
+
+    /** One row of a grouped revenue report; bucket is an epoch-based index (day, month or hour) */
+    interface RevenueBucket {
+        Long getBucket();
+        String getSectorCode();
+        BigDecimal getAmount();
+        Long getSessions();
+    }
+
+    /** bucket = days since 1970-01-01; sectorCode is null for sessions without a sector */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = """
+       select datediff(r.revenue_date, '1970-01-01') as bucket, s.code as sectorCode,
+              sum(r.amount) as amount, sum(r.sessions) as sessions
+       from revenue_daily r
+       left join sector s on s.id = r.sector_id
+       where r.revenue_date between :fromDay and :toDay
+         and (:allSectors = true or s.code in (:sectorCodes))
+       group by bucket, sectorCode
+       order by bucket, sectorCode
+       """, nativeQuery = true)
+    Stream<RevenueBucket> streamByDay(@Param("fromDay") LocalDate fromDay,
+                                      @Param("toDay") LocalDate toDay,
+                                      @Param("allSectors") boolean allSectors,
+                                      @Param("sectorCodes") Collection<String> sectorCodes);
+
+    /** bucket = months since 1970-01 */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = """
+       select (year(r.revenue_date) - 1970) * 12 + month(r.revenue_date) - 1 as bucket, s.code as sectorCode,
+              sum(r.amount) as amount, sum(r.sessions) as sessions
+       from revenue_daily r
+       left join sector s on s.id = r.sector_id
+       where r.revenue_date between :fromDay and :toDay
+         and (:allSectors = true or s.code in (:sectorCodes))
+       group by bucket, sectorCode
+       order by bucket, sectorCode
+       """, nativeQuery = true)
+    Stream<RevenueBucket> streamByMonth(@Param("fromDay") LocalDate fromDay,
+                                        @Param("toDay") LocalDate toDay,
+                                        @Param("allSectors") boolean allSectors,
+                                        @Param("sectorCodes") Collection<String> sectorCodes);
+}
@@ -7,33 +7,82 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface SpotRepository extends JpaRepository<SpotEntity, Long> {
 
-    List<SpotEntity> findAllByLatAndLngOrderByIdAsc(BigDecimal lat, BigDecimal lng);
+    /** Lightweight view used to seed the in-memory indexes without loading whole entities */
+    interface SpotSlot {
+        Long getId();
+        Long getSectorId();
+        Long getOccupiedBySessionId();
+    }
 
-    @Query(value = """
-        SELECT *
-        FROM spot
-        WHERE sector_id = :sectorId
-        ORDER BY ABS(lat - :lat) + ABS(lng - :lng) ASC
-        LIMIT 1
-        """, nativeQuery = true)
-    Optional<SpotEntity> findNearestInSector(@Param("sectorId") Long sectorId,
-                                             @Param("lat") BigDecimal lat,
-                                             @Param("lng") BigDecimal lng);
+    @Query("""
+       select s.id as id, s.sector.id as sectorId, s.occupiedBySessionId as occupiedBySessionId
+       from SpotEntity s
+       order by s.id asc
+       """)
+    List<SpotSlot> findAllSlots();
+
+    @Query("""
+       select s.id as id, s.sector.id as sectorId, s.occupiedBySessionId as occupiedBySessionId
+       from SpotEntity s
+       where s.id in :spotIds or s.occupiedBySessionId in :sessionIds
+       """)
+    List<SpotSlot> findSlots(@Param("spotIds") Collection<Long> spotIds,
+                             @Param("sessionIds") Collection<Long> sessionIds);
 
+    /**
+     * Spots the session holds in the committed rows, locked until commit. Unlike a plain read,
+     * this is not the transaction's snapshot: it sees a move another PARKED committed since.
+     */
     @Query(value = """
-    SELECT *
-    FROM spot
-    ORDER BY ABS(lat - :lat) + ABS(lng - :lng) ASC
-    LIMIT 1
-    """, nativeQuery = true)
-    Optional<SpotEntity> findNearestGlobal(@Param("lat") BigDecimal lat,
-                                           @Param("lng") BigDecimal lng);
+       select id, sector_id as sectorId, occupied_by_session_id as occupiedBySessionId
+       from spot
+       where occupied_by_session_id = :sessionId
+       for update
+       """, nativeQuery = true)
+    List<SpotSlot> lockHeldBy(@Param("sessionId") Long sessionId);
+
+    interface SpotPoint {
+        Long getId();
+        Long getSectorId();
+        BigDecimal getLat();
+        BigDecimal getLng();
+    }
+
+    @Query("""
+       select s.id as id, s.sector.id as sectorId, s.lat as lat, s.lng as lng
+       from SpotEntity s
+       where s.lat is not null and s.lng is not null
+       order by s.id asc
+       """)
+    List<SpotPoint> findAllPoints();
+
+    interface SectorOccupancy {
+        Long getSectorId();
+        long getTotal();
+        long getTaken();
+    }
+
+    @Query("""
+       select s.sector.id as sectorId, count(s) as total, count(s.occupiedBySessionId) as taken
+       from SpotEntity s
+       group by s.sector.id
+       """)
+    List<SectorOccupancy> countBySector();
+
+    @Query("""
+       select s.id from SpotEntity s
+       where s.sector.id = :sectorId and s.occupiedBySessionId is null
+       order by s.id asc
+       """)
+    List<Long> findFreeIdsInSector(@Param("sectorId") Long sectorId);
 
+    List<SpotEntity> findAllByCoordKeyOrderByIdAsc(Long coordKey);
 
     @Query("""
        select count(s) from SpotEntity s
@@ -71,6 +120,29 @@ public interface SpotRepository extends JpaRepository<SpotEntity, Long> {
     int trySwapOccupant(@Param("spotId") Long spotId,
                         @Param("expectedSessionId") Long expectedSessionId,
                         @Param("newSessionId") Long newSessionId);
+
+    /** Frees the spot if the session still holds it; leaves the persistence context alone */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+       update SpotEntity s
+       set s.occupiedBySessionId = null
+       where s.id = :spotId and s.occupiedBySessionId = :sessionId
+       """)
+    int releaseIfHeldBy(@Param("spotId") Long spotId, @Param("sessionId") Long sessionId);
+
     Optional<SpotEntity> findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(Long sectorId);
 
+    /**
+     * First free spot of the sector that no other transaction holds, row-locked until commit.
+     * Concurrent callers (other nodes included) each get a different row instead of queueing on one.
+     */
+    @Query(value = """
+       select id from spot
+       where sector_id = :sectorId and occupied_by_session_id is null
+       order by id asc
+       limit 1
+       for update skip locked
+       """, nativeQuery = true)
+    Optional<Long> lockFirstFreeInSector(@Param("sectorId") Long sectorId);
+
 }
@@ -1,12 +1,20 @@
 package com.estapar.parking_system.domain.repository;
 
 import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository.RevenueBucket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface VehicleSessionRepository extends JpaRepository<VehicleSessionEntity, Long> {
     @Query("""
@@ -17,8 +25,44 @@ public interface VehicleSessionRepository extends JpaRepository<VehicleSessionEn
        """)
     BigDecimal sumChargedBetweenAndSector(Instant start, Instant end, String sectorCode);
 
+    /** Hourly buckets straight from the sessions (the rollup is daily); bucket = hours since epoch, UTC */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = """
+       select floor(unix_timestamp(vs.exit_time) / 3600) as bucket, s.code as sectorCode,
+              sum(vs.charged_amount) as amount, count(*) as sessions
+       from vehicle_session vs
+       left join sector s on s.id = vs.sector_id
+       where vs.exit_time >= :start and vs.exit_time < :end
+         and vs.charged_amount is not null
+         and (:allSectors = true or s.code in (:sectorCodes))
+       group by bucket, sectorCode
+       order by bucket, sectorCode
+       """, nativeQuery = true)
+    Stream<RevenueBucket> streamByHour(@Param("start") Instant start,
+                                       @Param("end") Instant end,
+                                       @Param("allSectors") boolean allSectors,
+                                       @Param("sectorCodes") Collection<String> sectorCodes);
+
     Optional<VehicleSessionEntity> findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc(String plate);
 
+    /**
+     * Points a displaced session at its new spot, writing only those columns: saving the entity
+     * would write back every column as this transaction read it (exit_time included).
+     * MySQL assigns left to right, so base_price is decided before sector_id changes.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+       update vehicle_session
+       set spot_id = :spotId,
+           base_price = case when sector_id <=> :sectorId and base_price is not null then base_price else :basePrice end,
+           sector_id = :sectorId
+       where id = :sessionId
+       """, nativeQuery = true)
+    int moveDisplaced(@Param("sessionId") Long sessionId,
+                      @Param("spotId") Long spotId,
+                      @Param("sectorId") Long sectorId,
+                      @Param("basePrice") BigDecimal basePrice);
+
     @Query("select count(vs) from VehicleSessionEntity vs " +
             "where vs.licensePlate = :plate and vs.exitTime is null")
     long countOpenByPlate(String plate);
@@ -0,0 +1,189 @@
+package com.estapar.parking_system.domain.service;
+
+import com.estapar.parking_system.domain.events.SpotOccupancyListener;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SectorOccupancy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Occupancy kept in {@link LongAdder}s fed by spot occupy/release events, so the ENTRY
+ * path reads the ratio without any query. Seeded lazily, reseeded on garage sync and
+ * reconciled against the database periodically.
+ * <p>
+ * A count(*) can already include a commit whose afterCommit event has not reached the
+ * adders yet, so a reading only proves drift when the sector was quiet: no commit in flight
+ * when the adder was read and none started or settled until the count came back. Busy
+ * sectors wait for a later reconcile. A reseed keeps the live adders of the sectors it
+ * already has instead of overwriting them with a reading.
+ */
+@Slf4j
+public class CountingOccupancyService extends OccupancyService implements SpotOccupancyListener {
+
+    private final SpotRepository spotRepository;
+    private final SectorRegistry sectors;
+
+    private volatile Counters counters;
+    /** commits in flight per sector, kept apart from the counters so a reseed does not lose them */
+    private final Map<Long, Activity> activity = new ConcurrentHashMap<>();
+
+    public CountingOccupancyService(SpotRepository spotRepository, SectorRegistry sectors) {
+        super(spotRepository, sectors);
+        this.spotRepository = spotRepository;
+        this.sectors = sectors;
+    }
+
+    @Override
+    public long totalCapacity() {
+        return loaded().totalSpots;
+    }
+
+    @Override
+    public long takenSpotsGlobal() {
+        long taken = 0;
+        for (SectorCounter sector : loaded().bySector.values()) taken += sector.taken.sum();
+        return taken;
+    }
+
+    @Override
+    public long takenInSector(Long sectorId) {
+        SectorCounter sector = loaded().bySector.get(sectorId);
+        return sector == null ? 0 : sector.taken.sum();
+    }
+
+    @Override
+    public boolean isSectorFull(Long sectorId) {
+        SectorCounter sector = loaded().bySector.get(sectorId);
+        if (sector == null) return true;
+        return sector.taken.sum() >= sector.maxCapacity;
+    }
+
+    @Override
+    public void occupied(Long sectorId, Long spotId) {
+        adjust(sectorId, 1);
+    }
+
+    @Override
+    public void released(Long sectorId, Long spotId) {
+        adjust(sectorId, -1);
+    }
+
+    @Override
+    public void committing(Long sectorId) {
+        Activity a = activity(sectorId);
+        a.transitions.incrementAndGet();
+        a.inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void settled(Long sectorId) {
+        Activity a = activity(sectorId);
+        a.inFlight.decrementAndGet();
+        a.transitions.incrementAndGet();
+    }
+
+    /**
+     * Rebuild for the current sector layout. Sectors already counted keep their live adder (their
+     * drift is reconcile's job); only sectors seen for the first time are seeded from the database.
+     */
+    public synchronized void reseed() {
+        Counters previous = counters;
+        Map<Long, SectorOccupancy> rows = countBySector();
+        Map<Long, SectorCounter> bySector = new HashMap<>();
+        long total = 0;
+        for (SectorRegistry.SectorInfo sector : sectors.all()) {
+            SectorOccupancy row = rows.get(sector.id());
+            SectorCounter live = previous == null ? null : previous.bySector.get(sector.id());
+            LongAdder taken = live != null ? live.taken : new LongAdder();
+            if (live == null && row != null) taken.add(row.getTaken());
+            if (row != null) total += row.getTotal();
+            bySector.put(sector.id(), new SectorCounter(sector.maxCapacity(), taken));
+        }
+        counters = new Counters(Map.copyOf(bySector), total);
+        log.info("occupancy counters seeded: sectors={}, spots={}, taken={}", bySector.size(), total, takenSpotsGlobal());
+    }
+
+    /**
+     * Compare with count(*) per sector and fold the difference into the live adders of the
+     * sectors that stayed quiet around the reading. Events keep flowing meanwhile; a layout
+     * change (new sector, more spots) reloads the sector registry and reseeds instead.
+     */
+    public synchronized void reconcile() {
+        Counters current = counters;
+        if (current == null) {
+            reseed();
+            return;
+        }
+        // adder value per quiet sector, and the activity mark it was read under
+        Map<Long, long[]> quiet = new HashMap<>();
+        for (var entry : current.bySector.entrySet()) {
+            Activity a = activity(entry.getKey());
+            long mark = a.transitions.get();
+            if (a.inFlight.get() > 0) continue;
+            quiet.put(entry.getKey(), new long[]{mark, entry.getValue().taken.sum()});
+        }
+        Map<Long, SectorOccupancy> rows = countBySector();
+        long total = rows.values().stream().mapToLong(SectorOccupancy::getTotal).sum();
+        if (total != current.totalSpots || !current.bySector.keySet().containsAll(rows.keySet())) {
+            sectors.reload();
+            reseed();
+            return;
+        }
+        long drift = 0;
+        int busy = current.bySector.size() - quiet.size();
+        for (var entry : quiet.entrySet()) {
+            long[] read = entry.getValue();
+            if (activity(entry.getKey()).transitions.get() != read[0]) {
+                // a commit started or settled while counting: the reading may hold it or not
+                busy++;
+                continue;
+            }
+            SectorOccupancy row = rows.get(entry.getKey());
+            long delta = (row == null ? 0 : row.getTaken()) - read[1];
+            if (delta == 0) continue;
+            current.bySector.get(entry.getKey()).taken.add(delta);
+            drift += Math.abs(delta);
+        }
+        if (drift > 0) log.warn("occupancy counters drifted by {} spot(s), reconciled", drift);
+        if (busy > 0) log.debug("occupancy reconcile skipped {} busy sector(s)", busy);
+    }
+
+    private void adjust(Long sectorId, int delta) {
+        SectorCounter sector = loaded().bySector.get(sectorId);
+        if (sector == null) return;
+        sector.taken.add(delta);
+    }
+
+    private Activity activity(Long sectorId) {
+        return activity.computeIfAbsent(sectorId, id -> new Activity(new AtomicInteger(), new AtomicLong()));
+    }
+    private Map<Long, SectorOccupancy> countBySector() {
+        List<SectorOccupancy> rows = spotRepository.countBySector();
+        Map<Long, SectorOccupancy> bySector = new HashMap<>(rows.size() * 2);
+        rows.forEach(r -> bySector.put(r.getSectorId(), r));
+        return bySector;
+    }
+
+    private Counters loaded() {
+        Counters current = counters;
+        if (current != null) return current;
+        synchronized (this) {
+            if (counters == null) reseed();
+            return counters;
+        }
+    }
+
+    private record Counters(Map<Long, SectorCounter> bySector, long totalSpots) {}
+
+    private record SectorCounter(int maxCapacity, LongAdder taken) {}
+
+    /** inFlight = commits between beforeCommit and settled; transitions moves on every start and end */
+    private record Activity(AtomicInteger inFlight, AtomicLong transitions) {}
+}
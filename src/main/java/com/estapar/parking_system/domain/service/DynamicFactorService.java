@@ -1,12 +1,56 @@
 package com.estapar.parking_system.domain.service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
 
+/**
+ * Price factor by global occupancy, sector and hour of day, read from a compiled
+ * {@link FactorTable}. Without a rules file it is the original tiers: below 25% 0.90,
+ * up to 50% 1.00, up to 75% 1.10, above that 1.25. New rules are swapped in with one
+ * volatile write; readers never lock.
+ */
 public class DynamicFactorService {
+
+    private final ZoneRules zone;
+    private volatile FactorTable table;
+
+    public DynamicFactorService() {
+        this(FactorTable.DEFAULT, ZoneOffset.UTC);
+    }
+
+    public DynamicFactorService(FactorTable table, ZoneId zone) {
+        this.table = table;
+        this.zone = zone.getRules();
+    }
+
+    /** Garage-wide factor at the current hour */
     public BigDecimal compute(BigDecimal ratio) {
-        if (ratio.compareTo(new BigDecimal("0.25")) < 0) return new BigDecimal("0.90");
-        if (ratio.compareTo(new BigDecimal("0.50")) <= 0) return BigDecimal.ONE;
-        if (ratio.compareTo(new BigDecimal("0.75")) <= 0) return new BigDecimal("1.10");
-        return new BigDecimal("1.25");
+        return compute(null, ratio, Instant.now());
+    }
+
+    /** Factor for a sector (null = garage-wide rules) at the hour of {@code at} */
+    public BigDecimal compute(String sector, BigDecimal ratio, Instant at) {
+        return table.factor(sector, hourOf(at), ratio);
+    }
+
+    /** Same factor as {@link #compute}, in basis points for {@link PricingEngine} */
+    public int computeBasisPoints(BigDecimal ratio) {
+        return computeBasisPoints(null, ratio, Instant.now());
+    }
+
+    public int computeBasisPoints(String sector, BigDecimal ratio, Instant at) {
+        return table.basisPoints(sector, hourOf(at), ratio);
+    }
+
+    public void replaceRules(FactorTable compiled) {
+        this.table = compiled;
+    }
+
+    private int hourOf(Instant at) {
+        long local = at.getEpochSecond() + zone.getOffset(at).getTotalSeconds();
+        return (int) (Math.floorMod(local, 86_400L) / 3600);
     }
 }
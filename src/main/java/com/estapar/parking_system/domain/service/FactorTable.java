@@ -0,0 +1,163 @@
+package com.estapar.parking_system.domain.service;
+
+import com.estapar.parking_system.domain.service.PricingRules.Rule;
+import com.estapar.parking_system.domain.service.PricingRules.Tier;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.estapar.parking_system.domain.service.PricingEngine.NOT_EXACT;
+
+/**
+ * {@link PricingRules} compiled into one dense grid per sector, indexed by hour of day and
+ * occupancy slot, so a lookup is an array read. Tier bounds are whole percents, so a ratio
+ * falls either exactly on a percent (slot {@code 2p}) or strictly between two (slot
+ * {@code 2p + 1}); 202 slots per hour cover 0% to above 100% without approximating.
+ * Immutable: new rules mean a new table.
+ */
+public final class FactorTable {
+
+    static final int HOURS = 24;
+    static final int SLOTS = 202;
+
+    private static final BigDecimal MAX_FACTOR = new BigDecimal("999.99");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private record Grid(BigDecimal[] factors, int[] basisPoints) {}
+
+    private final Grid garage;
+    private final Map<String, Grid> bySector;
+
+    private FactorTable(Grid garage, Map<String, Grid> bySector) {
+        this.garage = garage;
+        this.bySector = bySector;
+    }
+
+    public static final FactorTable DEFAULT = compile(PricingRules.defaults(), new BigDecimal[HOURS * SLOTS]);
+
+    /**
+     * Hours the garage rules do not cover keep the {@link #DEFAULT} tiers.
+     * @throws IllegalArgumentException when a rule is malformed
+     */
+    public static FactorTable compile(PricingRules rules) {
+        return compile(rules, DEFAULT.garage.factors.clone());
+    }
+
+    private static FactorTable compile(PricingRules rules, BigDecimal[] garageFactors) {
+        if (rules == null || rules.rules() == null) throw new IllegalArgumentException("no rules");
+        rules.rules().forEach(FactorTable::validate);
+
+        for (Rule rule : rules.rules()) {
+            if (rule.sector() == null) apply(rule, garageFactors);
+        }
+
+        Map<String, BigDecimal[]> sectorFactors = new HashMap<>();
+        for (Rule rule : rules.rules()) {
+            if (rule.sector() == null) continue;
+            apply(rule, sectorFactors.computeIfAbsent(rule.sector(), s -> garageFactors.clone()));
+        }
+
+        Map<String, Grid> sectors = new HashMap<>(sectorFactors.size() * 2);
+        sectorFactors.forEach((sector, factors) -> sectors.put(sector, grid(factors)));
+        return new FactorTable(grid(garageFactors), Map.copyOf(sectors));
+    }
+
+    public BigDecimal factor(String sector, int hour, BigDecimal ratio) {
+        return grid(sector).factors[hour * SLOTS + slot(ratio)];
+    }
+
+    public int basisPoints(String sector, int hour, BigDecimal ratio) {
+        return grid(sector).basisPoints[hour * SLOTS + slot(ratio)];
+    }
+
+    private Grid grid(String sector) {
+        if (sector == null) return garage;
+        Grid g = bySector.get(sector);
+        return g != null ? g : garage;
+    }
+
+    static int slot(BigDecimal ratio) {
+        long hundredths = PricingEngine.unscaled(ratio, 2);
+        if (hundredths != NOT_EXACT) return slot(hundredths, true);
+        BigDecimal percent = ratio.movePointRight(2);
+        if (percent.compareTo(HUNDRED) > 0) return SLOTS - 1;
+        BigDecimal whole = percent.setScale(0, RoundingMode.FLOOR);
+        return slot(whole.longValue(), percent.compareTo(whole) == 0);
+    }
+
+    private static int slot(long percent, boolean exact) {
+        if (percent < 0) return 0;
+        if (percent > 100) return SLOTS - 1;
+        return (int) (2 * percent + (exact ? 0 : 1));
+    }
+
+    private static void apply(Rule rule, BigDecimal[] factors) {
+        int from = rule.fromHour() == null ? 0 : rule.fromHour();
+        int to = rule.toHour() == null ? HOURS : rule.toHour();
+        int hours = Math.floorMod(to - from - 1, HOURS) + 1;
+        for (int i = 0; i < hours; i++) {
+            int hour = (from + i) % HOURS;
+            for (int s = 0; s < SLOTS; s++) {
+                factors[hour * SLOTS + s] = tierFactor(rule.tiers(), s);
+            }
+        }
+    }
+
+    /** slot 2p is exactly p%, slot 2p + 1 anything strictly between p% and (p + 1)% */
+    private static BigDecimal tierFactor(List<Tier> tiers, int slot) {
+        double percent = slot / 2 + (slot % 2 == 0 ? 0 : 0.5);
+        for (Tier tier : tiers) {
+            if (tier.below() != null && percent < tier.below()) return tier.factor();
+            if (tier.upTo() != null && percent <= tier.upTo()) return tier.factor();
+            if (tier.below() == null && tier.upTo() == null) return tier.factor();
+        }
+        throw new IllegalStateException("tiers without an unbounded last tier");
+    }
+
+    private static Grid grid(BigDecimal[] factors) {
+        int[] bps = new int[factors.length];
+        for (int i = 0; i < factors.length; i++) {
+            if (factors[i] == null) throw new IllegalArgumentException("rules leave hour " + (i / SLOTS) + " without a factor");
+            bps[i] = (int) PricingEngine.basisPoints(factors[i]);
+        }
+        return new Grid(factors, bps);
+    }
+
+    private static void validate(Rule rule) {
+        String where = rule.sector() == null ? "garage rule" : "rule for sector " + rule.sector();
+        if (rule.fromHour() != null && (rule.fromHour() < 0 || rule.fromHour() > 23)
+                || rule.toHour() != null && (rule.toHour() < 0 || rule.toHour() > 24)) {
+            throw new IllegalArgumentException(where + ": hours must be within 0..24");
+        }
+        if (rule.fromHour() != null && rule.fromHour().equals(rule.toHour())) {
+            throw new IllegalArgumentException(where + ": empty hour range");
+        }
+        List<Tier> tiers = rule.tiers();
+        if (tiers == null || tiers.isEmpty()) throw new IllegalArgumentException(where + ": no tiers");
+        int previous = -1;
+        for (int i = 0; i < tiers.size(); i++) {
+            Tier tier = tiers.get(i);
+            boolean last = i == tiers.size() - 1;
+            if (tier.factor() == null || tier.factor().signum() <= 0 || tier.factor().compareTo(MAX_FACTOR) > 0
+                    || tier.factor().stripTrailingZeros().scale() > 2) {
+                throw new IllegalArgumentException(where + ": factor must be in (0, 999.99] with at most 2 decimals");
+            }
+            if (tier.below() != null && tier.upTo() != null) {
+                throw new IllegalArgumentException(where + ": a tier has either 'below' or 'upTo'");
+            }
+            Integer bound = tier.below() != null ? tier.below() : tier.upTo();
+            if (last != (bound == null)) {
+                throw new IllegalArgumentException(where + ": only the last tier is unbounded");
+            }
+            if (bound != null) {
+                if (bound < 0 || bound > 100 || bound < previous) {
+                    throw new IllegalArgumentException(where + ": tier bounds must be ascending percents");
+                }
+                previous = bound;
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.estapar.parking_system.domain.service;
 
-import com.estapar.parking_system.domain.entity.SectorEntity;
-import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
 import lombok.AllArgsConstructor;
 
@@ -11,7 +9,7 @@ import java.math.RoundingMode;
 @AllArgsConstructor
 public class OccupancyService {
         private final SpotRepository spotRepository;
-        private final SectorRepository sectorRepository;
+        private final SectorRegistry sectors;
 
 
         /** Total capacity (all physical spaces) */
@@ -32,11 +30,13 @@ public class OccupancyService {
                     .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
         }
 
+        /** Places taken in one sector */
+        public long takenInSector(Long sectorId) {
+            return spotRepository.countOccupiedInSector(sectorId);
+        }
+
         /** Sector full when vacancies taken in the sector >= maxCapacity of the sector */
         public boolean isSectorFull(Long sectorId) {
-            long taken = spotRepository.countOccupiedInSector(sectorId);
-            int max = sectorRepository.findById(sectorId)
-                    .map(SectorEntity::getMaxCapacity).orElse(0);
-            return taken >= max;
+            return takenInSector(sectorId) >= sectors.maxCapacity(sectorId);
         }
 }
@@ -0,0 +1,73 @@
+package com.estapar.parking_system.domain.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Pricing on plain integers: money in cents, factors in basis points (1.10 = 11_000).
+ * {@code cents * bps * hours} is exact, so rounding it HALF_UP to cents gives the same
+ * value as the BigDecimal formula. Values that do not fit (more than two decimals in the
+ * price, more than four in the factor, or a product beyond a long) report {@link #NOT_EXACT}
+ * and the caller falls back to BigDecimal.
+ */
+public final class PricingEngine {
+    private PricingEngine() {}
+
+    public static final long NOT_EXACT = Long.MIN_VALUE;
+    public static final long GRACE_MINUTES = 30;
+
+    private static final long BPS_TIMES_CENTS_PER_CENT = 10_000;
+
+    /** Charge in cents; 0 inside the grace period, otherwise every started hour is billed */
+    public static long hourlyChargeCents(long baseCents, long factorBps, long minutes) {
+        if (minutes <= GRACE_MINUTES) return 0;
+        long hours = (minutes + 59) / 60;
+        long raw = multiply(multiply(baseCents, factorBps), hours);
+        if (raw == NOT_EXACT) return NOT_EXACT;
+        return roundHalfUp(raw, BPS_TIMES_CENTS_PER_CENT);
+    }
+
+    public static long cents(BigDecimal amount) {
+        return unscaled(amount, 2);
+    }
+
+    public static long basisPoints(BigDecimal factor) {
+        return unscaled(factor, 4);
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static final double[] POW10 = {1, 10, 100, 1_000, 10_000};
+
+    /** value * 10^scale as a long, or NOT_EXACT when that is not an integer or does not fit */
+    static long unscaled(BigDecimal value, int scale) {
+        if (value.scale() >= 0 && value.scale() <= scale && value.precision() - value.scale() + scale <= 15) {
+            // the column values: the result has at most 15 digits, so |result| < 10^15 < 2^50;
+            // doubleValue() is correctly rounded and rounding back lands on the exact integer
+            // without allocating anything
+            return Math.round(value.doubleValue() * POW10[scale]);
+        }
+        if (value.scale() > scale) {
+            value = value.stripTrailingZeros();
+            if (value.scale() > scale) return NOT_EXACT;
+        }
+        if (value.precision() - value.scale() + scale > 18) return NOT_EXACT;
+        return value.movePointRight(scale).longValue();
+    }
+
+    private static long multiply(long a, long b) {
+        if (a == NOT_EXACT || b == NOT_EXACT) return NOT_EXACT;
+        long lo = a * b;
+        long hi = Math.multiplyHigh(a, b);
+        if (hi != (lo >> 63) || lo == NOT_EXACT) return NOT_EXACT;
+        return lo;
+    }
+
+    private static long roundHalfUp(long value, long divisor) {
+        long q = value / divisor;
+        long r = value % divisor;
+        if (Math.abs(r) * 2 >= divisor) q += Long.signum(value);
+        return q;
+    }
+}
@@ -0,0 +1,29 @@
+package com.estapar.parking_system.domain.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Price factor rules as written in the rules file. A rule without sector applies to the whole
+ * garage, a rule without hours to the whole day ({@code fromHour} inclusive, {@code toHour}
+ * exclusive, wrapping past midnight when {@code fromHour > toHour}). Later rules win over
+ * earlier ones, sector rules over garage rules.
+ * <p>
+ * Tiers are checked in order against the occupancy percent: {@code below} is exclusive,
+ * {@code upTo} inclusive, and the last tier has no bound.
+ */
+public record PricingRules(List<Rule> rules) {
+
+    public record Rule(String sector, Integer fromHour, Integer toHour, List<Tier> tiers) {}
+
+    public record Tier(Integer below, Integer upTo, BigDecimal factor) {}
+
+    /** The original occupancy tiers: below 25% 0.90, up to 50% 1, up to 75% 1.10, else 1.25 */
+    public static PricingRules defaults() {
+        return new PricingRules(List.of(new Rule(null, null, null, List.of(
+                new Tier(25, null, new BigDecimal("0.90")),
+                new Tier(null, 50, BigDecimal.ONE),
+                new Tier(null, 75, new BigDecimal("1.10")),
+                new Tier(null, null, new BigDecimal("1.25"))))));
+    }
+}
@@ -5,6 +5,12 @@ import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.Instant;
 
+import static com.estapar.parking_system.domain.service.PricingEngine.NOT_EXACT;
+
+/**
+ * BigDecimal facade over {@link PricingEngine}: the entity values are converted to cents and
+ * basis points, priced on longs and turned back into a scale-2 amount.
+ */
 public class PricingService {
     public BigDecimal hourlyCharge(BigDecimal basePrice,
                                    BigDecimal factor,
@@ -12,7 +18,11 @@ public class PricingService {
                                    Instant exit) {
         long minutes = Math.max(0, Duration.between(entry, exit).toMinutes());
 
-        if(minutes <= 30) return BigDecimal.ZERO;
+        if (minutes <= PricingEngine.GRACE_MINUTES) return BigDecimal.ZERO;
+
+        long charged = PricingEngine.hourlyChargeCents(
+                PricingEngine.cents(basePrice), PricingEngine.basisPoints(factor), minutes);
+        if (charged != NOT_EXACT) return PricingEngine.fromCents(charged);
 
         return basePrice.multiply(factor)
                 .multiply(BigDecimal.valueOf((long) Math.ceil(minutes/60.0)))
@@ -0,0 +1,111 @@
+package com.estapar.parking_system.domain.service;
+
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sector metadata held in memory, so ENTRY and EXIT do not go to the database for rows that
+ * only change on a garage sync. Each load builds an immutable snapshot (by id, by code, the
+ * minimum base price and the total capacity) and publishes it with one volatile write.
+ */
+@Slf4j
+public class SectorRegistry {
+
+    public record SectorInfo(Long id, String code, BigDecimal basePrice, int maxCapacity,
+                             String openHour, String closeHour, Integer durationLimitMinutes) {
+
+        public static SectorInfo of(SectorEntity e) {
+            return new SectorInfo(e.getId(), e.getCode(), e.getBasePrice(),
+                    e.getMaxCapacity() == null ? 0 : e.getMaxCapacity(),
+                    e.getOpenHour(), e.getCloseHour(), e.getDurationLimitMinutes());
+        }
+    }
+
+    private record Snapshot(List<SectorInfo> ordered, Map<Long, SectorInfo> byId,
+                            Map<String, SectorInfo> byCode, BigDecimal minBasePrice, long totalCapacity) {}
+
+    private final SectorRepository sectorRepository;
+
+    private volatile Snapshot snapshot;
+
+    public SectorRegistry(SectorRepository sectorRepository) {
+        this.sectorRepository = sectorRepository;
+    }
+
+    /** Sectors ordered by id */
+    public List<SectorInfo> all() {
+        return loaded().ordered;
+    }
+
+    public Optional<SectorInfo> byId(Long id) {
+        return Optional.ofNullable(id == null ? null : loaded().byId.get(id));
+    }
+
+    /** Case-insensitive, like the sector table's collation: "a" finds the stored "A" */
+    public Optional<SectorInfo> byCode(String code) {
+        return Optional.ofNullable(code == null ? null : loaded().byCode.get(fold(code)));
+    }
+
+    /** Capacity of the sector, 0 when it is unknown */
+    public int maxCapacity(Long sectorId) {
+        SectorInfo sector = sectorId == null ? null : loaded().byId.get(sectorId);
+        return sector == null ? 0 : sector.maxCapacity();
+    }
+
+    /** Lowest base price among the sectors, or null when none has one */
+    public BigDecimal minBasePrice() {
+        return loaded().minBasePrice;
+    }
+
+    public long totalCapacity() {
+        return loaded().totalCapacity;
+    }
+
+    /** Rebuild from the sector table */
+    public synchronized void reload() {
+        replace(sectorRepository.findAll().stream().map(SectorInfo::of).toList());
+    }
+
+    /** Swap in a layout the caller already has at hand (e.g. the rows a garage sync just wrote) */
+    public synchronized void replace(List<SectorInfo> sectors) {
+        List<SectorInfo> ordered = new ArrayList<>(sectors);
+        ordered.sort(Comparator.comparing(SectorInfo::id));
+        Map<Long, SectorInfo> byId = new HashMap<>(ordered.size() * 2);
+        Map<String, SectorInfo> byCode = new HashMap<>(ordered.size() * 2);
+        BigDecimal minBase = null;
+        long capacity = 0;
+        for (SectorInfo sector : ordered) {
+            byId.put(sector.id(), sector);
+            if (sector.code() != null) byCode.put(fold(sector.code()), sector);
+            if (sector.basePrice() != null && (minBase == null || sector.basePrice().compareTo(minBase) < 0)) {
+                minBase = sector.basePrice();
+            }
+            capacity += sector.maxCapacity();
+        }
+        snapshot = new Snapshot(List.copyOf(ordered), Map.copyOf(byId), Map.copyOf(byCode), minBase, capacity);
+        log.info("sector registry loaded: sectors={}, capacity={}", ordered.size(), capacity);
+    }
+
+    private static String fold(String code) {
+        return code.toUpperCase(Locale.ROOT);
+    }
+
+    private Snapshot loaded() {
+        Snapshot current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) reload();
+            return snapshot;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.estapar.parking_system.infrastructure.bootstrap;
 
-import com.estapar.parking_system.api.dto.GarageDtos.GarageResponse;
+import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.infrastructure.client.GarageClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,16 +15,31 @@ public class GarageBootstrap {
 
     @Bean
     @ConditionalOnProperty(prefix = "app.bootstrap", name = "enabled", havingValue = "true", matchIfMissing = true)
-    ApplicationRunner bootstrapGarage(GarageClient client, GarageSynchronizer sync) {
+    ApplicationRunner bootstrapGarage(GarageClient client, GarageResync resync, GarageSnapshot snapshot,
+                                      GarageSynchronizer sync, SectorRepository sectors) {
         return args -> {
-            log.info("Fetching garage from simulator at {}", client.getBaseUrl());
-            try {
-                GarageResponse res = client.fetchGarage();
-                sync.sync(res);
-                log.info("Garage sync completed.");
-            } catch (Exception e) {
-                log.warn("Garage sync skipped: simulator unavailable or invalid response. Base={}", client.getBaseUrl(), e);
+            var loaded = snapshot.open();
+            if (loaded.isPresent()) {
+                try {
+                    // the layout already in the shared database may be newer than this node's
+                    // snapshot (rolling deploy): only an empty database gets the snapshot
+                    if (sectors.count() == 0) {
+                        sync.sync(loaded.get().source());
+                        log.info("Garage loaded from snapshot (sectors={}, spots={})",
+                                loaded.get().sectors(), loaded.get().spots());
+                    } else {
+                        log.info("Garage already in the database, snapshot not applied");
+                    }
+                    resync.resumeFrom(loaded.get().sha256());
+                    log.info("Reconciling garage with simulator at {} in background", client.getBaseUrl());
+                    resync.startInBackground();
+                    return;
+                } catch (RuntimeException ex) {
+                    log.warn("Garage snapshot could not be applied, falling back to the simulator", ex);
+                }
             }
+            log.info("Fetching garage from simulator at {}", client.getBaseUrl());
+            resync.start();
         };
     }
 }
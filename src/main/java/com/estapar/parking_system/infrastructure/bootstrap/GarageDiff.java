@@ -0,0 +1,90 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares the simulator layout with the rows already stored and keeps only what has to be
+ * written. Decimals are compared at the column scale, the way MySQL would store them, so
+ * {@code 10.5} and {@code 10.50} are the same price. Rows missing from the response are left
+ * alone, as before. Duplicates in the response: the last one wins.
+ */
+final class GarageDiff {
+    private GarageDiff() {}
+
+    record SectorRow(Long id, String code, BigDecimal basePrice, Integer maxCapacity,
+                     String openHour, String closeHour, Integer durationLimitMinutes) {}
+
+    record SpotRow(long id, long sectorId, BigDecimal lat, BigDecimal lng) {}
+
+    record Changes<T>(List<T> inserts, List<T> updates, int unchanged) {
+        SyncReport.Counts counts() { return new SyncReport.Counts(inserts.size(), updates.size(), unchanged); }
+    }
+
+    static Changes<SectorRow> sectors(Map<String, SectorRow> existing, Collection<SectorDto> incoming) {
+        Map<String, SectorDto> byCode = new LinkedHashMap<>();
+        incoming.forEach(dto -> byCode.put(dto.sector(), dto));
+
+        List<SectorRow> inserts = new ArrayList<>();
+        List<SectorRow> updates = new ArrayList<>();
+        int unchanged = 0;
+        for (SectorDto dto : byCode.values()) {
+            SectorRow current = existing.get(dto.sector());
+            SectorRow wanted = new SectorRow(current == null ? null : current.id(), dto.sector(),
+                    scaled(dto.basePrice(), 2), dto.maxCapacity(), dto.openHour(), dto.closeHour(), dto.durationLimitMinutes());
+            if (current == null) inserts.add(wanted);
+            else if (!sameSector(current, wanted)) updates.add(wanted);
+            else unchanged++;
+        }
+        return new Changes<>(inserts, updates, unchanged);
+    }
+
+    /** @throws IllegalStateException when a spot names a sector that does not exist */
+    static Changes<SpotRow> spots(Map<Long, SpotRow> existing, Collection<SpotDto> incoming, Map<String, Long> sectorIds) {
+        Map<Long, SpotDto> byId = new LinkedHashMap<>(incoming.size() * 2);
+        incoming.forEach(dto -> byId.put(dto.id(), dto));
+
+        List<SpotRow> inserts = new ArrayList<>();
+        List<SpotRow> updates = new ArrayList<>();
+        int unchanged = 0;
+        for (SpotDto dto : byId.values()) {
+            Long sectorId = sectorIds.get(dto.sector());
+            if (sectorId == null) throw new IllegalStateException("Sector not found: " + dto.sector());
+            SpotRow wanted = new SpotRow(dto.id(), sectorId, scaled(dto.lat(), 6), scaled(dto.lng(), 6));
+            SpotRow current = existing.get(dto.id());
+            if (current == null) inserts.add(wanted);
+            else if (!sameSpot(current, wanted)) updates.add(wanted);
+            else unchanged++;
+        }
+        return new Changes<>(inserts, updates, unchanged);
+    }
+
+    private static boolean sameSector(SectorRow a, SectorRow b) {
+        return sameDecimal(a.basePrice(), b.basePrice())
+                && Objects.equals(a.maxCapacity(), b.maxCapacity())
+                && Objects.equals(a.openHour(), b.openHour())
+                && Objects.equals(a.closeHour(), b.closeHour())
+                && Objects.equals(a.durationLimitMinutes(), b.durationLimitMinutes());
+    }
+
+    private static boolean sameSpot(SpotRow a, SpotRow b) {
+        return a.sectorId() == b.sectorId() && sameDecimal(a.lat(), b.lat()) && sameDecimal(a.lng(), b.lng());
+    }
+
+    private static boolean sameDecimal(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static BigDecimal scaled(BigDecimal value, int scale) {
+        return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,151 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.infrastructure.client.GarageClient;
+import com.estapar.parking_system.infrastructure.client.GarageClient.GarageDownload;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Keeps sector/spot in line with the simulator. Each run downloads /garage (conditional on the
+ * last ETag), skips it when the SHA-256 matches the last applied payload, and otherwise runs the
+ * diff sync, which writes only changed rows; the in-memory indexes are rebuilt and swapped only
+ * when something was written. Every applied payload is also saved as a {@link GarageSnapshot}.
+ * With {@code app.garage.resync.enabled} the next run is scheduled after {@code interval}, or
+ * after an exponential backoff while the simulator is unreachable.
+ */
+@Component
+@Slf4j
+public class GarageResync {
+
+    public enum Outcome { APPLIED, UNCHANGED, FAILED }
+
+    private final GarageClient client;
+    private final GarageSynchronizer synchronizer;
+    private final GarageSnapshot snapshot;
+    private final TaskScheduler scheduler;
+    private final Duration interval;
+    private final Duration backoffInitial;
+    private final Duration backoffMax;
+
+    private String appliedSha;
+    private String appliedEtag;
+    private int failures;
+    private ScheduledFuture<?> next;
+    private volatile boolean stopped;
+
+    GarageResync(GarageClient client,
+                 GarageSynchronizer synchronizer,
+                 GarageSnapshot snapshot,
+                 ObjectProvider<TaskScheduler> scheduler,
+                 @Value("${app.garage.resync.enabled:false}") boolean enabled,
+                 @Value("${app.garage.resync.interval:PT5M}") Duration interval,
+                 @Value("${app.garage.resync.backoff-initial:PT5S}") Duration backoffInitial,
+                 @Value("${app.garage.resync.backoff-max:PT5M}") Duration backoffMax) {
+        this.client = client;
+        this.synchronizer = synchronizer;
+        this.snapshot = snapshot;
+        this.scheduler = enabled ? scheduler.getIfAvailable() : null;
+        this.interval = interval;
+        this.backoffInitial = backoffInitial;
+        this.backoffMax = backoffMax;
+    }
+
+    /** First sync at boot; from here on it reschedules itself when resync is enabled */
+    public void start() {
+        if (scheduler == null) {
+            runOnce();
+            return;
+        }
+        runAndReschedule();
+    }
+
+    /**
+     * Boot from a snapshot: the layout in it is already applied, so the first run against the
+     * simulator happens in the background and skips the sync when the payload did not change.
+     */
+    public synchronized void resumeFrom(String snapshotSha) {
+        appliedSha = snapshotSha;
+    }
+
+    public void startInBackground() {
+        if (scheduler == null) {
+            Thread.ofVirtual().name("garage-resync").start(this::runOnce);
+            return;
+        }
+        synchronized (this) {
+            if (!stopped) next = scheduler.schedule(this::runAndReschedule, Instant.now());
+        }
+    }
+
+    public synchronized Outcome runOnce() {
+        GarageDownload download = null;
+        try {
+            download = client.download(appliedEtag);
+            if (download == null) {
+                log.debug("Garage resync: not modified (etag)");
+                return succeeded(Outcome.UNCHANGED);
+            }
+            if (download.sha256().equals(appliedSha)) {
+                log.debug("Garage resync: payload unchanged (sha256)");
+                return succeeded(Outcome.UNCHANGED);
+            }
+            SyncReport report = synchronizer.sync(client.source(download));
+            appliedSha = download.sha256();
+            appliedEtag = download.etag();
+            snapshot.write(download.sha256(), client.source(download));
+            return succeeded(report.changed() ? Outcome.APPLIED : Outcome.UNCHANGED);
+        } catch (RuntimeException ex) {
+            failures++;
+            log.warn("Garage sync skipped: simulator unavailable or invalid response. Base={} (attempt {})",
+                    client.getBaseUrl(), failures, ex);
+            return Outcome.FAILED;
+        } finally {
+            if (download != null) deleteQuietly(download);
+        }
+    }
+
+    /** backoffInitial * 2^(failures - 1), capped at backoffMax */
+    Duration nextDelay(Outcome outcome) {
+        if (outcome != Outcome.FAILED) return interval;
+        int doublings = Math.min(failures - 1, 30);
+        Duration delay = backoffInitial.multipliedBy(1L << doublings);
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        stopped = true;
+        if (next != null) next.cancel(false);
+    }
+
+    private void runAndReschedule() {
+        if (stopped) return;
+        Duration delay = nextDelay(runOnce());
+        synchronized (this) {
+            if (!stopped) next = scheduler.schedule(this::runAndReschedule, Instant.now().plus(delay));
+        }
+    }
+
+    private Outcome succeeded(Outcome outcome) {
+        failures = 0;
+        return outcome;
+    }
+
+    private static void deleteQuietly(GarageDownload download) {
+        try {
+            Files.deleteIfExists(download.file());
+        } catch (IOException ex) {
+            log.debug("could not delete {}", download.file(), ex);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.estapar.parking_system.infrastructure.client.GarageHandler;
+import com.estapar.parking_system.infrastructure.client.GarageSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The last applied simulator layout as a compact binary file, so a restart can serve from
+ * the database right away and reconcile with the simulator later.
+ * <p>
+ * Layout (big endian): magic, version, payload sha-256, sectors, spots, spot count, CRC32C of
+ * everything before it. Spots are 20 bytes: id, sector index, lat/lng in micro-degrees (the
+ * column scale). The file is written next to its final name and moved into place, and read
+ * through a memory map; a bad magic, version or checksum means there is no snapshot.
+ */
+@Component
+@Slf4j
+public class GarageSnapshot {
+
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 1;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int TRAILER = 8;
+
+    private final Path path;
+    private final boolean enabled;
+
+    GarageSnapshot(@Value("${app.garage.snapshot.path:./data/garage.snapshot}") Path path,
+                   @Value("${app.garage.snapshot.enabled:true}") boolean enabled) {
+        this.path = path;
+        this.enabled = enabled;
+    }
+
+    /** A verified snapshot: the sha-256 of the payload it came from, and its contents as a source */
+    public record Loaded(String sha256, int sectors, int spots, GarageSource source) {}
+
+    public Optional<Loaded> open() {
+        if (!enabled || !Files.isRegularFile(path)) return Optional.empty();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return verify(map);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("garage snapshot {} ignored: {}", path, ex.toString());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Loaded> verify(ByteBuffer map) {
+        int size = map.limit();
+        if (size < 4 + 4 + 32 + 4 + TRAILER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            log.warn("garage snapshot {} ignored: not a version {} snapshot", path, VERSION);
+            return Optional.empty();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(0, size - 4));
+        if ((int) crc.getValue() != map.getInt(size - 4)) {
+            log.warn("garage snapshot {} ignored: checksum mismatch", path);
+            return Optional.empty();
+        }
+        byte[] sha = new byte[32];
+        map.get(8, sha);
+        int spots = map.getInt(size - TRAILER);
+        int sectors = map.getInt(40);
+        ByteBuffer body = map.slice(44, size - TRAILER - 44);
+        return Optional.of(new Loaded(HexFormat.of().formatHex(sha), sectors, spots,
+                (chunkSize, handler) -> decode(body.duplicate(), sectors, spots, chunkSize, handler)));
+    }
+
+    private static void decode(ByteBuffer in, int sectorCount, int spotCount, int chunkSize, GarageHandler handler) {
+        List<SectorDto> sectors = new ArrayList<>(sectorCount);
+        for (int i = 0; i < sectorCount; i++) {
+            sectors.add(new SectorDto(readString(in), readDecimal(in), readInt(in),
+                    readString(in), readString(in), readInt(in)));
+        }
+        handler.onSectors(sectors);
+
+        List<SpotDto> chunk = new ArrayList<>(Math.min(chunkSize, spotCount));
+        for (int i = 0; i < spotCount; i++) {
+            long id = in.getLong();
+            String sector = sectors.get(in.getInt()).sector();
+            chunk.add(new SpotDto(id, sector, micros(in.getInt()), micros(in.getInt()), null));
+            if (chunk.size() == chunkSize) {
+                handler.onSpots(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) handler.onSpots(chunk);
+    }
+
+    /** Writes the layout from {@code source} and swaps it in; failures only cost the next fast boot */
+    public void write(String sha256, GarageSource source) {
+        if (!enabled) return;
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            try (var checked = new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), new CRC32C());
+                 var out = new DataOutputStream(checked)) {
+                var writer = new Writer(out);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(HexFormat.of().parseHex(sha256));
+                source.read(1_000, writer);
+                out.writeInt(writer.spots);
+                out.flush();
+                out.writeInt((int) checked.getChecksum().getValue());
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("garage snapshot written to {}", path);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("garage snapshot not written to {}: {}", path, ex.toString());
+            try { Files.deleteIfExists(tmp); } catch (IOException ignore) { }
+        }
+    }
+
+    private static final class Writer implements GarageHandler {
+        private final DataOutputStream out;
+        private final Map<String, Integer> sectorIndex = new HashMap<>();
+        private int spots;
+
+        Writer(DataOutputStream out) { this.out = out; }
+
+        @Override
+        public void onSectors(List<SectorDto> sectors) {
+            try {
+                out.writeInt(sectors.size());
+                for (SectorDto s : sectors) {
+                    sectorIndex.put(s.sector(), sectorIndex.size());
+                    writeString(out, s.sector());
+                    writeDecimal(out, s.basePrice());
+                    out.writeInt(s.maxCapacity() == null ? NULL_INT : s.maxCapacity());
+                    writeString(out, s.openHour());
+                    writeString(out, s.closeHour());
+                    out.writeInt(s.durationLimitMinutes() == null ? NULL_INT : s.durationLimitMinutes());
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void onSpots(List<SpotDto> chunk) {
+            try {
+                for (SpotDto s : chunk) {
+                    Integer sector = sectorIndex.get(s.sector());
+                    if (sector == null) throw new IllegalStateException("Sector not found: " + s.sector());
+                    out.writeLong(s.id());
+                    out.writeInt(sector);
+                    out.writeInt(toMicros(s.lat()));
+                    out.writeInt(toMicros(s.lng()));
+                    spots++;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) { out.writeInt(-1); return; }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) return null;
+        byte[] bytes = new byte[len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** flag, scale, unscaled value; base_price is DECIMAL(10,2) so the unscaled value fits a long */
+    private static void writeDecimal(DataOutputStream out, BigDecimal v) throws IOException {
+        if (v == null) { out.writeByte(0); return; }
+        out.writeByte(1);
+        out.writeInt(v.scale());
+        out.writeLong(v.unscaledValue().longValueExact());
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        int scale = in.getInt();
+        return BigDecimal.valueOf(in.getLong(), scale);
+    }
+
+    private static Integer readInt(ByteBuffer in) {
+        int v = in.getInt();
+        return v == NULL_INT ? null : v;
+    }
+
+    private static int toMicros(BigDecimal degrees) {
+        return degrees == null ? NULL_INT : degrees.setScale(6, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+    }
+
+    private static BigDecimal micros(int v) {
+        return v == NULL_INT ? null : BigDecimal.valueOf(v, 6);
+    }
+}
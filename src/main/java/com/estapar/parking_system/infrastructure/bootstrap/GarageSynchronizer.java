@@ -1,53 +1,202 @@
 package com.estapar.parking_system.infrastructure.bootstrap;
 
-import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
-import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
 import com.estapar.parking_system.api.dto.GarageDtos.GarageResponse;
-import com.estapar.parking_system.domain.entity.SectorEntity;
-import com.estapar.parking_system.domain.entity.SpotEntity;
-import com.estapar.parking_system.domain.repository.SectorRepository;
-import com.estapar.parking_system.domain.repository.SpotRepository;
-import lombok.AllArgsConstructor;
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.estapar.parking_system.domain.events.GarageSyncedEvent;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageDiff.Changes;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageDiff.SectorRow;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageDiff.SpotRow;
+import com.estapar.parking_system.infrastructure.client.GarageHandler;
+import com.estapar.parking_system.infrastructure.client.GarageSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Writes the simulator layout into sector/spot. The sector table, then the stored rows of each
+ * chunk of spots, are diffed against the payload and only new or changed rows are written, in
+ * JDBC batches of {@code app.garage.sync.batch-size} (add {@code rewriteBatchedStatements=true}
+ * to the MySQL URL so a batch is one multi-row statement).
+ */
 @Service
-@AllArgsConstructor
 public class GarageSynchronizer {
     private static final Logger log = LoggerFactory.getLogger(GarageSynchronizer.class);
 
-    private final SectorRepository sectorRepo;
-    private final SpotRepository spotRepo;
-    private final GarageMapper mapper;
+    private static final String SELECT_SECTORS =
+            "SELECT id, code, base_price, max_capacity, open_hour, close_hour, duration_limit_minutes FROM sector";
+    private static final String INSERT_SECTOR =
+            "INSERT INTO sector (code, base_price, max_capacity, open_hour, close_hour, duration_limit_minutes) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SECTOR =
+            "UPDATE sector SET base_price = ?, max_capacity = ?, open_hour = ?, close_hour = ?, duration_limit_minutes = ? WHERE id = ?";
+    private static final String INSERT_SPOT = "INSERT INTO spot (id, sector_id, lat, lng) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_SPOT = "UPDATE spot SET sector_id = ?, lat = ?, lng = ? WHERE id = ?";
 
-    @Transactional
-    public void sync(GarageResponse response){
-        response.garage().forEach(this::upsertSector);
-        response.spots().forEach(this::upsertSpot);
-        log.info("Garage sync completed: sectors={}, spots={}", sectorRepo.count(), spotRepo.count());
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+    private final SectorRegistry sectorRegistry;
+    private final int batchSize;
+
+    public GarageSynchronizer(JdbcTemplate jdbc,
+                              ApplicationEventPublisher events,
+                              SectorRegistry sectorRegistry,
+                              @Value("${app.garage.sync.batch-size:1000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.events = events;
+        this.sectorRegistry = sectorRegistry;
+        this.batchSize = Math.max(1, batchSize);
     }
 
-    private void upsertSector(SectorDto dto){
-        //TODO: creat a 404 exception and use exception handler
-        SectorEntity entity = sectorRepo.findByCode(dto.sector()).orElseGet(SectorEntity::new);
-        mapper.applyToEntity(dto, entity);
+    @Transactional
+    public SyncReport sync(GarageResponse response){
+        Session session = new Session();
+        session.onSectors(response.garage());
+        List<SpotDto> spots = response.spots();
+        for (int from = 0; from < spots.size(); from += batchSize) {
+            session.onSpots(spots.subList(from, Math.min(spots.size(), from + batchSize)));
+        }
+        return session.finish();
+    }
 
-        sectorRepo.save(entity);
+    /** Streams the layout from a source; memory is bounded by one chunk of spots */
+    @Transactional
+    public SyncReport sync(GarageSource source){
+        Session session = new Session();
+        try {
+            source.read(batchSize, session);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("garage payload could not be read", ex);
+        }
+        return session.finish();
     }
 
-    private void upsertSpot(SpotDto dto){
-        //TODO: creat a 404 exception and use exception handler
-        SectorEntity sector = sectorRepo.findByCode(dto.sector())
-                .orElseThrow(() -> new IllegalStateException("Sector not found: " + dto.sector()));
+    /** One sync: sectors are written first, then each spot chunk is diffed and written */
+    private final class Session implements GarageHandler {
+        private final long started = System.nanoTime();
+        private Map<String, Long> sectorIds;
+        private List<SectorInfo> layout;
+        private SyncReport.Counts sectorCounts = new SyncReport.Counts(0, 0, 0);
+        private int spotsInserted;
+        private int spotsUpdated;
+        private int spotsUnchanged;
+
+        @Override
+        public void onSectors(List<SectorDto> dtos) {
+            Map<String, SectorRow> sectors = loadSectors();
+            Changes<SectorRow> changes = GarageDiff.sectors(sectors, dtos);
+            jdbc.batchUpdate(INSERT_SECTOR, changes.inserts(), batchSize, (ps, s) -> {
+                ps.setString(1, s.code());
+                ps.setBigDecimal(2, s.basePrice());
+                ps.setObject(3, s.maxCapacity());
+                ps.setString(4, s.openHour());
+                ps.setString(5, s.closeHour());
+                ps.setObject(6, s.durationLimitMinutes());
+            });
+            jdbc.batchUpdate(UPDATE_SECTOR, changes.updates(), batchSize, (ps, s) -> {
+                ps.setBigDecimal(1, s.basePrice());
+                ps.setObject(2, s.maxCapacity());
+                ps.setString(3, s.openHour());
+                ps.setString(4, s.closeHour());
+                ps.setObject(5, s.durationLimitMinutes());
+                ps.setLong(6, s.id());
+            });
+            if (!changes.inserts().isEmpty()) sectors = loadSectors();
+
+            sectorIds = new HashMap<>(sectors.size() * 2);
+            sectors.values().forEach(s -> sectorIds.put(s.code(), s.id()));
+            layout = sectors.values().stream().map(s -> new SectorInfo(s.id(), s.code(), s.basePrice(),
+                    s.maxCapacity(), s.openHour(), s.closeHour(), s.durationLimitMinutes())).toList();
+            sectorCounts = changes.counts();
+        }
+
+        @Override
+        public void onSpots(List<SpotDto> chunk) {
+            if (sectorIds == null) onSectors(List.of());
+            Changes<SpotRow> changes = GarageDiff.spots(loadSpots(chunk), chunk, sectorIds);
+            jdbc.batchUpdate(INSERT_SPOT, changes.inserts(), batchSize, (ps, s) -> {
+                ps.setLong(1, s.id());
+                ps.setLong(2, s.sectorId());
+                ps.setBigDecimal(3, s.lat());
+                ps.setBigDecimal(4, s.lng());
+            });
+            jdbc.batchUpdate(UPDATE_SPOT, changes.updates(), batchSize, (ps, s) -> {
+                ps.setLong(1, s.sectorId());
+                ps.setBigDecimal(2, s.lat());
+                ps.setBigDecimal(3, s.lng());
+                ps.setLong(4, s.id());
+            });
+            spotsInserted += changes.inserts().size();
+            spotsUpdated += changes.updates().size();
+            spotsUnchanged += changes.unchanged();
+        }
 
-        SpotEntity spot = spotRepo.findById(dto.id())
-                .orElseGet(SpotEntity::new);
+        SyncReport finish() {
+            if (sectorIds == null) onSectors(List.of());
+            var report = new SyncReport(sectorCounts,
+                    new SyncReport.Counts(spotsInserted, spotsUpdated, spotsUnchanged),
+                    Duration.ofNanos(System.nanoTime() - started));
+            long totalSpots = jdbc.queryForObject("SELECT COUNT(*) FROM spot", Long.class);
+            log.info("Garage sync completed: sectors={}, spots={}, {}", sectorIds.size(), totalSpots, report);
+            // indexes and counters are rebuilt on this event; nothing to rebuild if nothing was written
+            if (report.changed()) {
+                // registered first so the registry is swapped before the event listeners reseed from it
+                List<SectorInfo> written = layout;
+                afterCommit(() -> sectorRegistry.replace(written));
+                events.publishEvent(new GarageSyncedEvent(sectorIds.size(), totalSpots));
+            }
+            return report;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        mapper.applyToEntity(dto, spot);
-        spot.setSector(sector);
+    private Map<String, SectorRow> loadSectors() {
+        List<SectorRow> rows = jdbc.query(SELECT_SECTORS, (rs, n) -> new SectorRow(
+                rs.getLong("id"), rs.getString("code"), rs.getBigDecimal("base_price"),
+                rs.getInt("max_capacity"), rs.getString("open_hour"), rs.getString("close_hour"),
+                rs.getInt("duration_limit_minutes")));
+        Map<String, SectorRow> byCode = new HashMap<>(rows.size() * 2);
+        rows.forEach(r -> byCode.put(r.code(), r));
+        return byCode;
+    }
 
-        spotRepo.save(spot);
+    /** the stored rows of just these spots, so memory follows the chunk, not the garage */
+    private Map<Long, SpotRow> loadSpots(List<SpotDto> chunk) {
+        Map<Long, SpotRow> byId = new HashMap<>(chunk.size() * 2);
+        if (chunk.isEmpty()) return byId;
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        Object[] ids = chunk.stream().map(SpotDto::id).toArray();
+        jdbc.query("SELECT id, sector_id, lat, lng FROM spot WHERE id IN (" + placeholders + ")", rs -> {
+            long id = rs.getLong("id");
+            byId.put(id, new SpotRow(id, rs.getLong("sector_id"), rs.getBigDecimal("lat"), rs.getBigDecimal("lng")));
+        }, ids);
+        return byId;
     }
 }
@@ -0,0 +1,22 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import java.time.Duration;
+
+/** Rows written by one garage sync; unchanged rows were compared but not touched */
+public record SyncReport(Counts sectors, Counts spots, Duration took) {
+
+    public record Counts(int inserted, int updated, int unchanged) {
+        public int total() { return inserted + updated + unchanged; }
+    }
+
+    public boolean changed() {
+        return sectors.inserted() + sectors.updated() + spots.inserted() + spots.updated() > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "sectors[" + sectors.inserted() + " inserted, " + sectors.updated() + " updated, " + sectors.unchanged() + " unchanged], "
+                + "spots[" + spots.inserted() + " inserted, " + spots.updated() + " updated, " + spots.unchanged() + " unchanged], "
+                + "took=" + took.toMillis() + "ms";
+    }
+}
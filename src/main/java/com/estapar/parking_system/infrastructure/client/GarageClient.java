@@ -1,20 +1,47 @@
 package com.estapar.parking_system.infrastructure.client;
 
 import com.estapar.parking_system.api.dto.GarageDtos.GarageResponse;
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
 @Component
 public class GarageClient {
     private final RestClient restClient;
+    private final ObjectMapper mapper;
+    private final ObjectReader sectorReader;
+    private final ObjectReader spotReader;
     @Getter
     private final String baseUrl;
 
-    public GarageClient(@Value("${simulator.base-url}") String baseUrl) {
+    public GarageClient(@Value("${simulator.base-url}") String baseUrl, ObjectMapper mapper) {
         this.baseUrl = baseUrl;
         this.restClient = RestClient.builder().baseUrl(baseUrl).build();
+        this.mapper = mapper;
+        // lenient like fetchGarage(): the simulator may add fields
+        this.sectorReader = mapper.readerFor(SectorDto.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.spotReader = mapper.readerFor(SpotDto.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
     public GarageResponse fetchGarage(){
@@ -24,4 +51,123 @@ public class GarageClient {
                 .body(GarageResponse.class);
     }
 
+    /**
+     * Same layout as {@link #fetchGarage()}, read token by token: only one chunk of spots
+     * is held in memory at a time.
+     */
+    public void streamGarage(int chunkSize, GarageHandler handler) {
+        restClient.get()
+                .uri("garage")
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new IllegalStateException("GET /garage returned " + response.getStatusCode());
+                    }
+                    read(response.getBody(), chunkSize, handler);
+                    return null;
+                });
+    }
+
+    /** A /garage body saved to disk, with its SHA-256 and the ETag the simulator sent, if any */
+    public record GarageDownload(Path file, String sha256, String etag) {}
+
+    /**
+     * Saves the /garage body to a temp file, hashing it on the way, so a resync can tell
+     * whether anything changed before touching the database. Sends {@code If-None-Match}
+     * when an ETag is known.
+     *
+     * @return null when the simulator answered 304 Not Modified
+     */
+    public GarageDownload download(String etag) {
+        return restClient.get()
+                .uri("garage")
+                .headers(h -> { if (etag != null) h.setIfNoneMatch(etag); })
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().value() == 304) return null;
+                    if (response.getStatusCode().isError()) {
+                        throw new IllegalStateException("GET /garage returned " + response.getStatusCode());
+                    }
+                    Path file = Files.createTempFile("garage-", ".json");
+                    try (var in = new DigestInputStream(response.getBody(), sha256())) {
+                        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                        return new GarageDownload(file, HexFormat.of().formatHex(in.getMessageDigest().digest()),
+                                response.getHeaders().getETag());
+                    } catch (IOException | RuntimeException ex) {
+                        Files.deleteIfExists(file);
+                        throw ex;
+                    }
+                });
+    }
+
+    /** Replays a download through the streaming parser */
+    public GarageSource source(GarageDownload download) {
+        return (chunkSize, handler) -> {
+            try (InputStream in = Files.newInputStream(download.file())) {
+                read(in, chunkSize, handler);
+            }
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sectors are handed over before any spot. The simulator sends "garage" first; if
+     * "spots" comes first it has to be buffered until the sectors are known.
+     */
+    void read(InputStream body, int chunkSize, GarageHandler handler) throws IOException {
+        try (JsonParser p = mapper.getFactory().createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new JsonParseException(p, "garage payload is not a JSON object");
+
+            boolean sectorsSent = false;
+            List<SpotDto> early = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("garage".equals(field) && value == JsonToken.START_ARRAY) {
+                    List<SectorDto> sectors = new ArrayList<>();
+                    while (p.nextToken() != JsonToken.END_ARRAY) sectors.add(sectorReader.readValue(p));
+                    handler.onSectors(sectors);
+                    sectorsSent = true;
+                    if (early != null) deliver(early, chunkSize, handler);
+                    early = null;
+                } else if ("spots".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (sectorsSent) {
+                        streamSpots(p, chunkSize, handler);
+                    } else {
+                        early = new ArrayList<>();
+                        while (p.nextToken() != JsonToken.END_ARRAY) early.add(spotReader.readValue(p));
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (!sectorsSent) {
+                handler.onSectors(List.of());
+                if (early != null) deliver(early, chunkSize, handler);
+            }
+        }
+    }
+
+    private void streamSpots(JsonParser p, int chunkSize, GarageHandler handler) throws IOException {
+        List<SpotDto> chunk = new ArrayList<>(chunkSize);
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            chunk.add(spotReader.readValue(p));
+            if (chunk.size() == chunkSize) {
+                handler.onSpots(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) handler.onSpots(chunk);
+    }
+
+    private static void deliver(List<SpotDto> spots, int chunkSize, GarageHandler handler) {
+        for (int from = 0; from < spots.size(); from += chunkSize) {
+            handler.onSpots(List.copyOf(spots.subList(from, Math.min(spots.size(), from + chunkSize))));
+        }
+    }
 }
@@ -0,0 +1,14 @@
+package com.estapar.parking_system.infrastructure.client;
+
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+
+import java.util.List;
+
+/** Receives a streamed garage layout: all sectors once, then the spots in chunks */
+public interface GarageHandler {
+
+    void onSectors(List<SectorDto> sectors);
+
+    void onSpots(List<SpotDto> chunk);
+}
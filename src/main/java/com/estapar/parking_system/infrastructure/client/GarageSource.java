@@ -0,0 +1,10 @@
+package com.estapar.parking_system.infrastructure.client;
+
+import java.io.IOException;
+
+/** Something that can replay a garage layout into a {@link GarageHandler} */
+@FunctionalInterface
+public interface GarageSource {
+
+    void read(int chunkSize, GarageHandler handler) throws IOException;
+}
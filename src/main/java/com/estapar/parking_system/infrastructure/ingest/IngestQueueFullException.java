@@ -0,0 +1,5 @@
+package com.estapar.parking_system.infrastructure.ingest;
+
+public class IngestQueueFullException extends RuntimeException {
+    public IngestQueueFullException(String message) { super(message); }
+}
@@ -0,0 +1,246 @@
+package com.estapar.parking_system.infrastructure.ingest;
+
+import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs webhook work off the request thread. Every plate hashes to one shard, and a shard is a
+ * bounded queue drained by a single worker, so events of the same plate keep their arrival
+ * order while different plates run in parallel.
+ * <p>
+ * A full shard blocks the caller for at most {@code offerTimeout} and then rejects with
+ * {@link IngestQueueFullException}. On shutdown new work is refused and the workers drain
+ * what is already queued, waiting up to {@code drainTimeout}.
+ * <p>
+ * A {@link TransientDataAccessException} (deadlock, lock wait timeout) is retried on the
+ * worker up to {@code maxAttempts} times before the next event of the shard runs, so plate
+ * order still holds. What still fails goes to a bounded dead-letter queue, counted in
+ * webhook.ingest.dead_letter; when it is full the oldest entry is dropped.
+ */
+@Slf4j
+public class PlateShardedExecutor implements SmartLifecycle {
+
+    private record Task(String plate, Runnable work, long enqueuedAt) {}
+
+    /** An event that failed for good, kept for inspection or a manual replay */
+    public record DeadLetter(String plate, Runnable work, RuntimeException failure, int attempts) {}
+
+    private final BlockingQueue<Task>[] shards;
+    private final Thread[] workers;
+    private final long offerTimeoutNanos;
+    private final Duration drainTimeout;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final BlockingQueue<DeadLetter> deadLetters;
+
+    private final Timer lag;
+    private final Counter rejected;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    private volatile boolean running;
+
+    public PlateShardedExecutor(int shardCount, int capacityPerShard,
+                                Duration offerTimeout, Duration drainTimeout,
+                                MeterRegistry meters) {
+        this(shardCount, capacityPerShard, offerTimeout, drainTimeout, 3, Duration.ofMillis(50), 1_000, meters);
+    }
+
+    @SuppressWarnings("unchecked")
+    public PlateShardedExecutor(int shardCount, int capacityPerShard,
+                                Duration offerTimeout, Duration drainTimeout,
+                                int maxAttempts, Duration retryBackoff, int deadLetterCapacity,
+                                MeterRegistry meters) {
+        if (shardCount < 1 || capacityPerShard < 1 || maxAttempts < 1 || deadLetterCapacity < 1) {
+            throw new IllegalArgumentException("shards, capacity, attempts and dead-letter capacity must be positive");
+        }
+        this.shards = new BlockingQueue[shardCount];
+        this.workers = new Thread[shardCount];
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.drainTimeout = drainTimeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoff.toMillis();
+        this.deadLetters = new ArrayBlockingQueue<>(deadLetterCapacity);
+
+        for (int i = 0; i < shardCount; i++) {
+            BlockingQueue<Task> queue = new ArrayBlockingQueue<>(capacityPerShard);
+            shards[i] = queue;
+            Gauge.builder("webhook.ingest.queue.depth", queue, BlockingQueue::size)
+                    .description("Webhook events waiting in a shard")
+                    .tag("shard", Integer.toString(i))
+                    .register(meters);
+        }
+        this.lag = Timer.builder("webhook.ingest.lag")
+                .description("Time between acknowledging a webhook and starting to process it")
+                .register(meters);
+        this.rejected = Counter.builder("webhook.ingest.rejected")
+                .description("Webhook events refused because the shard was full or shutting down")
+                .register(meters);
+        this.retried = Counter.builder("webhook.ingest.retried")
+                .description("Webhook event attempts repeated after a transient database failure")
+                .register(meters);
+        this.deadLettered = Counter.builder("webhook.ingest.dead_letter")
+                .description("Webhook events that failed for good and went to the dead-letter queue")
+                .register(meters);
+        Gauge.builder("webhook.ingest.dead_letter.depth", deadLetters, BlockingQueue::size)
+                .description("Failed webhook events waiting in the dead-letter queue")
+                .register(meters);
+    }
+
+    /** Queues the work behind everything already submitted for this plate */
+    public void submit(String plate, Runnable work) {
+        if (!running) {
+            rejected.increment();
+            throw new IngestQueueFullException("ingest pipeline is not running");
+        }
+        BlockingQueue<Task> shard = shards[shardOf(plate)];
+        boolean accepted;
+        try {
+            accepted = shard.offer(new Task(plate, work, System.nanoTime()), offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejected.increment();
+            throw new IngestQueueFullException("ingest queue full for plate " + plate);
+        }
+    }
+
+    int shardOf(String plate) {
+        int h = plate == null ? 0 : plate.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, shards.length);
+    }
+
+    /** Takes the failed events out of the dead-letter queue, oldest first */
+    public List<DeadLetter> drainDeadLetters() {
+        List<DeadLetter> drained = new ArrayList<>();
+        deadLetters.drainTo(drained);
+        return drained;
+    }
+
+    public int pending() {
+        int total = 0;
+        for (BlockingQueue<Task> shard : shards) total += shard.size();
+        return total;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            BlockingQueue<Task> shard = shards[i];
+            Thread t = new Thread(() -> drainLoop(shard), "webhook-ingest-" + i);
+            t.setDaemon(false);
+            workers[i] = t;
+            t.start();
+        }
+        log.info("webhook ingest pipeline started: shards={}", workers.length);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        for (Thread t : workers) {
+            long left = deadline - System.nanoTime();
+            try {
+                if (left > 0) t.join(TimeUnit.NANOSECONDS.toMillis(left) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        int leftover = pending();
+        if (leftover > 0) {
+            log.warn("webhook ingest pipeline stopped with {} events not processed", leftover);
+            for (Thread t : workers) t.interrupt();
+        } else {
+            log.info("webhook ingest pipeline drained");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Start before and stop after the web server, so no accepted request is left behind */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop(BlockingQueue<Task> shard) {
+        while (running || !shard.isEmpty()) {
+            Task task;
+            try {
+                task = shard.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) continue;
+            lag.record(System.nanoTime() - task.enqueuedAt(), TimeUnit.NANOSECONDS);
+            run(task);
+        }
+    }
+
+    /** Retries in place, so the next event of the shard waits for this one */
+    private void run(Task task) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                task.work().run();
+                return;
+            } catch (GarageFullException ex) {
+                log.warn("ENTRY ignored: {}", ex.getMessage());
+                return;
+            } catch (TransientDataAccessException ex) {
+                if (attempt >= maxAttempts || !backOff(attempt)) {
+                    deadLetter(task, ex, attempt);
+                    return;
+                }
+                retried.increment();
+                log.debug("Webhook event for plate={} failed transiently, attempt {}: {}", task.plate(), attempt, ex.toString());
+            } catch (RuntimeException ex) {
+                deadLetter(task, ex, attempt);
+                return;
+            }
+        }
+    }
+
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMillis * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void deadLetter(Task task, RuntimeException failure, int attempts) {
+        deadLettered.increment();
+        log.warn("Webhook event for plate={} dead-lettered after {} attempt(s): {}", task.plate(), attempts, failure.toString());
+        var letter = new DeadLetter(task.plate(), task.work(), failure, attempts);
+        while (!deadLetters.offer(letter)) {
+            DeadLetter oldest = deadLetters.poll();
+            if (oldest != null) log.warn("Dead-letter queue full, dropped the event for plate={}", oldest.plate());
+        }
+    }
+}
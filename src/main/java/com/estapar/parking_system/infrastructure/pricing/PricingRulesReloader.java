@@ -0,0 +1,78 @@
+package com.estapar.parking_system.infrastructure.pricing;
+
+import com.estapar.parking_system.domain.service.DynamicFactorService;
+import com.estapar.parking_system.domain.service.FactorTable;
+import com.estapar.parking_system.domain.service.PricingRules;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the pricing rules file into {@link DynamicFactorService} and reloads it when its
+ * modification time changes. A file that does not parse or compile is logged and the
+ * previous rules stay in place.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "app.pricing.rules", name = "location")
+public class PricingRulesReloader {
+
+    private final DynamicFactorService factors;
+    private final ObjectMapper mapper;
+    private final Resource location;
+
+    private long loadedVersion = Long.MIN_VALUE;
+
+    PricingRulesReloader(DynamicFactorService factors,
+                         ObjectMapper mapper,
+                         @Value("${app.pricing.rules.location}") Resource location) {
+        this.factors = factors;
+        this.mapper = mapper;
+        this.location = location;
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.pricing.rules.refresh-interval:PT30S}",
+               initialDelayString = "${app.pricing.rules.refresh-interval:PT30S}")
+    public void refresh() {
+        reload();
+    }
+
+    /** @return true when new rules were swapped in */
+    public synchronized boolean reload() {
+        long version = version();
+        if (version == loadedVersion) return false;
+        try (InputStream in = location.getInputStream()) {
+            FactorTable compiled = FactorTable.compile(mapper.readValue(in, PricingRules.class));
+            factors.replaceRules(compiled);
+            loadedVersion = version;
+            log.info("pricing rules loaded from {}", location.getDescription());
+            return true;
+        } catch (IOException | IllegalArgumentException ex) {
+            loadedVersion = version;
+            log.error("pricing rules in {} not applied, keeping the previous ones: {}", location.getDescription(), ex.getMessage());
+            return false;
+        }
+    }
+
+    /** last modified time; resources without one (e.g. inside a jar) are loaded once */
+    private long version() {
+        try {
+            return location.lastModified();
+        } catch (IOException ex) {
+            return 0L;
+        }
+    }
+}
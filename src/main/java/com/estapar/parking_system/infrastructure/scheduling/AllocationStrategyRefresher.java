@@ -0,0 +1,27 @@
+package com.estapar.parking_system.infrastructure.scheduling;
+
+import com.estapar.parking_system.application.allocation.AllocationStrategy;
+import com.estapar.parking_system.domain.events.GarageSyncedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/** Rebuilds the allocation strategy's view after a garage sync and on the occupancy reconcile timer. */
+@Component
+@RequiredArgsConstructor
+public class AllocationStrategyRefresher {
+
+    private final AllocationStrategy strategy;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGarageSynced(GarageSyncedEvent event) {
+        strategy.reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.occupancy.reconcile-interval:PT1M}",
+               initialDelayString = "${app.occupancy.reconcile-interval:PT1M}")
+    public void refresh() {
+        strategy.reload();
+    }
+}
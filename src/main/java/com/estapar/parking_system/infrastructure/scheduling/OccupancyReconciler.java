@@ -0,0 +1,29 @@
+package com.estapar.parking_system.infrastructure.scheduling;
+
+import com.estapar.parking_system.domain.events.GarageSyncedEvent;
+import com.estapar.parking_system.domain.service.CountingOccupancyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/** Keeps the occupancy counters honest: reseed after a garage sync, reconcile on a timer. */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.occupancy", name = "mode", havingValue = "counters", matchIfMissing = true)
+public class OccupancyReconciler {
+
+    private final CountingOccupancyService counters;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGarageSynced(GarageSyncedEvent event) {
+        counters.reseed();
+    }
+
+    @Scheduled(fixedDelayString = "${app.occupancy.reconcile-interval:PT1M}",
+               initialDelayString = "${app.occupancy.reconcile-interval:PT1M}")
+    public void reconcile() {
+        counters.reconcile();
+    }
+}
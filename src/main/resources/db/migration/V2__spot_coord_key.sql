@@ -0,0 +1,12 @@
+-- ======================================
+-- spot.coord_key: lat/lng packed in micro-degrees
+-- (lat + 90) * 10^9 + (lng + 180), same formula as CoordinateCodec.key
+-- ======================================
+ALTER TABLE spot
+  ADD COLUMN coord_key BIGINT
+    GENERATED ALWAYS AS (
+      (CAST(ROUND(lat * 1000000) AS SIGNED) + 90000000) * 1000000000
+      + (CAST(ROUND(lng * 1000000) AS SIGNED) + 180000000)
+    ) STORED;
+
+CREATE INDEX idx_spot_coord_key ON spot (coord_key);
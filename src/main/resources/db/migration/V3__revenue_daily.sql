@@ -0,0 +1,22 @@
+-- ======================================
+-- Tabela: revenue_daily
+-- one row per UTC exit date and sector, kept up to date on EXIT;
+-- sector_id = 0 collects sessions that never got a sector
+-- ======================================
+CREATE TABLE revenue_daily (
+  revenue_date DATE NOT NULL,
+  sector_id BIGINT NOT NULL,
+  amount DECIMAL(14,2) NOT NULL,
+  sessions BIGINT NOT NULL,
+  CONSTRAINT pk_revenue_daily PRIMARY KEY (revenue_date, sector_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- backfill from the closed sessions; dates are UTC like the /revenue window
+SET time_zone = '+00:00';
+
+INSERT INTO revenue_daily (revenue_date, sector_id, amount, sessions)
+SELECT DATE(exit_time), COALESCE(sector_id, 0), SUM(charged_amount), COUNT(*)
+FROM vehicle_session
+WHERE exit_time IS NOT NULL
+  AND charged_amount IS NOT NULL
+GROUP BY DATE(exit_time), COALESCE(sector_id, 0);
@@ -0,0 +1,220 @@
+package com.estapar.parking_system;
+
+import com.estapar.parking_system.api.dto.GarageDtos.GarageResponse;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.estapar.parking_system.api.dto.WebhookDtos.EntryEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.EventType;
+import com.estapar.parking_system.api.dto.WebhookDtos.ExitEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.ParkedEvent;
+import com.estapar.parking_system.application.service.SessionAppService;
+import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.domain.service.OccupancyService;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageSynchronizer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Randomized ENTRY / PARKED / EXIT streams from several threads at once, through
+ * {@link SessionAppService} against a real MySQL (skipped without Docker). Every thread drives
+ * its own plates, a few interleaved at a time and each one in order (as the per-plate shards
+ * do), and PARKED mostly aims at the same handful of spots so preemptions collide. Lock
+ * timeouts and deadlocks are retried and counted. Afterwards the tables must hold together: a
+ * spot with one session at most, every open session's spot held by that session, and the
+ * occupancy counters of every sector equal to its rows. Tagged "stress", so it only runs with
+ * {@code -Pstress}; tune with {@code -Dstress.threads / plates / seed}.
+ */
+@SpringBootTest(properties = {
+        "app.bootstrap.enabled=false",
+        "app.garage.resync.enabled=false",
+        "app.garage.snapshot.enabled=false",
+        "app.occupancy.reconcile-interval=PT1H",
+        "logging.level.com.estapar=WARN",
+        "logging.level.com.estapar.parking_system.ConcurrencyStressTest=INFO"
+})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Tag("stress")
+@Slf4j
+class ConcurrencyStressTest {
+
+    static final int THREADS = Integer.getInteger("stress.threads", 8);
+    static final int PLATES = Integer.getInteger("stress.plates", 400);
+    static final long SEED = Long.getLong("stress.seed", System.nanoTime());
+    /** plates in flight per thread */
+    static final int INTERLEAVED = 4;
+    static final int MAX_ATTEMPTS = 5;
+
+    /** spots 1..5 of sector A are the hot ones */
+    static final GarageResponse GARAGE = TestGarage.LAYOUT;
+
+    @Autowired SessionAppService sessions;
+    @Autowired GarageSynchronizer synchronizer;
+    @Autowired OccupancyService occupancy;
+    @Autowired JdbcTemplate jdbc;
+
+    final LongAdder events = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void concurrent_streams_keep_spots_and_sessions_consistent() throws Exception {
+        synchronizer.sync(GARAGE);
+
+        long[][] latencies = new long[THREADS][];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                latencies[thread] = drive(thread);
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) worker.get(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - began;
+        pool.shutdown();
+
+        report(elapsed, latencies);
+
+        assertThat(failures).as("unexpected failures").isEmpty();
+        assertThat(jdbc.queryForList("""
+                select spot_id from vehicle_session
+                where exit_time is null and spot_id is not null
+                group by spot_id having count(*) > 1
+                """, Long.class)).as("spots claimed by more than one open session").isEmpty();
+        assertThat(jdbc.queryForList("""
+                select occupied_by_session_id from spot
+                where occupied_by_session_id is not null
+                group by occupied_by_session_id having count(*) > 1
+                """, Long.class)).as("sessions holding more than one spot").isEmpty();
+        assertThat(jdbc.queryForList("""
+                select vs.id from vehicle_session vs join spot s on s.id = vs.spot_id
+                where vs.exit_time is null and not (s.occupied_by_session_id <=> vs.id)
+                """, Long.class)).as("open sessions pointing at a spot they do not hold").isEmpty();
+        assertThat(jdbc.queryForList("""
+                select s.id from spot s left join vehicle_session vs on vs.id = s.occupied_by_session_id
+                where s.occupied_by_session_id is not null and (vs.id is null or vs.exit_time is not null)
+                """, Long.class)).as("spots held by a closed or missing session").isEmpty();
+
+        // por setor: um erro num setor não pode ser compensado por outro no total
+        Map<Long, Long> takenBySector = new HashMap<>();
+        jdbc.query("""
+                select sc.id, count(s.id) from sector sc
+                left join spot s on s.sector_id = sc.id and s.occupied_by_session_id is not null
+                group by sc.id
+                """, (ResultSet rs) -> {
+            takenBySector.put(rs.getLong(1), rs.getLong(2));
+        });
+        assertThat(takenBySector).as("sectors").isNotEmpty();
+        takenBySector.forEach((sectorId, taken) -> assertThat(occupancy.takenInSector(sectorId))
+                .as("occupancy counter vs spot rows of sector %d", sectorId).isEqualTo(taken));
+    }
+
+    /** One worker: its plates (plate % THREADS == thread), a few interleaved; returns per-event latencies */
+    private long[] drive(int thread) {
+        Random random = new Random(SEED + thread);
+        List<Queue<Runnable>> inFlight = new ArrayList<>();
+        long[] latencies = new long[PLATES / THREADS * 6 + 6];
+        int done = 0;
+        int next = thread;
+
+        while (next < PLATES || !inFlight.isEmpty()) {
+            while (inFlight.size() < INTERLEAVED && next < PLATES) {
+                inFlight.add(script(String.format("ST%05d", next), random));
+                next += THREADS;
+            }
+            Queue<Runnable> plate = inFlight.get(random.nextInt(inFlight.size()));
+            long t0 = System.nanoTime();
+            run(plate.poll());
+            latencies[done++] = System.nanoTime() - t0;
+            if (plate.isEmpty()) inFlight.remove(plate);
+        }
+        return Arrays.copyOf(latencies, done);
+    }
+
+    /** ENTRY, zero to three PARKED (mostly on the hot spots), then EXIT four times out of five */
+    private Queue<Runnable> script(String plate, Random random) {
+        Queue<Runnable> steps = new ArrayDeque<>();
+        steps.add(() -> sessions.handleEntry(new EntryEvent(plate, "2025-01-01T10:00:00Z", EventType.ENTRY)));
+        for (int i = random.nextInt(4); i > 0; i--) {
+            SpotDto spot = random.nextInt(10) < 7
+                    ? GARAGE.spots().get(random.nextInt(5) * 2)
+                    : GARAGE.spots().get(random.nextInt(GARAGE.spots().size()));
+            steps.add(() -> sessions.handleParked(new ParkedEvent(plate, spot.lat(), spot.lng(), EventType.PARKED)));
+        }
+        if (random.nextInt(5) > 0) {
+            steps.add(() -> sessions.handleExit(new ExitEvent(plate, "2025-01-01T11:30:00Z", EventType.EXIT)));
+        }
+        return steps;
+    }
+
+    private void run(Runnable event) {
+        events.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                event.run();
+                return;
+            } catch (GarageFullException full) {
+                rejected.increment();
+                return;
+            } catch (TransientDataAccessException lockLost) {
+                // deadlock victim or lock wait timeout: the whole transaction rolled back, run it again
+                if (attempt == MAX_ATTEMPTS) {
+                    failures.add(lockLost);
+                    return;
+                }
+                retries.increment();
+            } catch (RuntimeException ex) {
+                failures.add(ex);
+                return;
+            }
+        }
+    }
+
+    private void report(long elapsedNanos, long[][] latencies) {
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = elapsedNanos / 1e9;
+        log.info("stress: threads={} plates={} seed={} events={} ({}/s) retries={} rejected={} (garage full) "
+                        + "failures={} latency ms p50={} p99={} max={}",
+                THREADS, PLATES, SEED, events.sum(), Math.round(events.sum() / seconds), retries.sum(), rejected.sum(),
+                failures.size(), millis(all, 0.50), millis(all, 0.99), millis(all, 1.0));
+    }
+
+    private static String millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) return "-";
+        int i = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+        return String.format("%.2f", sorted[Math.max(i, 0)] / 1e6);
+    }
+}
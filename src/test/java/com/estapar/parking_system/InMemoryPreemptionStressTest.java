@@ -0,0 +1,22 @@
+package com.estapar.parking_system;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/** The same streams and invariants with PARKED decided on the in-memory occupancy board */
+@SpringBootTest(properties = {
+        "app.bootstrap.enabled=false",
+        "app.garage.resync.enabled=false",
+        "app.garage.snapshot.enabled=false",
+        "app.occupancy.reconcile-interval=PT1H",
+        "app.parking.preemption=in-memory",
+        "logging.level.com.estapar=WARN",
+        "logging.level.com.estapar.parking_system.ConcurrencyStressTest=INFO"
+})
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Tag("stress")
+class InMemoryPreemptionStressTest extends ConcurrencyStressTest {
+}
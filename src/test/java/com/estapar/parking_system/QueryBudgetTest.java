@@ -0,0 +1,228 @@
+package com.estapar.parking_system;
+
+import com.estapar.parking_system.api.dto.GarageDtos.GarageResponse;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.estapar.parking_system.api.dto.RevenueDtos.Granularity;
+import com.estapar.parking_system.api.dto.WebhookDtos.EntryEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.EventType;
+import com.estapar.parking_system.api.dto.WebhookDtos.ExitEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.ParkedEvent;
+import com.estapar.parking_system.application.service.RevenueService;
+import com.estapar.parking_system.application.service.RevenueService.RevenueRange;
+import com.estapar.parking_system.application.service.SessionAppService;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageSynchronizer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Round-trip budgets for the hot paths, against a real MySQL (skipped without Docker).
+ * Statements are every execute* that reaches the DataSource, JPA and JdbcTemplate alike (a
+ * JDBC batch is one); entity loads and flushes come from Hibernate statistics. The budgets are
+ * pinned: a count above or below its budget fails, printing budget and actual side by side, so
+ * raising or lowering one is a conscious change. They were measured on MariaDB 11.4 with this
+ * garage, not yet on the MySQL container; every run logs what it measured.
+ */
+@SpringBootTest(properties = {
+        "app.bootstrap.enabled=false",
+        "app.garage.resync.enabled=false",
+        "app.garage.snapshot.enabled=false",
+        "app.occupancy.reconcile-interval=PT1H",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "logging.level.com.estapar.parking_system.QueryBudgetTest=INFO"
+})
+@Import({TestcontainersConfiguration.class, QueryBudgetTest.StatementCounting.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Slf4j
+class QueryBudgetTest {
+
+    record Budget(long statements, long entityLoads, long flushes) {}
+
+    private static final AtomicInteger PLATES = new AtomicInteger();
+
+    private static final GarageResponse GARAGE = TestGarage.LAYOUT;
+
+    @Autowired SessionAppService sessions;
+    @Autowired RevenueService revenue;
+    @Autowired GarageSynchronizer synchronizer;
+    @Autowired VehicleSessionRepository sessionRepo;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        // first run writes the layout and loads the in-memory indexes; afterwards it is a no-op
+        synchronizer.sync(GARAGE);
+    }
+
+    @Test
+    void entry() {
+        String plate = plate();
+
+        assertPinned("ENTRY", new Budget(4, 0, 1), () -> entry(plate));
+    }
+
+    @Test
+    void parked_on_free_spot() {
+        String plate = plate();
+        entry(plate);
+        SpotDto free = TestGarage.spot(101);
+
+        assertPinned("PARKED on a free spot", new Budget(9, 10, 2), () -> parked(plate, free.lat(), free.lng()));
+    }
+
+    @Test
+    void parked_with_preemption() {
+        String requester = plate();
+        String displaced = plate();
+        entry(requester);
+        entry(displaced);
+        SpotEntity wanted = sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc(displaced)
+                .orElseThrow().getSpot();
+
+        assertPinned("PARKED with preemption", new Budget(11, 9, 2),
+                () -> parked(requester, wanted.getLat(), wanted.getLng()));
+    }
+
+    @Test
+    void exit() {
+        String plate = plate();
+        entry(plate);
+
+        assertPinned("EXIT", new Budget(6, 3, 4),
+                () -> sessions.handleExit(new ExitEvent(plate, "2025-01-01T12:00:00Z", EventType.EXIT)));
+    }
+
+    @Test
+    void revenue_for_date() {
+        assertPinned("revenue for a day, cache miss", new Budget(1, 0, 0),
+                () -> revenue.revenueForDate("2025-02-01", null));
+        assertPinned("revenue for a day, cache hit", new Budget(0, 0, 0),
+                () -> revenue.revenueForDate("2025-02-01", null));
+        assertPinned("revenue for a day and sector", new Budget(1, 0, 0),
+                () -> revenue.revenueForDate("2025-02-01", "A"));
+    }
+
+    @Test
+    void revenue_range() {
+        for (Granularity granularity : Granularity.values()) {
+            var range = new RevenueRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), granularity, List.of());
+            assertPinned("revenue range by " + granularity, new Budget(1, 0, 0),
+                    () -> revenue.streamRange(range, row -> {}));
+        }
+    }
+
+    @Test
+    void garage_resync_without_changes() {
+        // sectors, the one chunk of spots, count(*)
+        assertPinned("garage sync, unchanged layout", new Budget(3, 0, 0), () -> synchronizer.sync(GARAGE));
+    }
+
+    private void assertPinned(String scenario, Budget budget, Runnable action) {
+        statistics.clear();
+        StatementCounting.EXECUTED.set(0);
+
+        action.run();
+
+        var actual = new Budget(StatementCounting.EXECUTED.get(),
+                statistics.getEntityLoadCount(), statistics.getFlushCount());
+        log.info("query budget: {} measured statements={} entityLoads={} flushes={}",
+                scenario, actual.statements(), actual.entityLoads(), actual.flushes());
+        if (!actual.equals(budget)) fail(report(scenario, budget, actual));
+    }
+
+    private static String report(String scenario, Budget budget, Budget actual) {
+        var sb = new StringBuilder(scenario).append(" does not match its query budget\n")
+                .append(String.format("  %-14s %7s %7s%n", "", "budget", "actual"));
+        row(sb, "statements", budget.statements(), actual.statements());
+        row(sb, "entity loads", budget.entityLoads(), actual.entityLoads());
+        row(sb, "flushes", budget.flushes(), actual.flushes());
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String metric, long budget, long actual) {
+        sb.append(String.format("  %-14s %7d %7d%s%n", metric, budget, actual,
+                actual == budget ? "" : String.format("   %+d", actual - budget)));
+    }
+
+    private void entry(String plate) {
+        sessions.handleEntry(new EntryEvent(plate, "2025-01-01T10:00:00Z", EventType.ENTRY));
+    }
+
+    private void parked(String plate, BigDecimal lat, BigDecimal lng) {
+        sessions.handleParked(new ParkedEvent(plate, lat, lng, EventType.PARKED));
+    }
+
+    private static String plate() {
+        return String.format("QB%05d", PLATES.incrementAndGet());
+    }
+
+    /** Wraps the DataSource so every statement execution is counted, whoever issues it */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StatementCounting {
+
+        static final AtomicLong EXECUTED = new AtomicLong();
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ds && !Proxy.isProxyClass(bean.getClass())
+                            ? proxy(DataSource.class, ds) : bean;
+                }
+            };
+        }
+
+        private static <T> T proxy(Class<T> type, Object target) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                Object result = invoke(method, target, args);
+                if (result instanceof CallableStatement s) return proxy(CallableStatement.class, s);
+                if (result instanceof PreparedStatement s) return proxy(PreparedStatement.class, s);
+                if (result instanceof Statement s && target instanceof Connection) return proxy(Statement.class, s);
+                if (result instanceof Connection c && target instanceof DataSource) return proxy(Connection.class, c);
+                if (target instanceof Statement && method.getName().startsWith("execute")) EXECUTED.incrementAndGet();
+                return result;
+            }));
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
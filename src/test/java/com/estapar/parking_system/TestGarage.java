@@ -0,0 +1,33 @@
+package com.estapar.parking_system;
+
+import com.estapar.parking_system.api.dto.GarageDtos.GarageResponse;
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Garage layout shared by the database-backed tests: A (10.00) spots 1..20, B (5.00) spots 101..120 */
+final class TestGarage {
+
+    static final GarageResponse LAYOUT = layout();
+
+    private TestGarage() {}
+
+    static SpotDto spot(long id) {
+        return LAYOUT.spots().stream().filter(s -> s.id() == id).findFirst().orElseThrow();
+    }
+
+    /** spots alternate A, B: index 2k is A's spot k + 1 */
+    private static GarageResponse layout() {
+        List<SpotDto> spots = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            spots.add(new SpotDto(i, "A", BigDecimal.valueOf(-23_500_000 - i, 6), new BigDecimal("-46.600000"), false));
+            spots.add(new SpotDto(100 + i, "B", BigDecimal.valueOf(-23_600_000 - i, 6), new BigDecimal("-46.600000"), false));
+        }
+        return new GarageResponse(List.of(
+                new SectorDto("A", new BigDecimal("10.00"), 20, "00:00", "23:59", 1440),
+                new SectorDto("B", new BigDecimal("5.00"), 20, "00:00", "23:59", 1440)), spots);
+    }
+}
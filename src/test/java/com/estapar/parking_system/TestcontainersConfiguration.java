@@ -12,7 +12,8 @@ class TestcontainersConfiguration {
 	@Bean
 	@ServiceConnection
 	MySQLContainer<?> mysqlContainer() {
-		return new MySQLContainer<>(DockerImageName.parse("mysql:latest"));
+		// V1__init.sql creates and switches to "estapar"
+		return new MySQLContainer<>(DockerImageName.parse("mysql:latest")).withDatabaseName("estapar");
 	}
 
 }
@@ -1,9 +1,13 @@
 package com.estapar.parking_system.api;
 
 import com.estapar.parking_system.api.controller.RevenueController;
+import com.estapar.parking_system.api.dto.RevenueDtos.Granularity;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRangeRequest;
 import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRequest;
 import com.estapar.parking_system.api.dto.RevenueDtos.RevenueResponse;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRow;
 import com.estapar.parking_system.application.service.RevenueService;
+import com.estapar.parking_system.domain.exceptions.InvalidRevenueRangeException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,12 +16,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -106,5 +115,69 @@ class RevenueControllerTest {
         verify(revenueService).revenueForDate("2025-01-01", null);
     }
 
-}
+    @Test
+    void getSendsEtagAndAnswers304WhenClientRevalidates() throws Exception {
+        var req = new RevenueRequest("2025-01-01", "A");
+        var resp = new RevenueResponse(new BigDecimal("123.45"), "BRL", "2025-01-01T12:00:00Z");
+        Mockito.when(revenueService.revenueForDate("2025-01-01", "A")).thenReturn(resp);
+
+        String etag = mockMvc.perform(get("/revenue")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/revenue")
+                        .header("If-None-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
 
+    @Test
+    void rangeStreamsRowsAsJson() throws Exception {
+        var request = new RevenueRangeRequest("2025-01-01", "2025-01-31", List.of("A"), Granularity.DAY);
+        var range = new RevenueService.RevenueRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), Granularity.DAY, List.of("A"));
+        Mockito.when(revenueService.parseRange(request)).thenReturn(range);
+        Mockito.doAnswer(inv -> {
+            Consumer<RevenueRow> sink = inv.getArgument(1);
+            sink.accept(new RevenueRow("2025-01-01", "A", new BigDecimal("10.50"), 2));
+            sink.accept(new RevenueRow("2025-01-02", "A", new BigDecimal("3.00"), 1));
+            return null;
+        }).when(revenueService).streamRange(Mockito.eq(range), Mockito.any());
+
+        MvcResult started = mockMvc.perform(post("/revenue/range")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", is("DAY")))
+                .andExpect(jsonPath("$.rows.length()", is(2)))
+                .andExpect(jsonPath("$.rows[0].bucket", is("2025-01-01")))
+                .andExpect(jsonPath("$.rows[0].amount", is(10.50)))
+                .andExpect(jsonPath("$.rows[1].sessions", is(1)));
+    }
+
+    @Test
+    void invalidRangeIsA400() throws Exception {
+        var request = new RevenueRangeRequest("2025-02-01", "2025-01-01", null, Granularity.DAY);
+        Mockito.when(revenueService.parseRange(request))
+                .thenThrow(new InvalidRevenueRangeException("to must not be before from"));
+
+        mockMvc.perform(post("/revenue/range")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/revenue/range")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"from\":\"2025-01-01\",\"to\":\"2025-01-02\"}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -2,9 +2,11 @@ package com.estapar.parking_system.api;
 
 
 import com.estapar.parking_system.api.controller.WebhookController;
+import com.estapar.parking_system.api.controller.registry.WebhookBatchProcessor;
 import com.estapar.parking_system.api.controller.registry.WebhookDispatcher;
 import com.estapar.parking_system.api.dto.WebhookDtos;
 import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.infrastructure.ingest.IngestQueueFullException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -21,6 +23,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = WebhookController.class)
@@ -34,6 +37,10 @@ class WebhookControllerTest {
     @MockBean
     WebhookDispatcher webhookDispatcher;
 
+    @SuppressWarnings("deprecation")
+    @MockBean
+    WebhookBatchProcessor batchProcessor;
+
     @Test
     @DisplayName("ENTRY → deve retornar 200 e chamar handleEntry com DTO correto")
     void entry_ok() throws Exception {
@@ -151,5 +158,25 @@ class WebhookControllerTest {
 
         verifyNoInteractions(webhookDispatcher);
     }
-}
 
+    @Test
+    @DisplayName("fila assíncrona cheia → 503 com Retry-After")
+    void async_queue_full_returns_503() throws Exception {
+        doThrow(new IngestQueueFullException("ingest queue full for plate ZUL0001"))
+                .when(webhookDispatcher).dispatch(any(WebhookDtos.EntryEvent.class));
+
+        String body = """
+            {
+              "license_plate": "ZUL0001",
+              "entry_time": "2025-01-01T12:00:00Z",
+              "event_type": "ENTRY"
+            }
+            """;
+
+        mockMvc.perform(post("/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+}
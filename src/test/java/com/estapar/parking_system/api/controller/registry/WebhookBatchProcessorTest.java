@@ -0,0 +1,144 @@
+package com.estapar.parking_system.api.controller.registry;
+
+import com.estapar.parking_system.api.dto.WebhookDtos.BatchLineResult;
+import com.estapar.parking_system.api.dto.WebhookDtos.BatchLineStatus;
+import com.estapar.parking_system.api.dto.WebhookDtos.EntryEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.EventType;
+import com.estapar.parking_system.api.dto.WebhookDtos.ExitEvent;
+import com.estapar.parking_system.api.dto.WebhookDtos.WebhookEvent;
+import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.domain.service.DynamicFactorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WebhookBatchProcessorTest {
+
+    WebhookDispatcher dispatcher = mock(WebhookDispatcher.class);
+    PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+
+    WebhookBatchProcessor processor(int batchSize) {
+        return new WebhookBatchProcessor(dispatcher, new TransactionTemplate(txManager),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), batchSize);
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String entry(String plate) {
+        return "{\"license_plate\":\"" + plate + "\",\"entry_time\":\"2025-01-01T12:00:00Z\",\"event_type\":\"ENTRY\"}";
+    }
+
+    private static String exit(String plate) {
+        return "{\"license_plate\":\"" + plate + "\",\"exit_time\":\"2025-01-01T13:00:00Z\",\"event_type\":\"EXIT\"}";
+    }
+
+    @Test
+    void applies_events_in_file_order_one_transaction_per_micro_batch() throws Exception {
+        var response = processor(2).process(ndjson(exit("AAA"), exit("BBB"), "", exit("CCC")));
+
+        InOrder order = inOrder(dispatcher);
+        order.verify(dispatcher).process(new ExitEvent("AAA", "2025-01-01T13:00:00Z", EventType.EXIT));
+        order.verify(dispatcher).process(new ExitEvent("BBB", "2025-01-01T13:00:00Z", EventType.EXIT));
+        order.verify(dispatcher).process(new ExitEvent("CCC", "2025-01-01T13:00:00Z", EventType.EXIT));
+        verify(txManager, times(2)).commit(any());
+
+        assertThat(response.lines()).isEqualTo(4);
+        assertThat(response.applied()).isEqualTo(3);
+        assertThat(response.rejected()).isZero();
+        assertThat(response.results()).extracting(BatchLineResult::line).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void each_entry_commits_alone_after_the_batch_before_it() throws Exception {
+        processor(10).process(ndjson(exit("AAA"), exit("BBB"), entry("CCC"), entry("DDD"), exit("EEE")));
+
+        InOrder order = inOrder(dispatcher, txManager);
+        order.verify(dispatcher).process(new ExitEvent("AAA", "2025-01-01T13:00:00Z", EventType.EXIT));
+        order.verify(dispatcher).process(new ExitEvent("BBB", "2025-01-01T13:00:00Z", EventType.EXIT));
+        order.verify(txManager).commit(any());
+        order.verify(dispatcher).process(new EntryEvent("CCC", "2025-01-01T12:00:00Z", EventType.ENTRY));
+        order.verify(txManager).commit(any());
+        order.verify(dispatcher).process(new EntryEvent("DDD", "2025-01-01T12:00:00Z", EventType.ENTRY));
+        order.verify(txManager).commit(any());
+        order.verify(dispatcher).process(new ExitEvent("EEE", "2025-01-01T13:00:00Z", EventType.EXIT));
+        order.verify(txManager).commit(any());
+    }
+
+    @Test
+    void entries_into_a_nearly_full_sector_see_the_occupancy_of_the_ones_before() throws Exception {
+        // como nos serviços reais: a ocupação que o ENTRY enxerga só anda depois do commit
+        int capacity = 4;
+        AtomicInteger committed = new AtomicInteger(2);
+        AtomicInteger inTransaction = new AtomicInteger();
+        List<BigDecimal> factors = new ArrayList<>();
+        DynamicFactorService factorService = new DynamicFactorService();
+
+        doAnswer(inv -> {
+            if (committed.get() >= capacity) throw new GarageFullException("Garage is full");
+            BigDecimal ratio = BigDecimal.valueOf(committed.get()).divide(BigDecimal.valueOf(capacity), 4, RoundingMode.HALF_UP);
+            factors.add(factorService.compute(ratio));
+            inTransaction.incrementAndGet();
+            return null;
+        }).when(dispatcher).process(any(EntryEvent.class));
+        doAnswer(inv -> committed.addAndGet(inTransaction.getAndSet(0))).when(txManager).commit(any());
+        doAnswer(inv -> inTransaction.getAndSet(0)).when(txManager).rollback(any());
+
+        var response = processor(10).process(ndjson(entry("AAA"), entry("BBB"), entry("CCC"), entry("DDD")));
+
+        assertThat(factors).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("1.00"), new BigDecimal("1.10"));
+        assertThat(committed.get()).isEqualTo(capacity);
+        assertThat(response.results()).extracting(BatchLineResult::status)
+                .containsExactly(BatchLineStatus.OK, BatchLineStatus.OK, BatchLineStatus.IGNORED, BatchLineStatus.IGNORED);
+    }
+
+    @Test
+    void invalid_lines_are_reported_and_skipped() throws Exception {
+        var response = processor(10).process(ndjson(
+                entry("AAA"),
+                "{not json",
+                "{\"license_plate\":\"\",\"entry_time\":\"x\",\"event_type\":\"ENTRY\"}",
+                "{\"license_plate\":\"CCC\",\"event_type\":\"WHATEVER\"}"));
+
+        assertThat(response.results()).extracting(BatchLineResult::status)
+                .containsExactly(BatchLineStatus.OK, BatchLineStatus.INVALID, BatchLineStatus.INVALID, BatchLineStatus.INVALID);
+        assertThat(response.results().get(2).error()).contains("licensePlate");
+        verify(dispatcher, times(1)).process(any());
+    }
+
+    @Test
+    void failed_batch_is_rolled_back_and_replayed_one_by_one() throws Exception {
+        doAnswer(inv -> {
+            WebhookEvent ev = inv.getArgument(0);
+            if (ev.licensePlate().equals("FULL")) throw new GarageFullException("Garage is full");
+            if (ev.licensePlate().equals("BOOM")) throw new IllegalStateException("boom");
+            return null;
+        }).when(dispatcher).process(any());
+
+        var response = processor(10).process(ndjson(exit("AAA"), entry("FULL"), exit("BOOM"), exit("DDD")));
+
+        // o ENTRY sozinho, o lote BOOM+DDD e a linha reexecutada que falhou
+        verify(txManager, times(3)).rollback(any());
+        assertThat(response.results()).extracting(BatchLineResult::status)
+                .containsExactly(BatchLineStatus.OK, BatchLineStatus.IGNORED, BatchLineStatus.FAILED, BatchLineStatus.OK);
+        assertThat(response.applied()).isEqualTo(3);
+        assertThat(response.rejected()).isEqualTo(1);
+    }
+}
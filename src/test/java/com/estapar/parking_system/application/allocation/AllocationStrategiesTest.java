@@ -0,0 +1,109 @@
+package com.estapar.parking_system.application.allocation;
+
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SectorOccupancy;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AllocationStrategiesTest {
+
+    SectorRepository sectorRepo = mock(SectorRepository.class);
+    SpotRepository spotRepo = mock(SpotRepository.class);
+    SectorRegistry registry = new SectorRegistry(sectorRepo);
+
+    @BeforeEach
+    void garage() {
+        // A: 2 vagas, 1 ocupada · B: 4 vagas, 1 ocupada · C: 2 vagas, lotado
+        when(sectorRepo.findAll()).thenReturn(List.of(
+                sector(1L, "A", "10.00", 2), sector(2L, "B", "5.00", 4), sector(3L, "C", "1.00", 2)));
+        when(spotRepo.countBySector()).thenReturn(List.of(taken(1L, 1), taken(2L, 1), taken(3L, 2)));
+    }
+
+    @Test
+    void lowest_id_skips_full_sectors_and_follows_occupancy() {
+        var strategy = new LowestIdStrategy(registry, spotRepo);
+        assertThat(codes(strategy.candidates())).containsExactly("A", "B");
+
+        strategy.occupied(1L, 100L);
+        assertThat(codes(strategy.candidates())).containsExactly("B");
+
+        strategy.released(3L, 300L);
+        strategy.released(1L, 100L);
+        assertThat(codes(strategy.candidates())).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    void least_loaded_orders_by_taken_over_capacity() {
+        var strategy = new LeastLoadedStrategy(registry, spotRepo);
+        // B 1/4 antes de A 1/2
+        assertThat(codes(strategy.candidates())).containsExactly("B", "A");
+
+        strategy.occupied(2L, 200L);
+        strategy.occupied(2L, 201L);
+        // B 3/4 agora passa de A 1/2
+        assertThat(codes(strategy.candidates())).containsExactly("A", "B");
+    }
+
+    @Test
+    void cheapest_first_orders_by_base_price() {
+        var strategy = new CheapestFirstStrategy(registry, spotRepo);
+        assertThat(codes(strategy.candidates())).containsExactly("B", "A");
+
+        strategy.released(3L, 300L);
+        assertThat(codes(strategy.candidates())).containsExactly("C", "B", "A");
+    }
+
+    @Test
+    void spread_rotates_the_first_choice() {
+        var strategy = new SpreadStrategy(registry, spotRepo);
+        strategy.released(3L, 300L);
+
+        assertThat(codes(strategy.candidates())).containsExactly("A", "B", "C");
+        assertThat(codes(strategy.candidates())).containsExactly("B", "C", "A");
+        assertThat(codes(strategy.candidates())).containsExactly("C", "A", "B");
+        assertThat(codes(strategy.candidates())).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    void reload_picks_up_a_new_layout() {
+        var strategy = new LowestIdStrategy(registry, spotRepo);
+        assertThat(codes(strategy.candidates())).containsExactly("A", "B");
+
+        registry.replace(List.of(SectorInfo.of(sector(4L, "D", "2.00", 1))));
+        when(spotRepo.countBySector()).thenReturn(List.of());
+        strategy.reload();
+
+        assertThat(codes(strategy.candidates())).containsExactly("D");
+    }
+
+    private static List<String> codes(Iterator<SectorInfo> it) {
+        List<String> codes = new ArrayList<>();
+        it.forEachRemaining(s -> codes.add(s.code()));
+        return codes;
+    }
+
+    private static SectorEntity sector(Long id, String code, String basePrice, int capacity) {
+        return new SectorEntity(id, code, new BigDecimal(basePrice), capacity, "00:00", "23:59", 1440);
+    }
+
+    private static SectorOccupancy taken(Long sectorId, long taken) {
+        return new SectorOccupancy() {
+            public Long getSectorId() { return sectorId; }
+            public long getTotal() { return 0; }
+            public long getTaken() { return taken; }
+        };
+    }
+}
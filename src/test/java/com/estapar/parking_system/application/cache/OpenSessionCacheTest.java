@@ -0,0 +1,54 @@
+package com.estapar.parking_system.application.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenSessionCacheTest {
+
+    OpenSessionCache cache = new OpenSessionCache(100, new SimpleMeterRegistry());
+
+    @Test
+    void entry_then_exit() {
+        cache.opened("ABC1D23", 7L);
+        assertThat(cache.openSessionId("ABC1D23")).isEqualTo(7L);
+        assertThat(cache.openSessionId("abc1d23")).isEqualTo(7L);
+
+        cache.closed("ABC1D23", 7L);
+        assertThat(cache.openSessionId("ABC1D23")).isZero();
+    }
+
+    @Test
+    void closing_an_older_session_keeps_the_newer_one() {
+        cache.opened("ABC1234", 8L);
+        cache.closed("ABC1234", 7L);
+
+        assertThat(cache.openSessionId("ABC1234")).isEqualTo(8L);
+    }
+
+    @Test
+    void evict_drops_a_stale_id_but_not_a_newer_one() {
+        cache.opened("ABC1234", 7L);
+        cache.evict("ABC1234", 6L);
+        assertThat(cache.openSessionId("ABC1234")).isEqualTo(7L);
+
+        cache.evict("ABC1234", 7L);
+        assertThat(cache.openSessionId("ABC1234")).isZero();
+    }
+
+    @Test
+    void plates_that_cannot_be_encoded_are_never_cached() {
+        cache.opened("ABC-1234", 7L);
+
+        assertThat(cache.openSessionId("ABC-1234")).isZero();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void size_is_bounded() {
+        for (long i = 0; i < 1_000; i++) cache.opened("P" + i, i);
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+}
@@ -0,0 +1,57 @@
+package com.estapar.parking_system.application.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.estapar.parking_system.application.cache.PlateCodec.NOT_ENCODABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlateCodecTest {
+
+    @Test
+    void old_and_mercosul_plates_round_trip() {
+        assertThat(PlateCodec.decode(PlateCodec.encode("ABC1234"))).isEqualTo("ABC1234");
+        assertThat(PlateCodec.decode(PlateCodec.encode("BRA2E19"))).isEqualTo("BRA2E19");
+        assertThat(PlateCodec.decode(PlateCodec.encode("ZZZZZZZZZZZZ"))).isEqualTo("ZZZZZZZZZZZZ");
+        assertThat(PlateCodec.encode("ZZZZZZZZZZZZ")).isPositive();
+    }
+
+    @Test
+    void case_is_folded_like_the_column_collation() {
+        assertThat(PlateCodec.encode("abc1d23")).isEqualTo(PlateCodec.encode("ABC1D23"));
+    }
+
+    @Test
+    void leading_zeros_and_lengths_stay_distinct() {
+        assertThat(PlateCodec.encode("0A")).isNotEqualTo(PlateCodec.encode("A"));
+        assertThat(PlateCodec.encode("00")).isNotEqualTo(PlateCodec.encode("0"));
+    }
+
+    @Test
+    void anything_else_is_not_encodable() {
+        assertThat(PlateCodec.encode(null)).isEqualTo(NOT_ENCODABLE);
+        assertThat(PlateCodec.encode("")).isEqualTo(NOT_ENCODABLE);
+        assertThat(PlateCodec.encode("ABC-1234")).isEqualTo(NOT_ENCODABLE);
+        assertThat(PlateCodec.encode("ÁBC1234")).isEqualTo(NOT_ENCODABLE);
+        assertThat(PlateCodec.encode("ABCDEFGHIJKLM")).isEqualTo(NOT_ENCODABLE);
+    }
+
+    @Test
+    void random_plates_never_collide() {
+        Random rnd = new Random(42);
+        String alphabet = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        Set<String> plates = new HashSet<>();
+        Set<Long> codes = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            var sb = new StringBuilder();
+            int len = 1 + rnd.nextInt(PlateCodec.MAX_LENGTH);
+            for (int j = 0; j < len; j++) sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+            String plate = sb.toString();
+            if (plates.add(plate)) assertThat(codes.add(PlateCodec.encode(plate))).as(plate).isTrue();
+            assertThat(PlateCodec.decode(PlateCodec.encode(plate))).isEqualTo(plate);
+        }
+    }
+}
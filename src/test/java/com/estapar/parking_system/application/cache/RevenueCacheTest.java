@@ -0,0 +1,68 @@
+package com.estapar.parking_system.application.cache;
+
+import com.estapar.parking_system.domain.events.SessionClosedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevenueCacheTest {
+
+    SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    RevenueCache cache = new RevenueCache(100, Duration.ofHours(1), meters);
+
+    LocalDate day = LocalDate.of(2025, 1, 1);
+    AtomicInteger loads = new AtomicInteger();
+
+    BigDecimal load(String sector) {
+        return cache.amount(day, sector, () -> {
+            loads.incrementAndGet();
+            return new BigDecimal("1.00");
+        });
+    }
+
+    @Test
+    void exit_evicts_only_its_day_sector_and_the_garage_total() {
+        load("A");
+        load("B");
+        load(null);
+        cache.amount(day.minusDays(1), "A", () -> BigDecimal.ONE);
+        assertThat(loads).hasValue(3);
+
+        cache.onSessionClosed(new SessionClosedEvent(day, "A"));
+
+        load("A");
+        load("B");
+        load(null);
+        // A e o total do dia recarregam; B e o dia anterior continuam em cache
+        assertThat(loads).hasValue(5);
+        assertThat(cache.size()).isEqualTo(4);
+    }
+
+    @Test
+    void exit_without_sector_evicts_just_the_garage_total() {
+        load("A");
+        load(null);
+
+        cache.onSessionClosed(new SessionClosedEvent(day, null));
+
+        load("A");
+        load(null);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void hits_and_misses_are_exported() {
+        load("A");
+        load("A");
+        load("A");
+
+        assertThat(meters.get("cache.gets").tag("cache", "revenue").tag("result", "hit").functionCounter().count()).isEqualTo(2.0);
+        assertThat(meters.get("cache.gets").tag("cache", "revenue").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+}
@@ -1,16 +1,23 @@
 package com.estapar.parking_system.application.helpers;
 
 
+import com.estapar.parking_system.application.allocation.LowestIdStrategy;
+import com.estapar.parking_system.application.index.FreeSpotIndex;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
 import com.estapar.parking_system.domain.entity.SectorEntity;
 import com.estapar.parking_system.domain.entity.SpotEntity;
 import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SectorOccupancy;
+import com.estapar.parking_system.domain.service.CountingOccupancyService;
 import com.estapar.parking_system.domain.service.OccupancyService;
+import com.estapar.parking_system.domain.service.SectorRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class EntryAllocatorTest {
@@ -18,56 +25,218 @@ class EntryAllocatorTest {
     SectorRepository sectorRepo = mock(SectorRepository.class);
     SpotRepository spotRepo = mock(SpotRepository.class);
     OccupancyService occupancy = mock(OccupancyService.class);
+    FreeSpotIndex freeSpots = mock(FreeSpotIndex.class);
+    SpotOccupancyEvents occupancyEvents = mock(SpotOccupancyEvents.class);
 
-    EntryAllocator allocator = new EntryAllocator(sectorRepo, spotRepo, occupancy);
+    SectorRegistry registry = new SectorRegistry(sectorRepo);
 
-  /* Update test @Test
+    EntryAllocator allocator = new EntryAllocator(registry, new LowestIdStrategy(registry, spotRepo), spotRepo, occupancy, freeSpots, occupancyEvents, "index");
+
+    @Test
     void allocate_ok_first_try() {
-        var sector = new SectorEntity(); sector.setId(10L);
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
         var spot = new SpotEntity(); spot.setId(100L);
 
         when(sectorRepo.findAll()).thenReturn(java.util.List.of(sector));
         when(occupancy.isSectorFull(10L)).thenReturn(false);
-        when(spotRepo.findFirstFreeInSector(10L)).thenReturn(Optional.of(spot));
-        when(spotRepo.tryOccupy(100L, 1L)).thenReturn(1);
+        when(freeSpots.poll(10L)).thenReturn(100L);
+        when(spotRepo.tryOccupy(100L, EntryAllocator.CLAIMED)).thenReturn(1);
+        when(spotRepo.getReferenceById(100L)).thenReturn(spot);
 
-        var res = allocator.allocateForSession(1L);
+        var res = allocator.claim();
 
         assertThat(res).isNotNull();
-        assertThat(res.sector().getId()).isEqualTo(10L);
+        assertThat(res.sector().id()).isEqualTo(10L);
         assertThat(res.spot().getId()).isEqualTo(100L);
+        verify(spotRepo, never()).findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(anyLong());
+        // o evento só sai no assign, já com a sessão
+        verifyNoInteractions(occupancyEvents);
     }
-*/
-   /* Update @Test
+
+    @Test
     void allocate_race_then_success_on_next_free() {
-        var sector = new SectorEntity(); sector.setId(10L);
-        var spot1 = new SpotEntity(); spot1.setId(101L);
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
         var spot2 = new SpotEntity(); spot2.setId(102L);
 
         when(sectorRepo.findAll()).thenReturn(java.util.List.of(sector));
         when(occupancy.isSectorFull(10L)).thenReturn(false);
-        // 1ª tentativa retorna spot1 (corrida perdida), 2ª tentativa retorna spot2 (vence)
-        when(spotRepo.findFirstFreeInSector(10L))
-                .thenReturn(Optional.of(spot1))
-                .thenReturn(Optional.of(spot2));
-        when(spotRepo.tryOccupy(101L, 1L)).thenReturn(0);
-        when(spotRepo.tryOccupy(102L, 1L)).thenReturn(1);
+        // 1º candidato perdeu a corrida no banco, o 2º vence
+        when(freeSpots.poll(10L)).thenReturn(101L).thenReturn(102L);
+        when(spotRepo.tryOccupy(101L, EntryAllocator.CLAIMED)).thenReturn(0);
+        when(spotRepo.tryOccupy(102L, EntryAllocator.CLAIMED)).thenReturn(1);
+        when(spotRepo.getReferenceById(102L)).thenReturn(spot2);
 
-        var res = allocator.allocateForSession(1L);
+        var res = allocator.claim();
 
         assertThat(res).isNotNull();
         assertThat(res.spot().getId()).isEqualTo(102L);
     }
-*/
+
+    @Test
+    void allocate_resyncs_index_when_db_still_has_free_spot() {
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
+        var free = new SpotEntity(); free.setId(105L);
+
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(sector));
+        when(occupancy.isSectorFull(10L)).thenReturn(false);
+        when(freeSpots.poll(10L)).thenReturn(null).thenReturn(105L);
+        when(spotRepo.findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(10L)).thenReturn(Optional.of(free));
+        when(spotRepo.tryOccupy(105L, EntryAllocator.CLAIMED)).thenReturn(1);
+        when(spotRepo.getReferenceById(105L)).thenReturn(free);
+
+        var res = allocator.claim();
+
+        assertThat(res).isNotNull();
+        assertThat(res.spot().getId()).isEqualTo(105L);
+        verify(freeSpots).resync(10L);
+    }
+
+    @Test
+    void stale_free_spot_in_the_snapshot_is_tried_once_then_sector_given_up() {
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
+        var stale = new SpotEntity(); stale.setId(105L);
+
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(sector));
+        when(occupancy.isSectorFull(10L)).thenReturn(false);
+        // o snapshot da transação ainda vê a 105 livre; outro ENTRY já a ocupou
+        when(freeSpots.poll(10L)).thenReturn(null, 105L, null);
+        when(spotRepo.findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(10L)).thenReturn(Optional.of(stale));
+        when(spotRepo.tryOccupy(105L, EntryAllocator.CLAIMED)).thenReturn(0);
+
+        assertThat(allocator.claim()).isNull();
+        verify(freeSpots, times(1)).resync(10L);
+        verify(spotRepo, times(1)).tryOccupy(105L, EntryAllocator.CLAIMED);
+    }
+
     @Test
     void allocate_none_returns_null() {
-        var sector = new SectorEntity(); sector.setId(10L);
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
         when(sectorRepo.findAll()).thenReturn(java.util.List.of(sector));
         when(occupancy.isSectorFull(10L)).thenReturn(false);
-        when(spotRepo.findFirstFreeInSector(10L)).thenReturn(Optional.empty());
+        when(freeSpots.poll(10L)).thenReturn(null);
+        when(spotRepo.findFirstBySector_IdAndOccupiedBySessionIdIsNullOrderByIdAsc(10L)).thenReturn(Optional.empty());
 
-        var res = allocator.allocateForSession(1L);
+        var res = allocator.claim();
         assertThat(res).isNull();
+        verify(freeSpots, never()).resync(anyLong());
+    }
+
+    @Test
+    void sector_the_strategy_thinks_full_is_still_tried() {
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
+        var spot = new SpotEntity(); spot.setId(100L);
+
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(sector));
+        // contagem da estratégia defasada (10/10), mas ainda há vaga livre
+        when(spotRepo.countBySector()).thenReturn(java.util.List.of(taken(10L, 10)));
+        when(occupancy.isSectorFull(10L)).thenReturn(false);
+        when(freeSpots.poll(10L)).thenReturn(100L);
+        when(spotRepo.tryOccupy(100L, EntryAllocator.CLAIMED)).thenReturn(1);
+        when(spotRepo.getReferenceById(100L)).thenReturn(spot);
+
+        var res = allocator.claim();
+
+        assertThat(res).isNotNull();
+        assertThat(res.spot().getId()).isEqualTo(100L);
     }
-}
 
+    @Test
+    void skip_locked_claims_the_row_the_database_locked_for_us() {
+        var skipLocked = new EntryAllocator(registry, new LowestIdStrategy(registry, spotRepo), spotRepo, occupancy, freeSpots, occupancyEvents, "skip-locked");
+        var a = new SectorEntity(); a.setId(10L); a.setMaxCapacity(10);
+        var b = new SectorEntity(); b.setId(11L); b.setMaxCapacity(10);
+        var spot = new SpotEntity(); spot.setId(120L);
+
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(a, b));
+        when(spotRepo.countOccupiedInSector(10L)).thenReturn(3L);
+        when(spotRepo.countOccupiedInSector(11L)).thenReturn(3L);
+        // setor 10 sem linha livre (ou todas travadas por outros nós)
+        when(spotRepo.lockFirstFreeInSector(10L)).thenReturn(Optional.empty());
+        when(spotRepo.lockFirstFreeInSector(11L)).thenReturn(Optional.of(120L));
+        when(spotRepo.tryOccupy(120L, EntryAllocator.CLAIMED)).thenReturn(1);
+        when(spotRepo.getReferenceById(120L)).thenReturn(spot);
+
+        var res = skipLocked.claim();
+
+        assertThat(res).isNotNull();
+        assertThat(res.sector().id()).isEqualTo(11L);
+        assertThat(res.spot().getId()).isEqualTo(120L);
+        verifyNoInteractions(freeSpots, occupancy);
+    }
+
+    @Test
+    void skip_locked_respects_max_capacity_even_with_free_rows() {
+        var skipLocked = new EntryAllocator(registry, new LowestIdStrategy(registry, spotRepo), spotRepo, occupancy, freeSpots, occupancyEvents, "skip-locked");
+        // capacidade 2, mas o setor tem mais vagas físicas que isso
+        var a = new SectorEntity(); a.setId(10L); a.setMaxCapacity(2);
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(a));
+        when(spotRepo.countOccupiedInSector(10L)).thenReturn(2L);
+
+        assertThat(skipLocked.claim()).isNull();
+        verify(spotRepo, never()).lockFirstFreeInSector(anyLong());
+        verify(spotRepo, never()).tryOccupy(anyLong(), anyLong());
+    }
+
+    @Test
+    void skip_locked_leaves_capacity_to_the_claim_not_to_the_local_counters() {
+        var skipLocked = new EntryAllocator(registry, new LowestIdStrategy(registry, spotRepo), spotRepo, occupancy, freeSpots, occupancyEvents, "skip-locked");
+        var a = new SectorEntity(); a.setId(10L); a.setMaxCapacity(10);
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(a));
+
+        // os contadores deste nó ainda não viram os EXITs dos outros nós
+        assertThat(skipLocked.hasRoom()).isTrue();
+        verifyNoInteractions(occupancy);
+    }
+
+    @Test
+    void skip_locked_with_per_node_counters_fails_at_startup() {
+        var counters = mock(CountingOccupancyService.class);
+
+        assertThatThrownBy(() -> new EntryAllocator(registry, new LowestIdStrategy(registry, spotRepo), spotRepo, counters, freeSpots, occupancyEvents, "skip-locked"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.occupancy.mode=queries");
+    }
+
+    @Test
+    void no_room_when_every_sector_is_full() {
+        var a = new SectorEntity(); a.setId(10L); a.setMaxCapacity(10);
+        var b = new SectorEntity(); b.setId(11L); b.setMaxCapacity(10);
+        when(sectorRepo.findAll()).thenReturn(java.util.List.of(a, b));
+        when(occupancy.isSectorFull(10L)).thenReturn(true);
+        when(occupancy.isSectorFull(11L)).thenReturn(true);
+
+        assertThat(allocator.hasRoom()).isFalse();
+        verifyNoInteractions(spotRepo);
+    }
+
+    @Test
+    void assign_swaps_the_claim_for_the_session() {
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
+        var spot = new SpotEntity(); spot.setId(100L);
+        var allocation = new EntryAllocator.Allocation(SectorRegistry.SectorInfo.of(sector), spot);
+        when(spotRepo.trySwapOccupant(100L, EntryAllocator.CLAIMED, 7L)).thenReturn(1);
+
+        allocator.assign(allocation, 7L);
+
+        verify(spotRepo).trySwapOccupant(100L, EntryAllocator.CLAIMED, 7L);
+        verify(occupancyEvents).occupied(10L, 100L, 7L);
+    }
+
+    @Test
+    void assign_fails_when_the_claim_is_gone() {
+        var sector = new SectorEntity(); sector.setId(10L); sector.setMaxCapacity(10);
+        var spot = new SpotEntity(); spot.setId(100L);
+        var allocation = new EntryAllocator.Allocation(SectorRegistry.SectorInfo.of(sector), spot);
+        when(spotRepo.trySwapOccupant(100L, EntryAllocator.CLAIMED, 7L)).thenReturn(0);
+
+        assertThatThrownBy(() -> allocator.assign(allocation, 7L)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static SectorOccupancy taken(Long sectorId, long taken) {
+        return new SectorOccupancy() {
+            public Long getSectorId() { return sectorId; }
+            public long getTotal() { return 0; }
+            public long getTaken() { return taken; }
+        };
+    }
+}
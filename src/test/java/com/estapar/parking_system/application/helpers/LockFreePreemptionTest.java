@@ -0,0 +1,232 @@
+package com.estapar.parking_system.application.helpers;
+
+import com.estapar.parking_system.application.index.OccupancyBoard;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.entity.SpotEntity;
+import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.estapar.parking_system.application.helpers.LockFreePreemption.DISPLACED_SQL;
+import static com.estapar.parking_system.application.helpers.LockFreePreemption.MOVE_SQL;
+import static com.estapar.parking_system.application.helpers.ParkingPreemption.Result.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LockFreePreemptionTest {
+
+    SpotRepository spotRepo = mock(SpotRepository.class);
+    SectorRepository sectorRepo = mock(SectorRepository.class);
+    JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    ParkingPreemption fallback = mock(ParkingPreemption.class);
+    SpotOccupancyEvents occupancyEvents = mock(SpotOccupancyEvents.class);
+
+    SectorEntity a = sector(1L, "A", "10.00");
+    SectorEntity b = sector(2L, "B", "5.00");
+
+    OccupancyBoard board = new OccupancyBoard(spotRepo);
+    LockFreePreemption preemption = new LockFreePreemption(board, fallback, jdbc,
+            new SectorRegistry(sectorRepo), spotRepo, occupancyEvents);
+
+    /** A: 100 (s10), 101 (s20) · B: 200 */
+    private void garage(Long at100, Long at101, Long at200) {
+        when(sectorRepo.findAll()).thenReturn(List.of(a, b));
+        when(spotRepo.findAllSlots()).thenReturn(List.of(
+                slot(100L, 1L, at100), slot(101L, 1L, at101), slot(200L, 2L, at200)));
+        board.reload();
+    }
+
+    @Test
+    void free_destination_is_taken_and_previous_released_in_one_batch() {
+        garage(10L, null, null);
+        var s = session(10L, spot(100L, 10L, a));
+        var dest = spot(101L, null, a);
+        batchReturns(1, 1);
+
+        var r = preemption.placeOrPreempt(s, dest);
+
+        assertThat(r).isEqualTo(PLACED_FREE);
+        assertThat(batches()).containsExactly(List.of(
+                Arrays.asList(10L, 101L, null),
+                Arrays.asList(null, 100L, 10L)));
+        assertThat(board.occupant(101L)).isEqualTo(10L);
+        assertThat(board.occupant(100L)).isEqualTo(OccupancyBoard.FREE);
+        assertThat(s.getSpot()).isEqualTo(dest);
+        verify(occupancyEvents).occupied(1L, 101L, 10L);
+        verify(occupancyEvents).released(1L, 100L, 10L);
+        verifyNoInteractions(fallback);
+    }
+
+    @Test
+    void displaced_car_is_relocated_to_another_sector_when_its_own_is_full() {
+        garage(10L, 20L, null);
+        var s = session(30L, null);
+        var dest = spot(101L, 20L, a);
+        batchReturns(1, 1);
+
+        var r = preemption.placeOrPreempt(s, dest);
+
+        assertThat(r).isEqualTo(PREEMPTED);
+        assertThat(batches()).containsExactly(List.of(
+                Arrays.asList(20L, 200L, null),
+                Arrays.asList(30L, 101L, 20L)));
+        assertThat(board.occupant(200L)).isEqualTo(20L);
+        assertThat(board.occupant(101L)).isEqualTo(30L);
+        // sessão deslocada vai para a vaga 200 com o preço do setor B
+        verify(jdbc).update(DISPLACED_SQL, 200L, 2L, new BigDecimal("5.00"), 2L, 20L);
+        verify(occupancyEvents).occupied(2L, 200L, 20L);
+        assertThat(s.getSector()).isEqualTo(a);
+    }
+
+    @Test
+    void direct_swap_when_the_requester_spot_is_the_only_alternative() {
+        garage(10L, 20L, 30L);
+        var s = session(10L, spot(100L, 10L, a));
+        var dest = spot(101L, 20L, a);
+        batchReturns(1, 1);
+
+        var r = preemption.placeOrPreempt(s, dest);
+
+        assertThat(r).isEqualTo(PREEMPTED);
+        assertThat(batches()).containsExactly(List.of(
+                Arrays.asList(20L, 100L, 10L),
+                Arrays.asList(10L, 101L, 20L)));
+        verify(jdbc).update(DISPLACED_SQL, 100L, 1L, new BigDecimal("10.00"), 1L, 20L);
+        verifyNoInteractions(occupancyEvents);
+    }
+
+    @Test
+    void no_alternative_is_denied_without_touching_the_database() {
+        garage(10L, 20L, 30L);
+        var s = session(40L, null);
+
+        assertThat(preemption.placeOrPreempt(s, spot(101L, 20L, a))).isEqualTo(DENIED);
+        verifyNoInteractions(jdbc, fallback);
+        assertThat(board.occupant(101L)).isEqualTo(20L);
+    }
+
+    @Test
+    void database_mismatch_reverts_the_batch_and_board_then_falls_back() {
+        garage(10L, null, null);
+        var s = session(10L, spot(100L, 10L, a));
+        var dest = spot(101L, null, a);
+        // a vaga 101 já foi tomada por outra instância; a 100 foi liberada
+        batchReturns(0, 1);
+        when(fallback.placeOrPreempt(s, dest)).thenReturn(NOOP);
+        when(spotRepo.findSlots(List.of(101L, 100L), List.of(10L)))
+                .thenReturn(List.of(slot(101L, 1L, 99L), slot(100L, 1L, 10L)));
+
+        var r = preemption.placeOrPreempt(s, dest);
+
+        assertThat(r).isEqualTo(NOOP);
+        List<List<List<Object>>> batches = batches();
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(1)).containsExactly(Arrays.asList(10L, 100L, null));
+        // quadro volta e depois reflete o que o banco tem
+        assertThat(board.occupant(101L)).isEqualTo(99L);
+        assertThat(board.occupant(100L)).isEqualTo(10L);
+        verifyNoInteractions(occupancyEvents);
+        verify(jdbc, never()).update(eq(DISPLACED_SQL), any(Object[].class));
+    }
+
+    @Test
+    void batch_failure_undoes_the_board_and_propagates() {
+        garage(10L, 20L, null);
+        var s = session(30L, null);
+        var dest = spot(101L, 20L, a);
+        when(jdbc.batchUpdate(eq(MOVE_SQL), anyList())).thenThrow(new CannotAcquireLockException("lock wait timeout"));
+
+        assertThatThrownBy(() -> preemption.placeOrPreempt(s, dest)).isInstanceOf(CannotAcquireLockException.class);
+
+        // o quadro volta ao que o banco tem
+        assertThat(board.occupant(101L)).isEqualTo(20L);
+        assertThat(board.occupant(200L)).isEqualTo(OccupancyBoard.FREE);
+        verifyNoInteractions(occupancyEvents, fallback);
+    }
+
+    @Test
+    void session_moved_away_from_the_spot_it_was_read_on_goes_to_the_database_path() {
+        // a sessão 10 foi lida na 100, mas outro PARKED já a deslocou: a 100 agora é da 20
+        garage(20L, null, 10L);
+        var s = session(10L, spot(100L, 10L, a));
+        var dest = spot(101L, null, a);
+        when(fallback.placeOrPreempt(s, dest)).thenReturn(PLACED_FREE);
+
+        assertThat(preemption.placeOrPreempt(s, dest)).isEqualTo(PLACED_FREE);
+        verify(fallback).placeOrPreempt(s, dest);
+        verify(jdbc, never()).batchUpdate(anyString(), anyList());
+        assertThat(board.occupant(101L)).isEqualTo(OccupancyBoard.FREE);
+    }
+
+    @Test
+    void spot_held_by_an_entry_in_flight_goes_to_the_database_path() {
+        garage(10L, EntryAllocator.CLAIMED, null);
+        var s = session(10L, spot(100L, 10L, a));
+        var dest = spot(101L, EntryAllocator.CLAIMED, a);
+        when(fallback.placeOrPreempt(s, dest)).thenReturn(DENIED);
+
+        assertThat(preemption.placeOrPreempt(s, dest)).isEqualTo(DENIED);
+        verify(fallback).placeOrPreempt(s, dest);
+        verify(jdbc, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private void batchReturns(int... counts) {
+        when(jdbc.batchUpdate(eq(MOVE_SQL), anyList())).thenReturn(counts, new int[]{1, 1, 1});
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<List<Object>>> batches() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbc, atLeastOnce()).batchUpdate(eq(MOVE_SQL), captor.capture());
+        List<List<List<Object>>> batches = new ArrayList<>();
+        for (List<Object[]> batch : captor.getAllValues()) {
+            batches.add(batch.stream().map(Arrays::asList).toList());
+        }
+        return batches;
+    }
+
+    private static VehicleSessionEntity session(long id, SpotEntity spot) {
+        var s = new VehicleSessionEntity();
+        s.setId(id);
+        s.setSpot(spot);
+        if (spot != null) {
+            s.setSector(spot.getSector());
+            s.setBasePrice(spot.getSector().getBasePrice());
+        }
+        return s;
+    }
+
+    private static SpotEntity spot(long id, Long occupiedBy, SectorEntity sector) {
+        var s = new SpotEntity();
+        s.setId(id);
+        s.setOccupiedBySessionId(occupiedBy);
+        s.setSector(sector);
+        return s;
+    }
+
+    private static SectorEntity sector(long id, String code, String base) {
+        return new SectorEntity(id, code, new BigDecimal(base), 10, "00:00", "23:59", 1440);
+    }
+
+    private static SpotSlot slot(Long id, Long sectorId, Long occupiedBy) {
+        return new SpotSlot() {
+            public Long getId() { return id; }
+            public Long getSectorId() { return sectorId; }
+            public Long getOccupiedBySessionId() { return occupiedBy; }
+        };
+    }
+}
@@ -1,15 +1,19 @@
 package com.estapar.parking_system.application.helpers;
 
 
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
 import com.estapar.parking_system.domain.entity.SectorEntity;
 import com.estapar.parking_system.domain.entity.SpotEntity;
 import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
 import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
 import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static com.estapar.parking_system.application.helpers.ParkingPreemption.Result.*;
@@ -20,8 +24,9 @@ class ParkingPreemptionTest {
     SpotRepository spotRepo = mock(SpotRepository.class);
     SectorRepository sectorRepo = mock(SectorRepository.class);
     VehicleSessionRepository vehicleSessionRepository = mock(VehicleSessionRepository.class);
+    SpotOccupancyEvents occupancyEvents = mock(SpotOccupancyEvents.class);
 
-    ParkingPreemption preemption = new ParkingPreemption(spotRepo, sectorRepo, vehicleSessionRepository);
+    ParkingPreemption preemption = new ParkingPreemption(spotRepo, new SectorRegistry(sectorRepo), vehicleSessionRepository, occupancyEvents);
 
     private static VehicleSessionEntity session(long id) {
         var s = new VehicleSessionEntity();
@@ -57,16 +62,41 @@ class ParkingPreemptionTest {
         s.setBasePrice(sec.getBasePrice());
 
         when(spotRepo.tryOccupy(200L, 10L)).thenReturn(1);
+        when(spotRepo.lockHeldBy(10L)).thenReturn(List.of(slot(100L, 1L, 10L), slot(200L, 1L, 10L)));
+        when(spotRepo.releaseIfHeldBy(100L, 10L)).thenReturn(1);
 
         var r = preemption.placeOrPreempt(s, dest);
 
         assertThat(r).isEqualTo(PLACED_FREE);
-        // prev foi liberada
-        verify(spotRepo).save(argThat(p -> p.getId().equals(100L) && p.getOccupiedBySessionId() == null));
+        // prev foi liberada, o destino não
+        verify(spotRepo).releaseIfHeldBy(100L, 10L);
+        verify(spotRepo, never()).releaseIfHeldBy(eq(200L), any());
         // s agora aponta para dest e mantém setor/basePrice iguais (mesmo setor)
         assertThat(s.getSpot()).isEqualTo(dest);
         assertThat(s.getSector()).isEqualTo(sec);
         assertThat(s.getBasePrice()).isEqualByComparingTo(new BigDecimal("40.50"));
+        // estruturas em memória acompanham: destino ocupado, prev liberada
+        verify(occupancyEvents).occupied(1L, 200L, 10L);
+        verify(occupancyEvents).released(1L, 100L, 10L);
+    }
+
+    @Test
+    void free_destination_releases_the_spot_the_session_holds_now() {
+        var sec = sector(1L, "A", "40.50");
+        var dest = spot(200L, null, sec);
+        var s = session(10L);
+        // lida na 100, mas outro PARKED já deslocou a sessão para a 300
+        s.setSpot(spot(100L, 10L, sec));
+
+        when(spotRepo.tryOccupy(200L, 10L)).thenReturn(1);
+        when(spotRepo.lockHeldBy(10L)).thenReturn(List.of(slot(200L, 1L, 10L), slot(300L, 1L, 10L)));
+        when(spotRepo.releaseIfHeldBy(300L, 10L)).thenReturn(1);
+
+        assertThat(preemption.placeOrPreempt(s, dest)).isEqualTo(PLACED_FREE);
+
+        verify(spotRepo).releaseIfHeldBy(300L, 10L);
+        verify(spotRepo, never()).releaseIfHeldBy(eq(100L), any());
+        verify(occupancyEvents).released(1L, 300L, 10L);
     }
 
     @Test
@@ -200,5 +230,12 @@ class ParkingPreemptionTest {
     }
 
      */
-}
 
+    private static SpotSlot slot(Long id, Long sectorId, Long occupiedBy) {
+        return new SpotSlot() {
+            public Long getId() { return id; }
+            public Long getSectorId() { return sectorId; }
+            public Long getOccupiedBySessionId() { return occupiedBy; }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.estapar.parking_system.application.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TimeParserTest {
+
+    @Test
+    void common_shapes_take_the_fast_path() {
+        assertThat(TimeParser.scan("2025-01-01T12:00:00Z")).isEqualTo(Instant.parse("2025-01-01T12:00:00Z"));
+        assertThat(TimeParser.scan("2025-01-01T12:00:00.123Z")).isEqualTo(Instant.parse("2025-01-01T12:00:00.123Z"));
+        assertThat(TimeParser.scan("2025-01-01T12:00:00.123456789Z")).isEqualTo(Instant.parse("2025-01-01T12:00:00.123456789Z"));
+        assertThat(TimeParser.scan("2025-01-01T12:00:00")).isEqualTo(Instant.parse("2025-01-01T12:00:00Z"));
+        assertThat(TimeParser.scan("2025-01-01T12:00")).isEqualTo(Instant.parse("2025-01-01T12:00:00Z"));
+        assertThat(TimeParser.scan("2025-01-01T12:00:00-03:00")).isEqualTo(Instant.parse("2025-01-01T15:00:00Z"));
+        assertThat(TimeParser.scan("2024-02-29T23:59:59+05:30")).isEqualTo(Instant.parse("2024-02-29T18:29:59Z"));
+    }
+
+    @Test
+    void exotic_or_invalid_inputs_fall_back_to_the_legacy_chain() {
+        assertThat(TimeParser.scan("2025-02-30T12:00:00Z")).isNull();
+        assertThat(TimeParser.scan("2025-01-01t12:00:00z")).isNull();
+        assertThat(TimeParser.scan("2025-01-01T12:00:00+0100")).isNull();
+        assertThat(TimeParser.scan("2025-01-01T12:00Z")).isNull();
+        assertThat(TimeParser.scan("2025-01-01T23:59:60Z")).isNull();
+
+        assertThat(TimeParser.parseInstantSafe("2025-01-01t12:00:00z")).isEqualTo(Instant.parse("2025-01-01T12:00:00Z"));
+        assertThatThrownBy(() -> TimeParser.parseInstantSafe("2025-02-30T12:00:00Z")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeParser.parseInstantSafe("2025-01-01T12:00:00+0100")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeParser.parseInstantSafe("  ")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** whenever the scanner answers, the legacy chain must give the very same Instant */
+    @Test
+    void scanner_agrees_with_legacy_parser_on_random_inputs() {
+        var rnd = new Random(11);
+        String[] zones = {"", "Z", "z", "+00:00", "-03:00", "+05:30", "+18:00", "-1800", "+01", "X", ".", ".Z"};
+        int fast = 0;
+        for (int i = 0; i < 50_000; i++) {
+            var sb = new StringBuilder();
+            sb.append(String.format("%04d-%02d-%02dT%02d:%02d", rnd.nextInt(10_000), rnd.nextInt(14), rnd.nextInt(33),
+                    rnd.nextInt(26), rnd.nextInt(62)));
+            if (rnd.nextInt(4) > 0) sb.append(String.format(":%02d", rnd.nextInt(62)));
+            if (rnd.nextInt(3) == 0) {
+                sb.append('.');
+                int digits = rnd.nextInt(11);
+                for (int d = 0; d < digits; d++) sb.append(rnd.nextInt(10));
+            }
+            sb.append(zones[rnd.nextInt(zones.length)]);
+            String input = sb.toString();
+
+            Instant scanned = TimeParser.scan(input);
+            if (scanned == null) continue;
+            fast++;
+            assertThat(TimeParser.parseLegacy(input)).as(input).isEqualTo(scanned);
+        }
+        assertThat(fast).isGreaterThan(5_000);
+    }
+}
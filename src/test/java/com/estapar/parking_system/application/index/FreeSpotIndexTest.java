@@ -0,0 +1,68 @@
+package com.estapar.parking_system.application.index;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class FreeSpotIndexTest {
+
+    SpotRepository spotRepo = mock(SpotRepository.class);
+    FreeSpotIndex index = new FreeSpotIndex(spotRepo);
+
+    private static SpotSlot slot(long id, long sectorId, Long occupiedBy) {
+        return new SpotSlot() {
+            public Long getId() { return id; }
+            public Long getSectorId() { return sectorId; }
+            public Long getOccupiedBySessionId() { return occupiedBy; }
+        };
+    }
+
+    @Test
+    void seeds_lazily_and_hands_out_free_spots_in_id_order() {
+        when(spotRepo.findAllSlots()).thenReturn(List.of(
+                slot(1, 10, 99L), slot(2, 10, null), slot(3, 10, null), slot(4, 20, null)));
+
+        assertThat(index.poll(10L)).isEqualTo(2L);
+        assertThat(index.poll(10L)).isEqualTo(3L);
+        assertThat(index.poll(10L)).isNull();
+        assertThat(index.poll(20L)).isEqualTo(4L);
+        verify(spotRepo, times(1)).findAllSlots();
+    }
+
+    @Test
+    void occupied_spot_is_skipped_and_released_spot_comes_back() {
+        when(spotRepo.findAllSlots()).thenReturn(List.of(slot(1, 10, null), slot(2, 10, null)));
+
+        index.occupied(10L, 1L);
+        assertThat(index.poll(10L)).isEqualTo(2L);
+        assertThat(index.poll(10L)).isNull();
+
+        index.released(10L, 1L);
+        index.released(10L, 1L); // idempotente
+        assertThat(index.poll(10L)).isEqualTo(1L);
+        assertThat(index.poll(10L)).isNull();
+    }
+
+    @Test
+    void resync_replaces_sector_list_from_database() {
+        when(spotRepo.findAllSlots()).thenReturn(List.of(slot(1, 10, 77L)));
+        when(spotRepo.findFreeIdsInSector(10L)).thenReturn(List.of(1L));
+
+        assertThat(index.poll(10L)).isNull();
+        index.resync(10L);
+        assertThat(index.poll(10L)).isEqualTo(1L);
+    }
+
+    @Test
+    void unknown_sector_is_ignored() {
+        when(spotRepo.findAllSlots()).thenReturn(List.of());
+
+        index.released(10L, 42L);
+        assertThat(index.poll(10L)).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+package com.estapar.parking_system.application.index;
+
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SpotSpatialIndexTest {
+
+    SpotRepository spotRepo = mock(SpotRepository.class);
+    SpotSpatialIndex index = new SpotSpatialIndex(spotRepo);
+
+    private static SpotPoint point(long id, long sectorId, String lat, String lng) {
+        return new SpotPoint() {
+            public Long getId() { return id; }
+            public Long getSectorId() { return sectorId; }
+            public BigDecimal getLat() { return new BigDecimal(lat); }
+            public BigDecimal getLng() { return new BigDecimal(lng); }
+        };
+    }
+
+    /** the old ORDER BY ABS(lat - :lat) + ABS(lng - :lng) LIMIT 1, ties by id */
+    private static long bruteForce(List<SpotPoint> points, BigDecimal lat, BigDecimal lng) {
+        return points.stream()
+                .min(Comparator.<SpotPoint, BigDecimal>comparing(p -> p.getLat().subtract(lat).abs().add(p.getLng().subtract(lng).abs()))
+                        .thenComparing(SpotPoint::getId))
+                .map(SpotPoint::getId)
+                .orElseThrow();
+    }
+
+    @Test
+    void nearest_matches_manhattan_brute_force_on_random_garage() {
+        var rnd = new Random(42);
+        List<SpotPoint> points = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            // grade pequena para forçar empates de distância
+            String lat = BigDecimal.valueOf(-23_561_000L - rnd.nextInt(400), 6).toPlainString();
+            String lng = BigDecimal.valueOf(-46_655_000L - rnd.nextInt(400), 6).toPlainString();
+            points.add(point(id, 1 + id % 3, lat, lng));
+        }
+        when(spotRepo.findAllPoints()).thenReturn(points);
+
+        for (int i = 0; i < 500; i++) {
+            var lat = BigDecimal.valueOf(-23_561_000L - rnd.nextInt(500) + 50, 6);
+            var lng = BigDecimal.valueOf(-46_655_000L - rnd.nextInt(500) + 50, 6);
+
+            assertThat(index.nearestGlobal(lat, lng)).contains(bruteForce(points, lat, lng));
+
+            long sector = 1 + rnd.nextInt(3);
+            var inSector = points.stream().filter(p -> p.getSectorId() == sector).toList();
+            assertThat(index.nearestInSector(sector, lat, lng)).contains(bruteForce(inSector, lat, lng));
+        }
+        verify(spotRepo, times(1)).findAllPoints();
+    }
+
+    @Test
+    void unknown_sector_and_empty_garage_return_empty() {
+        when(spotRepo.findAllPoints()).thenReturn(List.of());
+
+        assertThat(index.nearestGlobal(BigDecimal.ONE, BigDecimal.ONE)).isEmpty();
+        assertThat(index.nearestInSector(7L, BigDecimal.ONE, BigDecimal.ONE)).isEmpty();
+    }
+
+    @Test
+    void reload_swaps_snapshot() {
+        when(spotRepo.findAllPoints())
+                .thenReturn(List.of(point(1, 1, "1.0", "1.0")))
+                .thenReturn(List.of(point(1, 1, "1.0", "1.0"), point(2, 1, "5.0", "5.0")));
+
+        assertThat(index.nearestGlobal(new BigDecimal("5.0"), new BigDecimal("5.0"))).contains(1L);
+        index.reload();
+        assertThat(index.nearestGlobal(new BigDecimal("5.0"), new BigDecimal("5.0"))).contains(2L);
+    }
+
+    @Test
+    void exact_matches_ignore_decimal_scale_and_keep_id_order() {
+        when(spotRepo.findAllPoints()).thenReturn(List.of(
+                point(9, 1, "-23.561684", "-46.655981"),
+                point(3, 2, "-23.5616840", "-46.6559810"),
+                point(4, 1, "-23.561685", "-46.655981")));
+
+        assertThat(index.exactMatches(new BigDecimal("-23.561684"), new BigDecimal("-46.655981"))).containsExactly(3L, 9L);
+        assertThat(index.exactMatches(new BigDecimal("-23.56168500"), new BigDecimal("-46.655981"))).containsExactly(4L);
+        assertThat(index.exactMatches(new BigDecimal("-23.561686"), new BigDecimal("-46.655981"))).isEmpty();
+    }
+
+    @Test
+    void coordinate_key_is_injective_over_the_globe_corners() {
+        assertThat(CoordinateCodec.key(-90_000_000L, -180_000_000L)).isZero();
+        assertThat(CoordinateCodec.key(-90_000_000L, 180_000_000L)).isLessThan(CoordinateCodec.key(-89_999_999L, -180_000_000L));
+        assertThat(CoordinateCodec.key(90_000_000L, 180_000_000L)).isPositive();
+    }
+}
@@ -1,6 +1,17 @@
 package com.estapar.parking_system.application.service;
 
+import com.estapar.parking_system.application.cache.RevenueCache;
+import com.estapar.parking_system.api.dto.RevenueDtos.Granularity;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRangeRequest;
+import com.estapar.parking_system.api.dto.RevenueDtos.RevenueRow;
+import com.estapar.parking_system.domain.events.SessionClosedEvent;
+import com.estapar.parking_system.domain.exceptions.InvalidRevenueRangeException;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository.RevenueBucket;
 import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,57 +19,62 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class RevenueServiceTest {
 
+    @Mock
+    private RevenueDailyRepository revenueDaily;
+
     @Mock
     private VehicleSessionRepository sessionRepo;
 
+    private RevenueCache cache;
     private RevenueService service;
 
     @BeforeEach
     void setUp() {
-        service = new RevenueService(sessionRepo);
+        cache = new RevenueCache(100, Duration.ofHours(1), new SimpleMeterRegistry());
+        SectorRegistry sectors = new SectorRegistry(null);
+        sectors.replace(List.of(new SectorInfo(1L, "A", new BigDecimal("40.50"), 10, "00:00", "23:59", 1440)));
+        service = new RevenueService(revenueDaily, cache, sessionRepo, sectors);
     }
 
     @Test
-    void shouldComputeRevenueForDateAndSector_inUTCWindow_andScale2() {
-        String date = "2025-01-01";
-        String sector = "A";
-
-        Instant expectedStart = LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant();
-        Instant expectedEnd   = LocalDate.parse(date).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
-
-        when(sessionRepo.sumChargedBetweenAndSector(any(), any(), any()))
+    void shouldComputeRevenueForDateAndSector_fromDailyRollup_andScale2() {
+        when(revenueDaily.amountForDayAndSector(any(), any()))
                 .thenReturn(new BigDecimal("123.45"));
 
-        var resp = service.revenueForDate(date, sector);
+        var resp = service.revenueForDate("2025-01-01", "A");
 
-        ArgumentCaptor<Instant> startCap = ArgumentCaptor.forClass(Instant.class);
-        ArgumentCaptor<Instant> endCap   = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<LocalDate> dayCap = ArgumentCaptor.forClass(LocalDate.class);
         ArgumentCaptor<String> sectorCap = ArgumentCaptor.forClass(String.class);
 
-        verify(sessionRepo).sumChargedBetweenAndSector(startCap.capture(), endCap.capture(), sectorCap.capture());
+        verify(revenueDaily).amountForDayAndSector(dayCap.capture(), sectorCap.capture());
+        verify(revenueDaily, never()).sumForDay(any());
 
-        assertThat(startCap.getValue()).isEqualTo(expectedStart);
-        assertThat(endCap.getValue()).isEqualTo(expectedEnd);
+        assertThat(dayCap.getValue()).isEqualTo(LocalDate.of(2025, 1, 1));
         assertThat(sectorCap.getValue()).isEqualTo("A");
 
         assertThat(resp.amount()).isEqualByComparingTo(new BigDecimal("123.45"));
+        assertThat(resp.amount().scale()).isEqualTo(2);
         assertThat(resp.currency()).isEqualTo("BRL");
         assertThat(resp.timestamp()).isNotBlank();
     }
 
     @Test
     void shouldReturnZeroWhenRepositoryReturnsNull() {
-        when(sessionRepo.sumChargedBetweenAndSector(any(), any(), any()))
+        when(revenueDaily.amountForDayAndSector(any(), any()))
                 .thenReturn(null);
 
         var resp = service.revenueForDate("2025-01-01", "A");
@@ -68,13 +84,103 @@ class RevenueServiceTest {
     }
 
     @Test
-    void shouldTreatBlankSectorAsNull() {
-        when(sessionRepo.sumChargedBetweenAndSector(any(), any(), isNull()))
+    void shouldTreatBlankSectorAsWholeGarage() {
+        when(revenueDaily.sumForDay(LocalDate.of(2025, 1, 1)))
                 .thenReturn(new BigDecimal("10.00"));
 
         var resp = service.revenueForDate("2025-01-01", "   ");
 
         assertThat(resp.amount()).isEqualByComparingTo(new BigDecimal("10.00"));
-        verify(sessionRepo).sumChargedBetweenAndSector(any(), any(), isNull());
+        verify(revenueDaily).sumForDay(LocalDate.of(2025, 1, 1));
+        verify(revenueDaily, never()).amountForDayAndSector(any(), any());
+    }
+
+    @Test
+    void repeatedQueriesForTheSameDayAndSectorHitTheCache() {
+        when(revenueDaily.amountForDayAndSector(LocalDate.of(2025, 1, 1), "A"))
+                .thenReturn(new BigDecimal("10.00"));
+
+        service.revenueForDate("2025-01-01", "A");
+        var cached = service.revenueForDate("2025-01-01", "A");
+        assertThat(cached.amount()).isEqualByComparingTo("10.00");
+        verify(revenueDaily, times(1)).amountForDayAndSector(any(), any());
+    }
+
+    @Test
+    void sectorInAnotherCaseIsCachedUnderTheStoredCodeAndClearedByItsExit() {
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        when(revenueDaily.amountForDayAndSector(day, "A"))
+                .thenReturn(new BigDecimal("10.00"), new BigDecimal("25.00"));
+
+        service.revenueForDate("2025-01-01", "a");
+        assertThat(service.revenueForDate("2025-01-01", "A").amount()).isEqualByComparingTo("10.00");
+
+        // o EXIT invalida pelo código gravado no banco
+        cache.onSessionClosed(new SessionClosedEvent(day, "A"));
+
+        assertThat(service.revenueForDate("2025-01-01", "a").amount()).isEqualByComparingTo("25.00");
+        verify(revenueDaily, times(2)).amountForDayAndSector(day, "A");
+    }
+
+    @Test
+    void unknownSectorIsNotCached() {
+        when(revenueDaily.amountForDayAndSector(LocalDate.of(2025, 1, 1), "Z"))
+                .thenReturn(null);
+
+        service.revenueForDate("2025-01-01", "Z");
+        service.revenueForDate("2025-01-01", "Z");
+
+        verify(revenueDaily, times(2)).amountForDayAndSector(any(), any());
+    }
+
+    private static RevenueBucket bucket(long bucket, String sector, String amount, long sessions) {
+        return new RevenueBucket() {
+            public Long getBucket() { return bucket; }
+            public String getSectorCode() { return sector; }
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+            public Long getSessions() { return sessions; }
+        };
+    }
+
+    @Test
+    void dayRangeStreamsRollupRowsWithLabels() {
+        var range = service.parseRange(new RevenueRangeRequest("2025-01-01", "2025-01-02", List.of("A", " ", "A"), Granularity.DAY));
+        long jan1 = LocalDate.of(2025, 1, 1).toEpochDay();
+        when(revenueDaily.streamByDay(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 2), false, List.of("A")))
+                .thenReturn(Stream.of(bucket(jan1, "A", "10.5", 2), bucket(jan1 + 1, "A", "3", 1)));
+
+        List<RevenueRow> rows = new ArrayList<>();
+        service.streamRange(range, rows::add);
+
+        assertThat(rows).containsExactly(
+                new RevenueRow("2025-01-01", "A", new BigDecimal("10.50"), 2),
+                new RevenueRow("2025-01-02", "A", new BigDecimal("3.00"), 1));
+        verifyNoInteractions(sessionRepo);
+    }
+
+    @Test
+    void hourRangeReadsSessionsOverTheWholeUtcDays() {
+        var range = service.parseRange(new RevenueRangeRequest("2025-01-01", "2025-01-01", null, Granularity.HOUR));
+        long hour = Instant.parse("2025-01-01T13:00:00Z").getEpochSecond() / 3600;
+        when(sessionRepo.streamByHour(Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-02T00:00:00Z"), true, List.of("")))
+                .thenReturn(Stream.of(bucket(hour, null, "4.10", 1)));
+
+        List<RevenueRow> rows = new ArrayList<>();
+        service.streamRange(range, rows::add);
+
+        assertThat(rows).containsExactly(new RevenueRow("2025-01-01T13:00:00Z", null, new BigDecimal("4.10"), 1));
+    }
+
+    @Test
+    void monthLabelsCountFromJanuary1970() {
+        assertThat(RevenueService.bucketLabel(Granularity.MONTH, (2025 - 1970) * 12 + 2)).isEqualTo("2025-03");
+    }
+
+    @Test
+    void rangeEndingBeforeItStartsIsRejected() {
+        assertThatThrownBy(() -> service.parseRange(new RevenueRangeRequest("2025-02-01", "2025-01-01", null, Granularity.DAY)))
+                .isInstanceOf(InvalidRevenueRangeException.class);
+        assertThatThrownBy(() -> service.parseRange(new RevenueRangeRequest("2025-13-01", "2025-01-01", null, Granularity.DAY)))
+                .isInstanceOf(InvalidRevenueRangeException.class);
     }
 }
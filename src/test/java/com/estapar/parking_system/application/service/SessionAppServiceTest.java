@@ -1,26 +1,36 @@
 package com.estapar.parking_system.application.service;
 
 import com.estapar.parking_system.api.dto.WebhookDtos;
+import com.estapar.parking_system.application.cache.OpenSessionCache;
 import com.estapar.parking_system.application.helpers.EntryAllocator;
 import com.estapar.parking_system.application.helpers.ParkingPreemption;
+import com.estapar.parking_system.application.index.CoordinateCodec;
+import com.estapar.parking_system.application.index.SpotOccupancyEvents;
+import com.estapar.parking_system.application.index.SpotSpatialIndex;
 import com.estapar.parking_system.domain.entity.SectorEntity;
 import com.estapar.parking_system.domain.entity.SpotEntity;
 import com.estapar.parking_system.domain.entity.VehicleSessionEntity;
+import com.estapar.parking_system.domain.events.SessionClosedEvent;
 import com.estapar.parking_system.domain.exceptions.GarageFullException;
+import com.estapar.parking_system.domain.repository.RevenueDailyRepository;
 import com.estapar.parking_system.domain.repository.SectorRepository;
 import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SpotSlot;
 import com.estapar.parking_system.domain.repository.VehicleSessionRepository;
 import com.estapar.parking_system.domain.service.DynamicFactorService;
 import com.estapar.parking_system.domain.service.OccupancyService;
 import com.estapar.parking_system.domain.service.PricingService;
+import com.estapar.parking_system.domain.service.SectorRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,9 +46,15 @@ class SessionAppServiceTest {
     @Mock DynamicFactorService dynamicFactorService;
     @Mock SpotRepository spotRepo;
     @Mock SectorRepository sectorRepo;
+    @Mock SectorRegistry sectorRegistry;
     @Mock PricingService pricingService;
     @Mock EntryAllocator entryAllocator;
     @Mock ParkingPreemption preemption;
+    @Mock SpotOccupancyEvents occupancyEvents;
+    @Mock SpotSpatialIndex spatialIndex;
+    @Mock RevenueDailyRepository revenueDaily;
+    @Mock ApplicationEventPublisher events;
+    @Mock OpenSessionCache openSessions;
 
     SessionAppService service;
 
@@ -46,8 +62,8 @@ class SessionAppServiceTest {
     void setUp() {
         service = new SessionAppService(
                 sessionRepo, occupancyService, dynamicFactorService,
-                spotRepo, sectorRepo, pricingService,
-                entryAllocator, preemption
+                spotRepo, sectorRepo, sectorRegistry, pricingService,
+                entryAllocator, preemption, occupancyEvents, spatialIndex, revenueDaily, events, openSessions
         );
     }
 
@@ -56,32 +72,42 @@ class SessionAppServiceTest {
     void handleEntry_success_reserves_spot_and_sets_sector_basePrice() {
         var evt = new WebhookDtos.EntryEvent("AAA1234", "2025-01-01T12:00:00Z", WebhookDtos.EventType.ENTRY);
 
+        when(entryAllocator.hasRoom()).thenReturn(true);
         when(sessionRepo.countOpenByPlate("AAA1234")).thenReturn(0L);
 
         when(occupancyService.globalRatioBySpots()).thenReturn(new BigDecimal("0.10"));
-        when(dynamicFactorService.compute(new BigDecimal("0.10"))).thenReturn(new BigDecimal("0.90"));
-
-        // 1º save retorna sessão com ID gerado
-        var saved = new VehicleSessionEntity();
-        saved.setId(77L);
-        when(sessionRepo.save(any(VehicleSessionEntity.class))).thenAnswer(inv -> {
-            VehicleSessionEntity s = inv.getArgument(0);
-            if (s.getId() == null) return saved; // primeira persistência (gera ID)
-            return s; // demais
-        });
+        when(dynamicFactorService.compute(any(), eq(new BigDecimal("0.10")), any())).thenReturn(new BigDecimal("0.90"));
 
         var sec = sector(1L, "A", new BigDecimal("40.50"));
         var spot = spot(10L, null, sec);
-        when(entryAllocator.allocateForSession(77L)).thenReturn(new EntryAllocator.Allocation(sec, spot));
+        var allocation = new EntryAllocator.Allocation(SectorRegistry.SectorInfo.of(sec), spot);
+        when(entryAllocator.claim()).thenReturn(allocation);
+        when(sectorRepo.getReferenceById(1L)).thenReturn(sec);
+
+        // a sessão já vai completa no único insert
+        var captor = ArgumentCaptor.forClass(VehicleSessionEntity.class);
+        when(sessionRepo.save(captor.capture())).thenAnswer(inv -> {
+            VehicleSessionEntity s = inv.getArgument(0);
+            s.setId(77L);
+            return s;
+        });
 
         service.handleEntry(evt);
 
-        verify(sessionRepo, atLeast(2)).save(any(VehicleSessionEntity.class));
-        verify(sessionRepo, never()).deleteById(anyLong());
+        verify(sessionRepo, times(1)).save(any(VehicleSessionEntity.class));
+        var inserted = captor.getValue();
+        assertThat(inserted.getSpot()).isSameAs(spot);
+        assertThat(inserted.getSector()).isSameAs(sec);
+        assertThat(inserted.getBasePrice()).isEqualByComparingTo("40.50");
+        assertThat(inserted.getPriceFactor()).isEqualByComparingTo("0.90");
+        // fator final usa as regras do setor reservado, na hora da entrada
+        verify(dynamicFactorService).compute("A", new BigDecimal("0.10"), Instant.parse("2025-01-01T12:00:00Z"));
+        verify(entryAllocator).assign(allocation, 77L);
+        verify(openSessions).opened("AAA1234", 77L);
     }
 
     @Test
-    void handleEntry_duplicate_plate_is_ignored() {
+    void handleEntry_duplicate_plate_is_ignored_even_when_the_garage_is_full() {
         var evt = new WebhookDtos.EntryEvent("AAA1234", "2025-01-01T12:00:00Z", WebhookDtos.EventType.ENTRY);
         when(sessionRepo.countOpenByPlate("AAA1234")).thenReturn(1L);
 
@@ -92,23 +118,61 @@ class SessionAppServiceTest {
     }
 
     @Test
-    void handleEntry_no_spot_available_deletes_session_and_throws() {
+    void handleEntry_goes_by_the_plate_index_not_the_session_cache() {
         var evt = new WebhookDtos.EntryEvent("AAA1234", "2025-01-01T12:00:00Z", WebhookDtos.EventType.ENTRY);
+        // o EXIT pode ter passado por outra instância: quem decide é o índice da placa
+        when(sessionRepo.countOpenByPlate("AAA1234")).thenReturn(0L);
+        when(entryAllocator.hasRoom()).thenReturn(true);
+        when(occupancyService.globalRatioBySpots()).thenReturn(new BigDecimal("0.10"));
+
+        var sec = sector(1L, "A", new BigDecimal("40.50"));
+        var allocation = new EntryAllocator.Allocation(SectorRegistry.SectorInfo.of(sec), spot(10L, null, sec));
+        when(entryAllocator.claim()).thenReturn(allocation);
+        when(sectorRepo.getReferenceById(1L)).thenReturn(sec);
+        when(sessionRepo.save(any())).thenAnswer(inv -> {
+            VehicleSessionEntity s = inv.getArgument(0);
+            s.setId(6L);
+            return s;
+        });
 
+        service.handleEntry(evt);
+
+        verify(openSessions, never()).openSessionId(any());
+        verify(sessionRepo, times(1)).countOpenByPlate("AAA1234");
+        verify(entryAllocator).assign(allocation, 6L);
+        // a entrada velha, se houver, é sobrescrita no commit
+        verify(openSessions).opened("AAA1234", 6L);
+    }
+
+    @Test
+    void handleEntry_full_garage_is_rejected_without_touching_sessions() {
+        var evt = new WebhookDtos.EntryEvent("AAA1234", "2025-01-01T12:00:00Z", WebhookDtos.EventType.ENTRY);
         when(sessionRepo.countOpenByPlate("AAA1234")).thenReturn(0L);
-        when(occupancyService.globalRatioBySpots()).thenReturn(new BigDecimal("0.75"));
-        when(dynamicFactorService.compute(new BigDecimal("0.75"))).thenReturn(new BigDecimal("1.10"));
+        when(entryAllocator.hasRoom()).thenReturn(false);
 
-        var persisted = new VehicleSessionEntity(); persisted.setId(999L);
-        when(sessionRepo.save(any(VehicleSessionEntity.class))).thenReturn(persisted);
+        assertThatThrownBy(() -> service.handleEntry(evt))
+                .isInstanceOf(GarageFullException.class)
+                .hasMessageContaining("Garage is full");
 
-        when(entryAllocator.allocateForSession(999L)).thenReturn(null);
+        verify(sessionRepo, never()).save(any());
+        verify(entryAllocator, never()).claim();
+    }
+
+    @Test
+    void handleEntry_claim_lost_to_a_race_throws_before_insert() {
+        var evt = new WebhookDtos.EntryEvent("AAA1234", "2025-01-01T12:00:00Z", WebhookDtos.EventType.ENTRY);
+
+        when(entryAllocator.hasRoom()).thenReturn(true);
+        when(sessionRepo.countOpenByPlate("AAA1234")).thenReturn(0L);
+        when(occupancyService.globalRatioBySpots()).thenReturn(new BigDecimal("0.75"));
+        when(entryAllocator.claim()).thenReturn(null);
 
         assertThatThrownBy(() -> service.handleEntry(evt))
                 .isInstanceOf(GarageFullException.class)
                 .hasMessageContaining("Garage is full");
 
-        verify(sessionRepo).deleteById(999L);
+        verify(sessionRepo, never()).save(any());
+        verify(sessionRepo, never()).deleteById(anyLong());
     }
 
     @Test
@@ -121,8 +185,9 @@ class SessionAppServiceTest {
 
         var sec = sector(1L, "A", new BigDecimal("40.50"));
         var dest = spot(200L, null, sec);
-        when(spotRepo.findAllByLatAndLngOrderByIdAsc(new BigDecimal("1.0"), new BigDecimal("2.0")))
-                .thenReturn(List.of(dest));
+        when(spatialIndex.exactMatches(new BigDecimal("1.0"), new BigDecimal("2.0")))
+                .thenReturn(new long[]{200L});
+        when(spotRepo.findById(200L)).thenReturn(Optional.of(dest));
 
         when(preemption.placeOrPreempt(sess, dest))
                 .thenReturn(ParkingPreemption.Result.PREEMPTED);
@@ -155,13 +220,14 @@ class SessionAppServiceTest {
         when(sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc("AAA1234"))
                 .thenReturn(Optional.of(sess));
 
-        when(spotRepo.findAllByLatAndLngOrderByIdAsc(new BigDecimal("9.9"), new BigDecimal("8.8")))
-                .thenReturn(List.of());
+        when(spatialIndex.exactMatches(new BigDecimal("9.9"), new BigDecimal("8.8")))
+                .thenReturn(new long[0]);
 
         var sec = sector(2L, "B", new BigDecimal("4.10"));
         var dest = spot(22L, null, sec);
-        when(spotRepo.findNearestGlobal(new BigDecimal("9.9"), new BigDecimal("8.8")))
-                .thenReturn(Optional.of(dest));
+        when(spatialIndex.nearestGlobal(new BigDecimal("9.9"), new BigDecimal("8.8")))
+                .thenReturn(Optional.of(22L));
+        when(spotRepo.findById(22L)).thenReturn(Optional.of(dest));
 
         when(preemption.placeOrPreempt(sess, dest)).thenReturn(ParkingPreemption.Result.PLACED_FREE);
 
@@ -171,6 +237,48 @@ class SessionAppServiceTest {
         verify(sessionRepo).save(sess);
     }
 
+    @Test
+    void handleParked_keeps_own_spot_without_querying() {
+        var event = new WebhookDtos.ParkedEvent("AAA1234", new BigDecimal("1.0"), new BigDecimal("2.0"), WebhookDtos.EventType.PARKED);
+
+        var sec = sector(1L, "A", new BigDecimal("40.50"));
+        var own = spot(201L, 10L, sec);
+        var sess = new VehicleSessionEntity(); sess.setId(10L); sess.setSpot(own);
+        when(sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc("AAA1234"))
+                .thenReturn(Optional.of(sess));
+        when(spatialIndex.exactMatches(new BigDecimal("1.0"), new BigDecimal("2.0")))
+                .thenReturn(new long[]{200L, 201L});
+        when(preemption.placeOrPreempt(sess, own)).thenReturn(ParkingPreemption.Result.NOOP);
+
+        service.handleParked(event);
+
+        verify(preemption).placeOrPreempt(sess, own);
+        verifyNoInteractions(spotRepo);
+    }
+
+    @Test
+    void handleParked_shared_coordinates_go_through_coord_key() {
+        var event = new WebhookDtos.ParkedEvent("AAA1234", new BigDecimal("1.0"), new BigDecimal("2.0"), WebhookDtos.EventType.PARKED);
+
+        var sess = new VehicleSessionEntity(); sess.setId(10L);
+        when(sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc("AAA1234"))
+                .thenReturn(Optional.of(sess));
+
+        var sec = sector(1L, "A", new BigDecimal("40.50"));
+        var first = spot(200L, 55L, sec);
+        var second = spot(201L, null, sec);
+        when(spatialIndex.exactMatches(new BigDecimal("1.0"), new BigDecimal("2.0")))
+                .thenReturn(new long[]{200L, 201L});
+        when(spotRepo.findAllByCoordKeyOrderByIdAsc(CoordinateCodec.key(new BigDecimal("1.0"), new BigDecimal("2.0"))))
+                .thenReturn(List.of(first, second));
+        when(preemption.placeOrPreempt(sess, first)).thenReturn(ParkingPreemption.Result.PREEMPTED);
+
+        service.handleParked(event);
+
+        verify(preemption).placeOrPreempt(sess, first);
+        verify(sessionRepo).save(sess);
+    }
+
     @Test
     void handleParked_denied_does_not_persist_session() {
         var event = new WebhookDtos.ParkedEvent("AAA1234", new BigDecimal("1.0"), new BigDecimal("2.0"), WebhookDtos.EventType.PARKED);
@@ -181,8 +289,9 @@ class SessionAppServiceTest {
 
         var sec = sector(1L, "A", new BigDecimal("40.50"));
         var dest = spot(200L, null, sec);
-        when(spotRepo.findAllByLatAndLngOrderByIdAsc(new BigDecimal("1.0"), new BigDecimal("2.0")))
-                .thenReturn(List.of(dest));
+        when(spatialIndex.exactMatches(new BigDecimal("1.0"), new BigDecimal("2.0")))
+                .thenReturn(new long[]{200L});
+        when(spotRepo.findById(200L)).thenReturn(Optional.of(dest));
 
         when(preemption.placeOrPreempt(sess, dest))
                 .thenReturn(ParkingPreemption.Result.DENIED);
@@ -220,12 +329,88 @@ class SessionAppServiceTest {
                 Instant.parse("2025-01-01T13:00:00Z")
         )).thenReturn(new BigDecimal("44.55"));
 
+        when(spotRepo.lockHeldBy(77L)).thenReturn(List.of(slot(10L, 1L, 77L)));
+        when(spotRepo.releaseIfHeldBy(10L, 77L)).thenReturn(1);
+
         service.handleExit(event);
 
-        assertThat(spot.getOccupiedBySessionId()).isNull();
-        verify(spotRepo).save(argThat(s -> s.getId().equals(10L) && s.getOccupiedBySessionId() == null));
+        verify(spotRepo).releaseIfHeldBy(10L, 77L);
+        verify(occupancyEvents).released(1L, 10L, 77L);
+        assertThat(sess.getSpot()).isNull();
         assertThat(sess.getChargedAmount()).isEqualByComparingTo("44.55");
         verify(sessionRepo, atLeastOnce()).save(sess);
+        verify(revenueDaily).addExit(LocalDate.of(2025, 1, 1), 1L, new BigDecimal("44.55"));
+        verify(events).publishEvent(new SessionClosedEvent(LocalDate.of(2025, 1, 1), "A"));
+        // miss: veio do índice por placa, entra no cache e sai no EXIT
+        verify(openSessions).opened("AAA1234", 77L);
+        verify(openSessions).closed("AAA1234", 77L);
+    }
+
+    @Test
+    void handleExit_frees_the_spot_the_car_was_moved_to_not_the_one_it_was_read_on() {
+        var event = new WebhookDtos.ExitEvent("AAA1234", "2025-01-01T13:00:00Z", WebhookDtos.EventType.EXIT);
+        var sec = sector(1L, "A", new BigDecimal("40.50"));
+
+        var sess = new VehicleSessionEntity();
+        sess.setId(77L);
+        sess.setLicensePlate("AAA1234");
+        sess.setEntryTime(Instant.parse("2025-01-01T12:00:00Z"));
+        sess.setSector(sec);
+        sess.setBasePrice(new BigDecimal("40.50"));
+        sess.setPriceFactor(BigDecimal.ONE);
+        // a sessão foi lida na vaga 10, mas um PARKED de outra placa já a moveu para a 12
+        sess.setSpot(spot(10L, 77L, sec));
+
+        when(sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc("AAA1234")).thenReturn(Optional.of(sess));
+        when(pricingService.hourlyCharge(any(), any(), any(), any())).thenReturn(new BigDecimal("40.50"));
+        when(spotRepo.lockHeldBy(77L)).thenReturn(List.of(slot(12L, 1L, 77L)));
+        when(spotRepo.releaseIfHeldBy(12L, 77L)).thenReturn(1);
+
+        service.handleExit(event);
+
+        verify(spotRepo).releaseIfHeldBy(12L, 77L);
+        verify(spotRepo, never()).releaseIfHeldBy(eq(10L), any());
+        verify(spotRepo, never()).save(any());
+        verify(occupancyEvents).released(1L, 12L, 77L);
+    }
+
+    @Test
+    void handleExit_resolves_session_by_cached_id() {
+        var event = new WebhookDtos.ExitEvent("AAA1234", "2025-01-01T12:10:00Z", WebhookDtos.EventType.EXIT);
+
+        var sess = new VehicleSessionEntity();
+        sess.setId(77L);
+        sess.setLicensePlate("AAA1234");
+        sess.setEntryTime(Instant.parse("2025-01-01T12:00:00Z"));
+        sess.setBasePrice(new BigDecimal("10.00"));
+        sess.setPriceFactor(BigDecimal.ONE);
+
+        when(openSessions.openSessionId("AAA1234")).thenReturn(77L);
+        when(sessionRepo.findById(77L)).thenReturn(Optional.of(sess));
+        when(pricingService.hourlyCharge(any(), any(), any(), any())).thenReturn(BigDecimal.ZERO);
+
+        service.handleExit(event);
+
+        verify(sessionRepo, never()).findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc(any());
+        verify(openSessions).closed("AAA1234", 77L);
+    }
+
+    @Test
+    void handleParked_stale_cached_id_falls_back_to_plate_lookup() {
+        var ev = new WebhookDtos.ParkedEvent("AAA1234", new BigDecimal("-23.561684"), new BigDecimal("-46.655981"), WebhookDtos.EventType.PARKED);
+
+        var closed = new VehicleSessionEntity();
+        closed.setId(5L);
+        closed.setExitTime(Instant.parse("2025-01-01T11:00:00Z"));
+        when(openSessions.openSessionId("AAA1234")).thenReturn(5L);
+        when(sessionRepo.findById(5L)).thenReturn(Optional.of(closed));
+        when(sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc("AAA1234")).thenReturn(Optional.empty());
+
+        service.handleParked(ev);
+
+        verify(openSessions).evict("AAA1234", 5L);
+        verify(openSessions, never()).opened(any(), any());
+        verifyNoInteractions(preemption);
     }
 
     @Test
@@ -242,7 +427,7 @@ class SessionAppServiceTest {
 
         when(sessionRepo.findTopByLicensePlateAndExitTimeIsNullOrderByIdDesc("AAA1234"))
                 .thenReturn(Optional.of(sess));
-        when(sectorRepo.findMinBasePrice()).thenReturn(new BigDecimal("4.10"));
+        when(sectorRegistry.minBasePrice()).thenReturn(new BigDecimal("4.10"));
 
         when(pricingService.hourlyCharge(
                 new BigDecimal("4.10"),
@@ -255,6 +440,8 @@ class SessionAppServiceTest {
 
         assertThat(sess.getBasePrice()).isEqualByComparingTo("4.10");
         verify(sessionRepo, atLeastOnce()).save(sess);
+        // sem setor: vai para a linha 0 do rollup
+        verify(revenueDaily).addExit(LocalDate.of(2025, 1, 1), 0L, BigDecimal.ZERO);
     }
 
 
@@ -274,4 +461,12 @@ class SessionAppServiceTest {
         sp.setOccupiedBySessionId(occupiedBy);
         return sp;
     }
+
+    private static SpotSlot slot(Long id, Long sectorId, Long occupiedBy) {
+        return new SpotSlot() {
+            public Long getId() { return id; }
+            public Long getSectorId() { return sectorId; }
+            public Long getOccupiedBySessionId() { return occupiedBy; }
+        };
+    }
 }
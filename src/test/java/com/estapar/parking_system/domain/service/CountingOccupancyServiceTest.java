@@ -0,0 +1,163 @@
+package com.estapar.parking_system.domain.service;
+
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository;
+import com.estapar.parking_system.domain.repository.SpotRepository.SectorOccupancy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CountingOccupancyServiceTest {
+
+    SpotRepository spotRepo;
+    SectorRepository sectorRepo;
+    CountingOccupancyService service;
+
+    @BeforeEach
+    void setUp() {
+        spotRepo = mock(SpotRepository.class);
+        sectorRepo = mock(SectorRepository.class);
+        service = new CountingOccupancyService(spotRepo, new SectorRegistry(sectorRepo));
+
+        when(sectorRepo.findAll()).thenReturn(List.of(sector(1L, 2), sector(2L, 10)));
+        when(spotRepo.countBySector()).thenReturn(List.of(row(1L, 2, 1), row(2L, 10, 2)));
+    }
+
+    private static SectorEntity sector(long id, int max) {
+        var s = new SectorEntity(); s.setId(id); s.setMaxCapacity(max);
+        return s;
+    }
+
+    private static SectorOccupancy row(long sectorId, long total, long taken) {
+        return new SectorOccupancy() {
+            public Long getSectorId() { return sectorId; }
+            public long getTotal() { return total; }
+            public long getTaken() { return taken; }
+        };
+    }
+
+    @Test
+    void seeds_once_and_answers_ratio_without_queries() {
+        assertThat(service.totalCapacity()).isEqualTo(12L);
+        assertThat(service.takenSpotsGlobal()).isEqualTo(3L);
+        assertThat(service.globalRatioBySpots()).isEqualByComparingTo("0.25");
+        assertThat(service.isSectorFull(1L)).isFalse();
+
+        verify(spotRepo, times(1)).countBySector();
+        verify(spotRepo, never()).count();
+        verify(spotRepo, never()).countOccupiedGlobal();
+        verify(spotRepo, never()).countOccupiedInSector(anyLong());
+    }
+
+    @Test
+    void occupy_and_release_move_sector_and_global_counters() {
+        service.occupied(1L, 11L);
+        assertThat(service.isSectorFull(1L)).isTrue();
+        assertThat(service.takenInSector(1L)).isEqualTo(2L);
+        assertThat(service.takenSpotsGlobal()).isEqualTo(4L);
+
+        service.released(1L, 11L);
+        assertThat(service.isSectorFull(1L)).isFalse();
+        assertThat(service.takenSpotsGlobal()).isEqualTo(3L);
+    }
+
+    @Test
+    void unknown_sector_is_treated_as_full() {
+        assertThat(service.isSectorFull(99L)).isTrue();
+    }
+
+    @Test
+    void reconcile_folds_drift_of_a_quiet_sector_into_live_counters() {
+        service.occupied(2L, 21L);
+        service.occupied(2L, 22L);
+        assertThat(service.takenSpotsGlobal()).isEqualTo(5L);
+
+        // banco diz que o setor 2 tem só 2 ocupadas (ex.: eventos perdidos)
+        service.reconcile();
+
+        assertThat(service.takenSpotsGlobal()).isEqualTo(3L);
+        assertThat(service.totalCapacity()).isEqualTo(12L);
+    }
+
+    @Test
+    void reconcile_ignores_a_commit_whose_event_is_still_on_its_way() {
+        service.totalCapacity();
+        // o count(*) já vê a vaga ocupada; o afterCommit ainda não chegou
+        service.committing(2L);
+        when(spotRepo.countBySector()).thenReturn(List.of(row(1L, 2, 1), row(2L, 10, 3)));
+        service.reconcile();
+        service.occupied(2L, 23L);
+        service.settled(2L);
+        service.reconcile();
+
+        assertThat(service.takenSpotsGlobal()).isEqualTo(4L);
+    }
+
+    @Test
+    void reconcile_skips_a_sector_whose_commit_lands_while_counting() {
+        service.totalCapacity();
+        when(spotRepo.countBySector()).thenAnswer(inv -> {
+            // commit inteiro durante a leitura: o count já o inclui, o adder lido antes não
+            service.committing(2L);
+            service.occupied(2L, 23L);
+            service.settled(2L);
+            return List.of(row(1L, 2, 1), row(2L, 10, 3));
+        });
+        service.reconcile();
+
+        assertThat(service.takenSpotsGlobal()).isEqualTo(4L);
+    }
+
+    @Test
+    void drift_converges_while_traffic_keeps_changing_the_counts() {
+        service.totalCapacity();
+        // dois eventos de ocupação perdidos no setor 2: o banco fica sempre 2 à frente
+        AtomicLong dbTaken = new AtomicLong(4);
+        when(spotRepo.countBySector()).thenAnswer(inv -> List.of(row(1L, 2, 1), row(2L, 10, dbTaken.get())));
+
+        // a cada rodada há outro commit em voo e a diferença lida muda, então duas leituras nunca batem
+        for (int round = 0; round < 3; round++) {
+            service.committing(2L);
+            dbTaken.incrementAndGet();
+            service.reconcile();
+            assertThat(service.takenSpotsGlobal()).isEqualTo(3L + round);
+            service.occupied(2L, 30L + round);
+            service.settled(2L);
+        }
+        // entre commits o setor fica quieto: uma leitura basta
+        service.reconcile();
+
+        assertThat(service.takenSpotsGlobal()).isEqualTo(dbTaken.get() + 1);
+        service.reconcile();
+        assertThat(service.takenSpotsGlobal()).isEqualTo(dbTaken.get() + 1);
+    }
+
+    @Test
+    void reseed_keeps_live_counts_of_known_sectors() {
+        service.totalCapacity();
+        // leitura feita com um evento já commitado mas não entregue
+        when(spotRepo.countBySector()).thenReturn(List.of(row(1L, 2, 1), row(2L, 10, 3)));
+        service.reseed();
+        service.occupied(2L, 23L);
+
+        assertThat(service.takenSpotsGlobal()).isEqualTo(4L);
+    }
+
+    @Test
+    void reconcile_reseeds_when_layout_changed() {
+        service.totalCapacity();
+        when(sectorRepo.findAll()).thenReturn(List.of(sector(1L, 2), sector(2L, 10), sector(3L, 5)));
+        when(spotRepo.countBySector()).thenReturn(List.of(row(1L, 2, 1), row(2L, 10, 2), row(3L, 5, 0)));
+
+        service.reconcile();
+
+        assertThat(service.totalCapacity()).isEqualTo(17L);
+        assertThat(service.isSectorFull(3L)).isFalse();
+    }
+}
@@ -0,0 +1,94 @@
+package com.estapar.parking_system.domain.service;
+
+import com.estapar.parking_system.domain.service.PricingRules.Rule;
+import com.estapar.parking_system.domain.service.PricingRules.Tier;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FactorTableTest {
+
+    private static BigDecimal bd(String v) { return new BigDecimal(v); }
+
+    private static final List<Tier> NIGHT = List.of(new Tier(null, 50, bd("0.80")), new Tier(null, null, bd("1.00")));
+
+    @Test
+    void default_table_keeps_the_original_tiers_on_both_sides_of_each_bound() {
+        var t = FactorTable.DEFAULT;
+        for (int hour : new int[]{0, 13, 23}) {
+            assertThat(t.factor(null, hour, bd("0.24"))).isEqualTo(bd("0.90"));
+            assertThat(t.factor(null, hour, bd("0.2499"))).isEqualTo(bd("0.90"));
+            assertThat(t.factor(null, hour, bd("0.25"))).isEqualTo(BigDecimal.ONE);
+            assertThat(t.factor(null, hour, bd("0.50"))).isEqualTo(BigDecimal.ONE);
+            assertThat(t.factor(null, hour, bd("0.5001"))).isEqualTo(bd("1.10"));
+            assertThat(t.factor(null, hour, bd("0.75"))).isEqualTo(bd("1.10"));
+            assertThat(t.factor(null, hour, bd("0.76"))).isEqualTo(bd("1.25"));
+            assertThat(t.factor(null, hour, bd("1.00"))).isEqualTo(bd("1.25"));
+            assertThat(t.factor(null, hour, bd("3"))).isEqualTo(bd("1.25"));
+            assertThat(t.basisPoints(null, hour, bd("0.60"))).isEqualTo(11_000);
+        }
+    }
+
+    @Test
+    void sector_rules_override_garage_rules_only_in_their_hours_with_midnight_wrap() {
+        var t = FactorTable.compile(new PricingRules(List.of(new Rule("A", 22, 6, NIGHT))));
+
+        assertThat(t.factor("A", 22, bd("0.50"))).isEqualTo(bd("0.80"));
+        assertThat(t.factor("A", 5, bd("0.51"))).isEqualTo(bd("1.00"));
+        assertThat(t.factor("A", 6, bd("0.50"))).isEqualTo(BigDecimal.ONE);   // fora da janela: faixas padrão
+        assertThat(t.factor("A", 21, bd("0.10"))).isEqualTo(bd("0.90"));
+        assertThat(t.factor("B", 23, bd("0.50"))).isEqualTo(BigDecimal.ONE);  // setor sem regra
+        assertThat(t.factor(null, 23, bd("0.50"))).isEqualTo(BigDecimal.ONE);
+    }
+
+    @Test
+    void later_rules_win_and_sectors_inherit_garage_rules() {
+        var flat = List.of(new Tier(null, null, bd("2.00")));
+        var t = FactorTable.compile(new PricingRules(List.of(
+                new Rule(null, null, null, flat),
+                new Rule(null, 8, 10, List.of(new Tier(null, null, bd("3.00")))),
+                new Rule("A", 9, 10, NIGHT))));
+
+        assertThat(t.factor(null, 7, bd("0.10"))).isEqualTo(bd("2.00"));
+        assertThat(t.factor(null, 9, bd("0.10"))).isEqualTo(bd("3.00"));
+        assertThat(t.factor("A", 8, bd("0.10"))).isEqualTo(bd("3.00"));
+        assertThat(t.factor("A", 9, bd("0.10"))).isEqualTo(bd("0.80"));
+    }
+
+    @Test
+    void malformed_rules_are_rejected() {
+        assertThatThrownBy(() -> FactorTable.compile(new PricingRules(List.of(
+                new Rule(null, null, null, List.of(new Tier(50, null, bd("1.00"))))))))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("unbounded");
+        assertThatThrownBy(() -> FactorTable.compile(new PricingRules(List.of(
+                new Rule(null, null, null, List.of(new Tier(null, 60, bd("1.00")), new Tier(null, 40, bd("1.00")),
+                        new Tier(null, null, bd("1.00"))))))))
+                .hasMessageContaining("ascending");
+        assertThatThrownBy(() -> FactorTable.compile(new PricingRules(List.of(
+                new Rule("A", 25, null, NIGHT)))))
+                .hasMessageContaining("hours");
+        assertThatThrownBy(() -> FactorTable.compile(new PricingRules(List.of(
+                new Rule(null, null, null, List.of(new Tier(null, null, bd("1.005"))))))))
+                .hasMessageContaining("decimals");
+        assertThatThrownBy(() -> FactorTable.compile(new PricingRules(null))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void service_swaps_tables_and_reads_the_hour_in_its_zone() {
+        var service = new DynamicFactorService(FactorTable.DEFAULT, ZoneId.of("America/Sao_Paulo"));
+        Instant nightInSaoPaulo = Instant.parse("2025-01-02T01:30:00Z"); // 22:30 em São Paulo
+
+        assertThat(service.compute("A", bd("0.50"), nightInSaoPaulo)).isEqualTo(BigDecimal.ONE);
+
+        service.replaceRules(FactorTable.compile(new PricingRules(List.of(new Rule("A", 22, 6, NIGHT)))));
+
+        assertThat(service.compute("A", bd("0.50"), nightInSaoPaulo)).isEqualTo(bd("0.80"));
+        assertThat(service.computeBasisPoints("A", bd("0.50"), nightInSaoPaulo)).isEqualTo(8_000);
+        assertThat(service.compute("A", bd("0.50"), Instant.parse("2025-01-02T12:00:00Z"))).isEqualTo(BigDecimal.ONE);
+    }
+}
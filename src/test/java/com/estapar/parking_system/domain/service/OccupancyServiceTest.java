@@ -6,7 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -21,7 +21,7 @@ class OccupancyServiceTest {
     void setUp() {
         spotRepo = mock(SpotRepository.class);
         sectorRepo = mock(SectorRepository.class);
-        service = new OccupancyService(spotRepo, sectorRepo);
+        service = new OccupancyService(spotRepo, new SectorRegistry(sectorRepo));
     }
 
     @Test
@@ -59,11 +59,11 @@ class OccupancyServiceTest {
         Long sectorId = 10L;
         when(spotRepo.countOccupiedInSector(sectorId)).thenReturn(49L);
         var sector = new SectorEntity(); sector.setId(sectorId); sector.setMaxCapacity(50);
-        when(sectorRepo.findById(sectorId)).thenReturn(Optional.of(sector));
+        when(sectorRepo.findAll()).thenReturn(List.of(sector));
 
         assertThat(service.isSectorFull(sectorId)).isFalse();
         verify(spotRepo).countOccupiedInSector(sectorId);
-        verify(sectorRepo).findById(sectorId);
+        verify(sectorRepo).findAll();
     }
 
     @Test
@@ -71,7 +71,7 @@ class OccupancyServiceTest {
         Long sectorId = 10L;
         when(spotRepo.countOccupiedInSector(sectorId)).thenReturn(50L);
         var sector = new SectorEntity(); sector.setId(sectorId); sector.setMaxCapacity(50);
-        when(sectorRepo.findById(sectorId)).thenReturn(Optional.of(sector));
+        when(sectorRepo.findAll()).thenReturn(List.of(sector));
 
         assertThat(service.isSectorFull(sectorId)).isTrue();
     }
@@ -81,7 +81,7 @@ class OccupancyServiceTest {
         Long sectorId = 10L;
         when(spotRepo.countOccupiedInSector(sectorId)).thenReturn(51L);
         var sector = new SectorEntity(); sector.setId(sectorId); sector.setMaxCapacity(50);
-        when(sectorRepo.findById(sectorId)).thenReturn(Optional.of(sector));
+        when(sectorRepo.findAll()).thenReturn(List.of(sector));
 
         assertThat(service.isSectorFull(sectorId)).isTrue();
     }
@@ -90,7 +90,7 @@ class OccupancyServiceTest {
     void isSectorFull_when_sector_not_found_treats_max_as_zero() {
         Long sectorId = 99L;
         when(spotRepo.countOccupiedInSector(sectorId)).thenReturn(0L);
-        when(sectorRepo.findById(sectorId)).thenReturn(Optional.empty());
+        when(sectorRepo.findAll()).thenReturn(List.of());
 
         assertThat(service.isSectorFull(sectorId)).isTrue();
     }
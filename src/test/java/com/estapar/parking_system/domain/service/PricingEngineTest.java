@@ -0,0 +1,110 @@
+package com.estapar.parking_system.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    private final PricingService service = new PricingService();
+    private final DynamicFactorService factors = new DynamicFactorService();
+    private final Instant entry = Instant.parse("2025-01-01T12:00:00Z");
+
+    /** the BigDecimal formula as it was before the fixed-point engine */
+    private static BigDecimal reference(BigDecimal basePrice, BigDecimal factor, Instant entry, Instant exit) {
+        long minutes = Math.max(0, Duration.between(entry, exit).toMinutes());
+        if (minutes <= 30) return BigDecimal.ZERO;
+        return basePrice.multiply(factor)
+                .multiply(BigDecimal.valueOf((long) Math.ceil(minutes / 60.0)))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal referenceFactor(BigDecimal ratio) {
+        if (ratio.compareTo(new BigDecimal("0.25")) < 0) return new BigDecimal("0.90");
+        if (ratio.compareTo(new BigDecimal("0.50")) <= 0) return BigDecimal.ONE;
+        if (ratio.compareTo(new BigDecimal("0.75")) <= 0) return new BigDecimal("1.10");
+        return new BigDecimal("1.25");
+    }
+
+    private void assertSame(BigDecimal base, BigDecimal factor, Instant exit) {
+        BigDecimal expected = reference(base, factor, entry, exit);
+        BigDecimal actual = service.hourlyCharge(base, factor, entry, exit);
+        assertEquals(expected, actual, () -> base + " x " + factor + " until " + exit);
+    }
+
+    @Test
+    void every_minute_of_three_days_matches_for_every_tier() {
+        BigDecimal[] tierFactors = {new BigDecimal("0.90"), BigDecimal.ONE, new BigDecimal("1.10"), new BigDecimal("1.25")};
+        BigDecimal[] prices = {BigDecimal.ZERO, new BigDecimal("0.01"), new BigDecimal("10.00"), new BigDecimal("40.50"),
+                new BigDecimal("12.35"), BigDecimal.TEN};
+        for (int m = 0; m <= 3 * 24 * 60; m++) {
+            Instant exit = entry.plusSeconds(m * 60L + (m % 60));
+            for (BigDecimal price : prices) {
+                for (BigDecimal f : tierFactors) assertSame(price, f, exit);
+            }
+        }
+    }
+
+    @Test
+    void every_cent_price_up_to_1000_matches_on_the_half_cent_boundaries() {
+        Instant exit = entry.plusSeconds(61 * 60);
+        BigDecimal[] tierFactors = {new BigDecimal("0.90"), new BigDecimal("1.10"), new BigDecimal("1.25"), new BigDecimal("0.33")};
+        for (long c = 0; c <= 100_000; c++) {
+            BigDecimal price = BigDecimal.valueOf(c, 2);
+            for (BigDecimal f : tierFactors) assertSame(price, f, exit);
+        }
+    }
+
+    @Test
+    void random_column_values_match() {
+        var rnd = new Random(12);
+        for (int i = 0; i < 200_000; i++) {
+            // base_price DECIMAL(10,2), price_factor DECIMAL(5,2), stays up to ten years
+            BigDecimal base = BigDecimal.valueOf(rnd.nextLong(10_000_000_000L), 2);
+            BigDecimal factor = BigDecimal.valueOf(rnd.nextInt(100_000), 2);
+            Instant exit = entry.plusSeconds(rnd.nextLong(10L * 365 * 24 * 3600));
+            assertSame(base, factor, exit);
+        }
+    }
+
+    @Test
+    void values_outside_cents_or_long_range_fall_back_to_bigdecimal() {
+        Instant exit = entry.plusSeconds(3 * 3600 + 60);
+        assertEquals(PricingEngine.NOT_EXACT, PricingEngine.cents(new BigDecimal("10.005")));
+        assertSame(new BigDecimal("10.005"), BigDecimal.ONE, exit);
+        assertSame(new BigDecimal("40.5"), new BigDecimal("1.1"), exit);
+        assertSame(new BigDecimal("1E+1"), new BigDecimal("1.125"), exit);
+        assertSame(new BigDecimal("10.00"), new BigDecimal("1.00005"), exit);
+        assertSame(new BigDecimal("99999999999999999.99"), new BigDecimal("999.99"), exit);
+        assertSame(new BigDecimal("99999999.99"), new BigDecimal("999.99"), entry.plusSeconds(400L * 24 * 3600));
+        assertSame(new BigDecimal("-10.00"), new BigDecimal("1.25"), exit);
+    }
+
+    @Test
+    void large_integers_do_not_take_the_double_shortcut() {
+        // 15 dígitos de precisão, mas o resultado em centavos tem 17
+        assertEquals(99_999_999_999_999_900L, PricingEngine.cents(new BigDecimal("999999999999999")));
+        assertEquals(PricingEngine.NOT_EXACT, PricingEngine.basisPoints(new BigDecimal("999999999999999")));
+        assertEquals(123_456_789_012_345L, PricingEngine.cents(new BigDecimal("1234567890123.45")));
+        assertEquals(1_234_567_890_123_400L, PricingEngine.cents(new BigDecimal("12345678901234")));
+        assertSame(new BigDecimal("999999999999999"), BigDecimal.ONE, entry.plusSeconds(3 * 3600 + 60));
+    }
+
+    @Test
+    void factor_table_matches_the_comparisons_on_every_ratio() {
+        for (int hundredths = -10; hundredths <= 150; hundredths++) {
+            BigDecimal ratio = BigDecimal.valueOf(hundredths, 2);
+            BigDecimal expected = referenceFactor(ratio);
+            assertEquals(expected, factors.compute(ratio));
+            assertEquals(PricingEngine.basisPoints(expected), factors.computeBasisPoints(ratio));
+        }
+        assertEquals(new BigDecimal("0.90"), factors.compute(new BigDecimal("0.2499")));
+        assertEquals(new BigDecimal("1.25"), factors.compute(new BigDecimal("0.7501")));
+    }
+}
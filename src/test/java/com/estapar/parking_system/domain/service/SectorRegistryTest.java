@@ -0,0 +1,69 @@
+package com.estapar.parking_system.domain.service;
+
+import com.estapar.parking_system.domain.entity.SectorEntity;
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.domain.service.SectorRegistry.SectorInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SectorRegistryTest {
+
+    SectorRepository sectorRepo;
+    SectorRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        sectorRepo = mock(SectorRepository.class);
+        registry = new SectorRegistry(sectorRepo);
+        when(sectorRepo.findAll()).thenReturn(List.of(
+                sector(2L, "B", "4.10", 20), sector(1L, "A", "40.50", 10), sector(3L, "C", null, 5)));
+    }
+
+    private static SectorEntity sector(long id, String code, String basePrice, int max) {
+        return new SectorEntity(id, code, basePrice == null ? null : new BigDecimal(basePrice), max,
+                "00:00", "23:59", 1440);
+    }
+
+    @Test
+    void loads_once_and_answers_lookups_from_memory() {
+        assertThat(registry.all()).extracting(SectorInfo::code).containsExactly("A", "B", "C");
+        assertThat(registry.byId(2L)).map(SectorInfo::code).contains("B");
+        assertThat(registry.byCode("A")).map(SectorInfo::id).contains(1L);
+        assertThat(registry.byCode("a")).map(SectorInfo::code).contains("A");
+        assertThat(registry.byCode("Z")).isEmpty();
+        assertThat(registry.byId(null)).isEmpty();
+        assertThat(registry.maxCapacity(3L)).isEqualTo(5);
+        assertThat(registry.maxCapacity(99L)).isZero();
+        assertThat(registry.totalCapacity()).isEqualTo(35L);
+        // setor sem preço não entra no mínimo
+        assertThat(registry.minBasePrice()).isEqualByComparingTo("4.10");
+
+        verify(sectorRepo, times(1)).findAll();
+    }
+
+    @Test
+    void replace_swaps_the_whole_layout_without_querying() {
+        registry.replace(List.of(new SectorInfo(7L, "X", new BigDecimal("2.00"), 3, "00:00", "23:59", 60)));
+
+        assertThat(registry.all()).extracting(SectorInfo::id).containsExactly(7L);
+        assertThat(registry.byCode("A")).isEmpty();
+        assertThat(registry.minBasePrice()).isEqualByComparingTo("2.00");
+        verifyNoInteractions(sectorRepo);
+    }
+
+    @Test
+    void empty_table_has_no_min_price() {
+        when(sectorRepo.findAll()).thenReturn(List.of());
+        registry.reload();
+
+        assertThat(registry.all()).isEmpty();
+        assertThat(registry.minBasePrice()).isNull();
+        assertThat(registry.totalCapacity()).isZero();
+    }
+}
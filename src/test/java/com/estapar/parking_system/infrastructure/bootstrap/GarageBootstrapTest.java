@@ -0,0 +1,66 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.domain.repository.SectorRepository;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageSnapshot.Loaded;
+import com.estapar.parking_system.infrastructure.client.GarageClient;
+import com.estapar.parking_system.infrastructure.client.GarageSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GarageBootstrapTest {
+
+    @Mock GarageClient client;
+    @Mock GarageResync resync;
+    @Mock GarageSnapshot snapshot;
+    @Mock GarageSynchronizer sync;
+    @Mock SectorRepository sectors;
+    @Mock GarageSource source;
+
+    private void boot() throws Exception {
+        new GarageBootstrap().bootstrapGarage(client, resync, snapshot, sync, sectors).run(null);
+    }
+
+    @Test
+    void empty_database_gets_the_snapshot() throws Exception {
+        when(snapshot.open()).thenReturn(Optional.of(new Loaded("aaa", 2, 40, source)));
+        when(sectors.count()).thenReturn(0L);
+
+        boot();
+
+        verify(sync).sync(source);
+        verify(resync).resumeFrom("aaa");
+        verify(resync).startInBackground();
+        verify(resync, never()).start();
+    }
+
+    @Test
+    void database_with_a_layout_is_not_overwritten_by_an_older_snapshot() throws Exception {
+        // outra instância já sincronizou um layout possivelmente mais novo
+        when(snapshot.open()).thenReturn(Optional.of(new Loaded("aaa", 2, 40, source)));
+        when(sectors.count()).thenReturn(2L);
+
+        boot();
+
+        verify(sync, never()).sync(any(GarageSource.class));
+        verify(resync).resumeFrom("aaa");
+        verify(resync).startInBackground();
+    }
+
+    @Test
+    void without_a_snapshot_the_simulator_is_fetched() throws Exception {
+        when(snapshot.open()).thenReturn(Optional.empty());
+
+        boot();
+
+        verifyNoInteractions(sync, sectors);
+        verify(resync).start();
+    }
+}
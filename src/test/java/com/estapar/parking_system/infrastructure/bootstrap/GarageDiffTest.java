@@ -0,0 +1,63 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageDiff.SectorRow;
+import com.estapar.parking_system.infrastructure.bootstrap.GarageDiff.SpotRow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GarageDiffTest {
+
+    private static BigDecimal bd(String v) { return new BigDecimal(v); }
+
+    @Test
+    void sectors_are_split_into_inserts_updates_and_unchanged() {
+        var existing = Map.of(
+                "A", new SectorRow(1L, "A", bd("10.00"), 10, "08:00", "22:00", 240),
+                "B", new SectorRow(2L, "B", bd("4.10"), 20, "08:00", "22:00", 120));
+
+        var changes = GarageDiff.sectors(existing, List.of(
+                new SectorDto("A", bd("10.0"), 10, "08:00", "22:00", 240),   // mesma escala do banco
+                new SectorDto("B", bd("4.10"), 25, "08:00", "22:00", 120),
+                new SectorDto("C", bd("7"), 5, "00:00", "23:59", 60)));
+
+        assertThat(changes.unchanged()).isEqualTo(1);
+        assertThat(changes.updates()).extracting(SectorRow::id, SectorRow::maxCapacity).containsExactly(tuple(2L, 25));
+        assertThat(changes.inserts()).extracting(SectorRow::code, SectorRow::basePrice).containsExactly(tuple("C", bd("7.00")));
+    }
+
+    @Test
+    void spots_compare_at_column_scale_and_follow_sector_moves() {
+        var existing = Map.of(
+                1L, new SpotRow(1L, 1L, bd("-23.561684"), bd("-46.655981")),
+                2L, new SpotRow(2L, 1L, bd("-23.561685"), bd("-46.655982")),
+                3L, new SpotRow(3L, 1L, null, null));
+        var sectorIds = Map.of("A", 1L, "B", 2L);
+
+        var changes = GarageDiff.spots(existing, List.of(
+                new SpotDto(1L, "A", bd("-23.5616840"), bd("-46.655981"), false),
+                new SpotDto(2L, "B", bd("-23.561685"), bd("-46.655982"), false),
+                new SpotDto(3L, "A", null, null, false),
+                new SpotDto(4L, "A", bd("-23.5616864"), bd("-46.6559815"), false),
+                new SpotDto(4L, "B", bd("-23.5616864"), bd("-46.6559815"), false)), sectorIds);
+
+        assertThat(changes.unchanged()).isEqualTo(2);
+        assertThat(changes.updates()).containsExactly(new SpotRow(2L, 2L, bd("-23.561685"), bd("-46.655982")));
+        // duplicado no payload: vale o último; lat/lng arredondados para 6 casas como no MySQL
+        assertThat(changes.inserts()).containsExactly(new SpotRow(4L, 2L, bd("-23.561686"), bd("-46.655982")));
+    }
+
+    @Test
+    void spot_of_unknown_sector_fails_the_sync() {
+        assertThatThrownBy(() -> GarageDiff.spots(Map.of(),
+                List.of(new SpotDto(1L, "Z", bd("1"), bd("1"), false)), Map.of("A", 1L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Sector not found: Z");
+    }
+}
@@ -0,0 +1,144 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.infrastructure.bootstrap.GarageResync.Outcome;
+import com.estapar.parking_system.infrastructure.client.GarageClient;
+import com.estapar.parking_system.infrastructure.client.GarageClient.GarageDownload;
+import com.estapar.parking_system.infrastructure.client.GarageSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GarageResyncTest {
+
+    @Mock GarageClient client;
+    @Mock GarageSynchronizer synchronizer;
+    @Mock GarageSnapshot snapshot;
+    @Mock TaskScheduler scheduler;
+    @Mock ObjectProvider<TaskScheduler> schedulerProvider;
+    @TempDir Path dir;
+
+    private GarageResync resync;
+
+    private static final SyncReport CHANGED = new SyncReport(
+            new SyncReport.Counts(0, 0, 1), new SyncReport.Counts(0, 3, 97), Duration.ofMillis(5));
+    private static final SyncReport NOTHING = new SyncReport(
+            new SyncReport.Counts(0, 0, 1), new SyncReport.Counts(0, 0, 100), Duration.ofMillis(5));
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(schedulerProvider.getIfAvailable()).thenReturn(scheduler);
+        resync = new GarageResync(client, synchronizer, snapshot, schedulerProvider, true,
+                Duration.ofMinutes(5), Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+
+    private GarageDownload download(String sha, String etag) throws IOException {
+        Path file = Files.createTempFile(dir, "garage-", ".json");
+        return new GarageDownload(file, sha, etag);
+    }
+
+    @Test
+    void same_hash_skips_the_database_and_temp_files_are_removed() throws IOException {
+        var first = download("aaa", null);
+        var second = download("aaa", null);
+        var third = download("bbb", null);
+        when(client.download(null)).thenReturn(first, second, third);
+        GarageSource source = (chunk, handler) -> {};
+        when(client.source(any())).thenReturn(source);
+        when(synchronizer.sync(source)).thenReturn(CHANGED, NOTHING);
+
+        assertThat(resync.runOnce()).isEqualTo(Outcome.APPLIED);
+        assertThat(resync.runOnce()).isEqualTo(Outcome.UNCHANGED);
+        assertThat(resync.runOnce()).isEqualTo(Outcome.UNCHANGED); // hash novo, mas o diff não escreveu nada
+
+        verify(synchronizer, times(2)).sync(source);
+        verify(snapshot).write("aaa", source);
+        verify(snapshot).write("bbb", source);
+        assertThat(first.file()).doesNotExist();
+        assertThat(second.file()).doesNotExist();
+        assertThat(third.file()).doesNotExist();
+    }
+
+    @Test
+    void etag_of_the_applied_payload_is_sent_and_304_is_unchanged() throws IOException {
+        when(client.download(null)).thenReturn(download("aaa", "\"v1\""));
+        when(client.source(any())).thenReturn((chunk, handler) -> {});
+        when(synchronizer.sync(any(GarageSource.class))).thenReturn(CHANGED);
+        when(client.download("\"v1\"")).thenReturn(null);
+
+        assertThat(resync.runOnce()).isEqualTo(Outcome.APPLIED);
+        assertThat(resync.runOnce()).isEqualTo(Outcome.UNCHANGED);
+        verify(synchronizer, times(1)).sync(any(GarageSource.class));
+    }
+
+    @Test
+    void unreachable_simulator_backs_off_exponentially_up_to_the_cap_and_resets_on_success() throws IOException {
+        when(client.download(any())).thenThrow(new ResourceAccessException("connection refused"));
+
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofSeconds(5));
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofSeconds(10));
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofSeconds(20));
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofSeconds(40));
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofMinutes(1));
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofMinutes(1));
+
+        reset(client);
+        when(client.download(any())).thenReturn(null);
+        assertThat(resync.nextDelay(resync.runOnce())).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void start_syncs_right_away_and_schedules_the_next_run() {
+        when(client.download(any())).thenThrow(new ResourceAccessException("down"));
+
+        Instant before = Instant.now();
+        resync.start();
+
+        verify(scheduler).schedule(any(Runnable.class), argThat((Instant at) ->
+                !at.isBefore(before.plusSeconds(5)) && at.isBefore(before.plusSeconds(60))));
+    }
+
+    @Test
+    void resuming_from_a_snapshot_skips_an_unchanged_payload_in_background() throws IOException {
+        when(client.download(null)).thenReturn(download("snap", null));
+
+        resync.resumeFrom("snap");
+        resync.startInBackground();
+
+        var run = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(run.capture(), any(Instant.class));
+        run.getValue().run();
+
+        verifyNoInteractions(synchronizer, snapshot);
+        verify(scheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void without_resync_enabled_start_is_a_single_sync() {
+        var oneShot = new GarageResync(client, synchronizer, snapshot, schedulerProvider, false,
+                Duration.ofMinutes(5), Duration.ofSeconds(5), Duration.ofMinutes(1));
+        when(client.download(any())).thenReturn(null);
+
+        oneShot.start();
+
+        verify(client).download(null);
+        verifyNoInteractions(scheduler);
+    }
+}
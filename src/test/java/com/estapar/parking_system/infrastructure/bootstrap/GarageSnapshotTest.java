@@ -0,0 +1,112 @@
+package com.estapar.parking_system.infrastructure.bootstrap;
+
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.estapar.parking_system.infrastructure.client.GarageHandler;
+import com.estapar.parking_system.infrastructure.client.GarageSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GarageSnapshotTest {
+
+    @TempDir Path dir;
+
+    private static final String SHA = "ab".repeat(32);
+
+    private static final List<SectorDto> SECTORS = List.of(
+            new SectorDto("A", new BigDecimal("40.50"), 10, "00:00", "23:59", 1440),
+            new SectorDto("B", null, null, "08:00", null, 60));
+
+    private static GarageSource source(List<SectorDto> sectors, List<SpotDto> spots) {
+        return (chunkSize, handler) -> {
+            handler.onSectors(sectors);
+            for (int i = 0; i < spots.size(); i += chunkSize) {
+                handler.onSpots(spots.subList(i, Math.min(spots.size(), i + chunkSize)));
+            }
+        };
+    }
+
+    private static final class Collect implements GarageHandler {
+        List<SectorDto> sectors;
+        final List<SpotDto> spots = new ArrayList<>();
+        final List<Integer> chunks = new ArrayList<>();
+        @Override public void onSectors(List<SectorDto> s) { sectors = s; }
+        @Override public void onSpots(List<SpotDto> c) { chunks.add(c.size()); spots.addAll(c); }
+    }
+
+    @Test
+    void round_trip_keeps_layout_at_column_scale() throws IOException {
+        var snapshot = new GarageSnapshot(dir.resolve("sub/garage.snapshot"), true);
+        List<SpotDto> spots = LongStream.rangeClosed(1, 2_500)
+                .mapToObj(i -> new SpotDto(i, i % 2 == 0 ? "A" : "B",
+                        new BigDecimal("-23.5616844").add(BigDecimal.valueOf(i, 6)),
+                        i == 7 ? null : new BigDecimal("-46.655981"), true))
+                .toList();
+
+        snapshot.write(SHA, source(SECTORS, spots));
+        var loaded = snapshot.open().orElseThrow();
+
+        assertThat(loaded.sha256()).isEqualTo(SHA);
+        assertThat(loaded.sectors()).isEqualTo(2);
+        assertThat(loaded.spots()).isEqualTo(2_500);
+
+        var out = new Collect();
+        loaded.source().read(1_000, out);
+        assertThat(out.sectors).isEqualTo(SECTORS);
+        assertThat(out.chunks).containsExactly(1_000, 1_000, 500);
+        assertThat(out.spots.get(0)).isEqualTo(new SpotDto(1L, "B", new BigDecimal("-23.561683"), new BigDecimal("-46.655981"), null));
+        assertThat(out.spots.get(6).lng()).isNull();
+
+        // pode ser relido (o mapa não é consumido)
+        var again = new Collect();
+        loaded.source().read(5_000, again);
+        assertThat(again.spots).hasSize(2_500);
+    }
+
+    @Test
+    void corrupted_or_foreign_files_are_ignored() throws IOException {
+        Path file = dir.resolve("garage.snapshot");
+        var snapshot = new GarageSnapshot(file, true);
+        snapshot.write(SHA, source(SECTORS, List.of(new SpotDto(1L, "A", BigDecimal.ONE, BigDecimal.ONE, false))));
+        assertThat(snapshot.open()).isPresent();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[50] ^= 0x01;
+        Files.write(file, bytes);
+        assertThat(snapshot.open()).isEmpty();
+
+        Files.writeString(file, "{\"garage\":[]}");
+        assertThat(snapshot.open()).isEmpty();
+    }
+
+    @Test
+    void failed_write_keeps_the_previous_snapshot() {
+        Path file = dir.resolve("garage.snapshot");
+        var snapshot = new GarageSnapshot(file, true);
+        snapshot.write(SHA, source(SECTORS, List.of()));
+
+        snapshot.write("cd".repeat(32), source(SECTORS, List.of(new SpotDto(1L, "Z", null, null, null))));
+
+        assertThat(snapshot.open()).get().extracting(GarageSnapshot.Loaded::sha256).isEqualTo(SHA);
+        assertThat(dir.resolve("garage.snapshot.tmp")).doesNotExist();
+    }
+
+    @Test
+    void disabled_snapshot_neither_reads_nor_writes() {
+        Path file = dir.resolve("garage.snapshot");
+        var snapshot = new GarageSnapshot(file, false);
+        snapshot.write(SHA, source(SECTORS, List.of()));
+        assertThat(file).doesNotExist();
+        assertThat(snapshot.open()).isEmpty();
+    }
+}
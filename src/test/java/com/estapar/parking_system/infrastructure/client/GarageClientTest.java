@@ -0,0 +1,107 @@
+package com.estapar.parking_system.infrastructure.client;
+
+import com.estapar.parking_system.api.dto.GarageDtos.SectorDto;
+import com.estapar.parking_system.api.dto.GarageDtos.SpotDto;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class GarageClientTest {
+
+    private final GarageClient client = new GarageClient("http://localhost:0", new ObjectMapper());
+
+    private static final class Recorder implements GarageHandler {
+        final List<String> calls = new ArrayList<>();
+        final List<Integer> chunkSizes = new ArrayList<>();
+        final List<SpotDto> spots = new ArrayList<>();
+        List<SectorDto> sectors;
+
+        @Override public void onSectors(List<SectorDto> s) { calls.add("sectors"); sectors = s; }
+        @Override public void onSpots(List<SpotDto> chunk) {
+            calls.add("spots"); chunkSizes.add(chunk.size()); spots.addAll(chunk);
+        }
+    }
+
+    private static InputStream json(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String spot(int id) {
+        return "{\"id\":" + id + ",\"sector\":\"A\",\"lat\":-23.561684,\"lng\":-46.655981,\"occupied\":false}";
+    }
+
+    @Test
+    void sectors_first_then_spots_in_fixed_chunks_skipping_unknown_fields() throws IOException {
+        var r = new Recorder();
+        client.read(json("""
+                {"garage":[{"sector":"A","base_price":40.5,"max_capacity":10,"open_hour":"00:00",
+                            "close_hour":"23:59","duration_limit_minutes":1440,"extra":{"x":[1,2]}}],
+                 "meta":{"version":3,"tags":["a","b"]},
+                 "spots":[%s,%s,%s,%s,%s]}
+                """.formatted(spot(1), spot(2), spot(3), spot(4), spot(5))), 2, r);
+
+        assertThat(r.calls).containsExactly("sectors", "spots", "spots", "spots");
+        assertThat(r.chunkSizes).containsExactly(2, 2, 1);
+        assertThat(r.sectors).singleElement().satisfies(s -> {
+            assertThat(s.sector()).isEqualTo("A");
+            assertThat(s.basePrice()).isEqualByComparingTo("40.5");
+        });
+        assertThat(r.spots).extracting(SpotDto::id).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(r.spots.get(0).lat()).isEqualTo(new BigDecimal("-23.561684"));
+    }
+
+    @Test
+    void spots_before_garage_are_buffered_until_sectors_arrive() throws IOException {
+        var r = new Recorder();
+        client.read(json("{\"spots\":[" + spot(1) + "," + spot(2) + "," + spot(3) + "],"
+                + "\"garage\":[{\"sector\":\"A\",\"base_price\":1,\"max_capacity\":1,\"open_hour\":\"00:00\","
+                + "\"close_hour\":\"23:59\",\"duration_limit_minutes\":1}]}"), 2, r);
+
+        assertThat(r.calls).containsExactly("sectors", "spots", "spots");
+        assertThat(r.spots).extracting(SpotDto::id).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void missing_garage_still_announces_empty_sectors() throws IOException {
+        var r = new Recorder();
+        client.read(json("{\"spots\":[]}"), 10, r);
+        assertThat(r.calls).containsExactly("sectors");
+        assertThat(r.sectors).isEmpty();
+    }
+
+    @Test
+    void large_payload_never_hands_more_than_one_chunk_at_once() throws IOException {
+        int total = 100_000;
+        List<InputStream> parts = new ArrayList<>();
+        parts.add(json("{\"garage\":[],\"spots\":["));
+        IntStream.range(0, total).forEach(i -> parts.add(json((i == 0 ? "" : ",") + spot(i))));
+        parts.add(json("]}"));
+
+        var chunks = new ArrayList<Integer>();
+        client.read(new SequenceInputStream(Collections.enumeration(parts)), 1000, new GarageHandler() {
+            @Override public void onSectors(List<SectorDto> sectors) {}
+            @Override public void onSpots(List<SpotDto> chunk) { chunks.add(chunk.size()); }
+        });
+
+        assertThat(chunks).hasSize(100).allMatch(n -> n == 1000);
+    }
+
+    @Test
+    void non_object_payload_is_rejected() {
+        assertThatThrownBy(() -> client.read(json("[]"), 10, new Recorder()))
+                .isInstanceOf(JsonParseException.class);
+    }
+}
@@ -0,0 +1,163 @@
+package com.estapar.parking_system.infrastructure.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PlateShardedExecutorTest {
+
+    SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    PlateShardedExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) executor.stop();
+    }
+
+    @Test
+    void keeps_per_plate_order_across_shards() throws Exception {
+        executor = new PlateShardedExecutor(4, 10_000, Duration.ofSeconds(1), Duration.ofSeconds(5), meters);
+        executor.start();
+
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        var done = new CountDownLatch(20 * 500);
+        for (int i = 0; i < 500; i++) {
+            for (int p = 0; p < 20; p++) {
+                String plate = "PLT%04d".formatted(p);
+                int seq = i;
+                executor.submit(plate, () -> {
+                    seen.computeIfAbsent(plate, k -> Collections.synchronizedList(new ArrayList<>())).add(seq);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).hasSize(20);
+        seen.values().forEach(list -> assertThat(list).isSorted().hasSize(500));
+        assertThat(meters.get("webhook.ingest.lag").timer().count()).isEqualTo(10_000);
+    }
+
+    @Test
+    void full_shard_rejects_after_offer_timeout() throws Exception {
+        executor = new PlateShardedExecutor(1, 1, Duration.ofMillis(20), Duration.ofSeconds(5), meters);
+        executor.start();
+
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(1);
+        executor.submit("AAA", () -> {
+            started.countDown();
+            try { release.await(); } catch (InterruptedException ignored) { }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.submit("AAA", () -> { });
+
+        assertThatThrownBy(() -> executor.submit("BBB", () -> { }))
+                .isInstanceOf(IngestQueueFullException.class);
+        assertThat(meters.get("webhook.ingest.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meters.get("webhook.ingest.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+    }
+
+    @Test
+    void stop_drains_queued_work_and_refuses_new_events() {
+        executor = new PlateShardedExecutor(2, 1_000, Duration.ofSeconds(1), Duration.ofSeconds(5), meters);
+        executor.start();
+
+        var processed = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            executor.submit("P" + (i % 7), () -> {
+                try { Thread.sleep(1); } catch (InterruptedException ignored) { }
+                processed.incrementAndGet();
+            });
+        }
+        executor.stop();
+
+        assertThat(processed).hasValue(200);
+        assertThat(executor.pending()).isZero();
+        assertThatThrownBy(() -> executor.submit("P1", () -> { }))
+                .isInstanceOf(IngestQueueFullException.class);
+    }
+
+    @Test
+    void failing_event_does_not_kill_the_shard_worker() throws Exception {
+        executor = new PlateShardedExecutor(1, 10, Duration.ofSeconds(1), Duration.ofSeconds(5), meters);
+        executor.start();
+
+        var done = new CountDownLatch(1);
+        executor.submit("AAA", () -> { throw new IllegalStateException("boom"); });
+        executor.submit("AAA", done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        // falha que não é transitória: sem nova tentativa, direto para a fila de mortos
+        assertThat(executor.drainDeadLetters()).singleElement()
+                .satisfies(d -> {
+                    assertThat(d.plate()).isEqualTo("AAA");
+                    assertThat(d.failure()).hasMessage("boom");
+                    assertThat(d.attempts()).isEqualTo(1);
+                });
+        assertThat(meters.get("webhook.ingest.dead_letter").counter().count()).isEqualTo(1.0);
+        assertThat(meters.get("webhook.ingest.retried").counter().count()).isZero();
+    }
+
+    @Test
+    void transient_failure_is_retried_before_the_next_event_of_the_plate() throws Exception {
+        executor = new PlateShardedExecutor(1, 10, Duration.ofSeconds(1), Duration.ofSeconds(5),
+                3, Duration.ofMillis(1), 10, meters);
+        executor.start();
+
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        var attempts = new AtomicInteger();
+        var done = new CountDownLatch(1);
+        executor.submit("AAA", () -> {
+            if (attempts.incrementAndGet() < 3) throw new CannotAcquireLockException("lock wait timeout");
+            seen.add("first");
+        });
+        executor.submit("AAA", () -> {
+            seen.add("second");
+            done.countDown();
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).containsExactly("first", "second");
+        assertThat(meters.get("webhook.ingest.retried").counter().count()).isEqualTo(2.0);
+        assertThat(executor.drainDeadLetters()).isEmpty();
+    }
+
+    @Test
+    void transient_failure_past_max_attempts_is_dead_lettered() throws Exception {
+        executor = new PlateShardedExecutor(1, 10, Duration.ofSeconds(1), Duration.ofSeconds(5),
+                2, Duration.ofMillis(1), 1, meters);
+        executor.start();
+
+        var done = new CountDownLatch(1);
+        executor.submit("AAA", () -> { throw new DeadlockLoserDataAccessException("deadlock", null); });
+        executor.submit("BBB", () -> { throw new DeadlockLoserDataAccessException("deadlock", null); });
+        executor.submit("CCC", done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        // capacidade 1: a mais antiga sai para dar lugar à nova
+        assertThat(executor.drainDeadLetters()).singleElement()
+                .satisfies(d -> {
+                    assertThat(d.plate()).isEqualTo("BBB");
+                    assertThat(d.attempts()).isEqualTo(2);
+                });
+        assertThat(meters.get("webhook.ingest.dead_letter").counter().count()).isEqualTo(2.0);
+        assertThat(meters.get("webhook.ingest.retried").counter().count()).isEqualTo(2.0);
+    }
+}
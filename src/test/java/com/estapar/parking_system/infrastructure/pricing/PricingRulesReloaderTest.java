@@ -0,0 +1,68 @@
+package com.estapar.parking_system.infrastructure.pricing;
+
+import com.estapar.parking_system.domain.service.DynamicFactorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PricingRulesReloaderTest {
+
+    @TempDir Path dir;
+
+    private final Instant noon = Instant.parse("2025-01-01T12:00:00Z");
+
+    private void write(Path file, String json, long modified) throws IOException {
+        Files.writeString(file, json);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+    }
+
+    @Test
+    void loads_on_start_reloads_on_change_and_keeps_previous_rules_when_invalid() throws IOException {
+        Path file = dir.resolve("rules.json");
+        write(file, """
+                {"rules":[{"sector":"A","tiers":[{"upTo":50,"factor":0.80},{"factor":1.00}]}]}
+                """, 1_000_000L);
+
+        var factors = new DynamicFactorService();
+        var reloader = new PricingRulesReloader(factors, new ObjectMapper(), new FileSystemResource(file));
+        reloader.init();
+
+        assertThat(factors.compute("A", new BigDecimal("0.40"), noon)).isEqualByComparingTo("0.80");
+        assertThat(factors.compute("B", new BigDecimal("0.40"), noon)).isEqualTo(BigDecimal.ONE);
+        assertThat(reloader.reload()).isFalse(); // sem mudança no arquivo
+
+        write(file, """
+                {"rules":[{"sector":"A","tiers":[{"upTo":50,"factor":0.70},{"factor":1.00}]}]}
+                """, 2_000_000L);
+        assertThat(reloader.reload()).isTrue();
+        assertThat(factors.compute("A", new BigDecimal("0.40"), noon)).isEqualByComparingTo("0.70");
+
+        // meia escrita / regra inválida: mantém as regras anteriores
+        write(file, "{\"rules\":[{\"sector\":\"A\",\"tiers\":[{\"upTo\":50", 3_000_000L);
+        assertThat(reloader.reload()).isFalse();
+        write(file, """
+                {"rules":[{"sector":"A","tiers":[{"upTo":50,"factor":0.60}]}]}
+                """, 4_000_000L);
+        assertThat(reloader.reload()).isFalse();
+        assertThat(factors.compute("A", new BigDecimal("0.40"), noon)).isEqualByComparingTo("0.70");
+    }
+
+    @Test
+    void missing_file_keeps_builtin_tiers() {
+        var factors = new DynamicFactorService();
+        var reloader = new PricingRulesReloader(factors, new ObjectMapper(), new FileSystemResource(dir.resolve("none.json")));
+        reloader.init();
+
+        assertThat(factors.compute("A", new BigDecimal("0.10"), noon)).isEqualByComparingTo("0.90");
+    }
+}